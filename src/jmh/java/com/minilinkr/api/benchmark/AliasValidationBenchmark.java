@@ -0,0 +1,66 @@
+package com.minilinkr.api.benchmark;
+
+import com.minilinkr.api.model.UrlMapping;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Cost of validating a create payload: the full Bean Validation pass over {@link UrlMapping},
+ * and the bare alias regex it contains.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AliasValidationBenchmark {
+
+    private static final Pattern ALIAS_PATTERN = Pattern.compile(UrlMapping.ALIAS_REGEX);
+
+    private ValidatorFactory factory;
+    private Validator validator;
+    private UrlMapping valid;
+    private UrlMapping invalid;
+
+    @Setup
+    public void setUp() {
+        factory = Validation.buildDefaultValidatorFactory();
+        validator = factory.getValidator();
+
+        valid = new UrlMapping();
+        valid.setOriginalUrl("https://example.com/some/long/path?with=query");
+        valid.setAlias("summer-sale_2025");
+
+        invalid = new UrlMapping();
+        invalid.setOriginalUrl("https://example.com/some/long/path?with=query");
+        invalid.setAlias("not a valid alias!");
+    }
+
+    @TearDown
+    public void tearDown() {
+        factory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UrlMapping>> validateValid() {
+        return validator.validate(valid);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UrlMapping>> validateInvalid() {
+        return validator.validate(invalid);
+    }
+
+    @Benchmark
+    public boolean aliasRegex() {
+        return ALIAS_PATTERN.matcher(valid.getAlias()).matches();
+    }
+}
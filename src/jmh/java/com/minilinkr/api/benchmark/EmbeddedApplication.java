@@ -0,0 +1,43 @@
+package com.minilinkr.api.benchmark;
+
+import com.minilinkr.api.MiniLinkrApiApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Starts the application against an in-memory H2 database, without a web server,
+ * so benchmarks can call the beans directly.
+ */
+public final class EmbeddedApplication {
+
+    private EmbeddedApplication() {}
+
+    /**
+     * @param name  the name of the in-memory database, unique per benchmark
+     * @param extra additional command-line style properties, e.g. {@code --minilinkr.cache.ttl=1m}
+     * @return the started application context
+     */
+    public static ConfigurableApplicationContext start(String name, String... extra) {
+        String[] args = {
+                "--spring.datasource.url=jdbc:h2:mem:" + name
+                        + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                // As throwaway as the database
+                "--minilinkr.alias-codes.key=" + ThreadLocalRandom.current().nextLong(),
+        };
+        String[] all = new String[args.length + extra.length];
+        System.arraycopy(args, 0, all, 0, args.length);
+        System.arraycopy(extra, 0, all, args.length, extra.length);
+
+        return new SpringApplicationBuilder(MiniLinkrApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run(all);
+    }
+}
@@ -0,0 +1,37 @@
+package com.minilinkr.api.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.minilinkr.api.controller.v1.ApiErrorController;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of building the JSON error body for a 404, on its own and serialised to bytes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ErrorResponseBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Benchmark
+    public ResponseEntity<Map<String, Object>> buildNotFound() {
+        return ApiErrorController.buildErrorResponse(HttpStatus.NOT_FOUND,
+                "not_found",
+                "The requested resource was not found.");
+    }
+
+    @Benchmark
+    public byte[] buildAndSerializeNotFound() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(buildNotFound().getBody());
+    }
+}
@@ -0,0 +1,138 @@
+package com.minilinkr.api.benchmark;
+
+import com.minilinkr.api.controller.v1.RedirectController;
+import com.minilinkr.api.model.UrlMapping;
+import com.minilinkr.api.service.AliasCache;
+import com.minilinkr.api.service.AliasSnapshotIndex;
+import com.minilinkr.api.service.UrlShorteningService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The alias lookup and redirect path against an embedded H2 database: cache hits,
+ * lookups that go to the database, as a projection or as a full entity, aliases that
+ * don't exist, and the full {@link RedirectController#redirect} call, answered by the
+ * snapshot or by the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LookupBenchmark {
+
+    @Param("10000")
+    public int mappings;
+
+    private ConfigurableApplicationContext context;
+    private UrlShorteningService service;
+    private AliasCache cache;
+    private AliasSnapshotIndex snapshotIndex;
+    private RedirectController redirectController;
+
+    private String[] aliases;
+    private String[] missing;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        int next(int bound) {
+            int i = next;
+            next = i + 1 == bound ? 0 : i + 1;
+            return i;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = EmbeddedApplication.start("lookup");
+        service = context.getBean(UrlShorteningService.class);
+        cache = context.getBean(AliasCache.class);
+        snapshotIndex = context.getBean(AliasSnapshotIndex.class);
+        redirectController = context.getBean(RedirectController.class);
+
+        aliases = new String[mappings];
+        missing = new String[mappings];
+        List<UrlMapping> batch = new ArrayList<>();
+        for (int i = 0; i < mappings; i++) {
+            aliases[i] = "bench-" + i;
+            missing[i] = "missing-" + i;
+
+            UrlMapping mapping = new UrlMapping();
+            mapping.setAlias(aliases[i]);
+            mapping.setOriginalUrl("https://example.com/landing/" + i);
+            batch.add(mapping);
+            if (batch.size() == 5000) {
+                service.createBatch(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            service.createBatch(batch);
+        }
+
+        // Warm the cache so cachedLookup measures hits only
+        for (String alias : aliases) {
+            service.getRedirectTarget(alias);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<UrlMapping> cachedLookup(Cursor cursor) {
+        return service.getRedirectTarget(aliases[cursor.next(mappings)]);
+    }
+
+    @Benchmark
+    public Optional<UrlMapping> databaseLookup(Cursor cursor) {
+        String alias = aliases[cursor.next(mappings)];
+        cache.invalidate(alias);
+        return service.getRedirectTarget(alias);
+    }
+
+    @Benchmark
+    public Optional<UrlMapping> entityLookup(Cursor cursor) {
+        return service.getOriginalUrl(aliases[cursor.next(mappings)]);
+    }
+
+    @Benchmark
+    public Optional<UrlMapping> missingLookup(Cursor cursor) {
+        return service.getRedirectTarget(missing[cursor.next(mappings)]);
+    }
+
+    @Benchmark
+    public ResponseEntity<Void> redirect(Cursor cursor) {
+        return redirectController.redirect(aliases[cursor.next(mappings)], null, null, HttpMethod.GET);
+    }
+
+    @Benchmark
+    public ResponseEntity<Void> redirectFromDatabase(Cursor cursor) {
+        String alias = aliases[cursor.next(mappings)];
+        snapshotIndex.invalidate(alias);
+        cache.invalidate(alias);
+        return redirectController.redirect(alias, null, null, HttpMethod.GET);
+    }
+
+    @Benchmark
+    public Object redirectNotFound(Cursor cursor) {
+        try {
+            return redirectController.redirect(missing[cursor.next(mappings)], null, null, HttpMethod.GET);
+        } catch (ResponseStatusException ex) {
+            return ex;
+        }
+    }
+}
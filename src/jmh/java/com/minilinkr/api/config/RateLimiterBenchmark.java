@@ -0,0 +1,91 @@
+package com.minilinkr.api.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.minilinkr.api.controller.v1.ApiErrorController;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the {@link RateLimiter} check on every request: one client taking tokens, one
+ * client being refused, a request's own client among many, four threads sharing one
+ * client's bucket, and the whole {@link RateLimitFilter} around a no-op chain.
+ *
+ * Rates are high enough that the allowed cases never run out of tokens, so each measures
+ * the same path as a client within its budget.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+    private static final int CLIENTS = 100_000;
+
+    private static final FilterChain NO_OP = (request, response) -> {
+    };
+
+    private RateLimiter limiter;
+    private RateLimitFilter filter;
+    private String[] clients;
+
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        // Reads unlimited in practice, writes refused after the first, redirects unlimited in practice
+        limiter = new RateLimiter(new double[] { 1e12, 1e-3, 1e12 }, new int[] { 1_000_000, 1, 1_000_000 }, CLIENTS * 2L);
+        clients = new String[CLIENTS];
+        for (int i = 0; i < CLIENTS; i++) {
+            clients[i] = "10.0." + (i >>> 8) + "." + (i & 0xff);
+            limiter.tryAcquire(clients[i], RateLimiter.Budget.READ);
+        }
+        limiter.tryAcquire(clients[0], RateLimiter.Budget.WRITE);
+
+        filter = new RateLimitFilter(limiter, new ApiErrorController(new ObjectMapper()), null, Set.of(), Set.of("error", "actuator"));
+        request = new MockHttpServletRequest("GET", "/bench-redirect");
+        request.setRemoteAddr(clients[0]);
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public long allowed() {
+        return limiter.tryAcquire(clients[0], RateLimiter.Budget.READ);
+    }
+
+    @Benchmark
+    public long refused() {
+        return limiter.tryAcquire(clients[0], RateLimiter.Budget.WRITE);
+    }
+
+    @Benchmark
+    public long manyClients(Cursor cursor) {
+        int i = cursor.next;
+        cursor.next = i + 1 == CLIENTS ? 0 : i + 1;
+        return limiter.tryAcquire(clients[i], RateLimiter.Budget.READ);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long contended() {
+        return limiter.tryAcquire(clients[0], RateLimiter.Budget.REDIRECT);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse filter() throws Exception {
+        filter.doFilter(request, response, NO_OP);
+        return response;
+    }
+}
@@ -0,0 +1,33 @@
+package com.minilinkr.api.controller.v1;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the forbidden-alias check in {@link UrlController}, for a reserved alias,
+ * and for an allowed one that has to be compared against every entry.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ForbiddenAliasBenchmark {
+
+    private UrlController controller;
+
+    @Param({ "admin", "summer-sale_2025" })
+    public String alias;
+
+    @Setup
+    public void setUp() {
+        controller = new UrlController(null, null, 0, null);
+    }
+
+    @Benchmark
+    public boolean isForbiddenAlias() {
+        return controller.isForbiddenAlias(alias);
+    }
+}
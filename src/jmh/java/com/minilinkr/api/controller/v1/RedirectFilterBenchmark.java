@@ -0,0 +1,84 @@
+package com.minilinkr.api.controller.v1;
+
+import com.minilinkr.api.benchmark.EmbeddedApplication;
+import com.minilinkr.api.model.UrlMapping;
+import com.minilinkr.api.service.UrlShorteningService;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The redirect fast path of {@link RedirectFilter}, for an alias that exists and one that
+ * doesn't, against an embedded H2 database. Requests and responses are reused, so only the
+ * filter's own work is measured; {@code RedirectFilterAllocationTest} checks what it allocates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RedirectFilterBenchmark {
+
+    private static final FilterChain NOT_REACHED = (request, response) -> {
+        throw new IllegalStateException("The fast path passed the request on");
+    };
+
+    private ConfigurableApplicationContext context;
+    private RedirectFilter filter;
+
+    private MockHttpServletRequest redirectRequest;
+    private MockHttpServletRequest notFoundRequest;
+    private MockHttpServletResponse response;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = EmbeddedApplication.start("redirect-filter");
+        UrlShorteningService service = context.getBean(UrlShorteningService.class);
+        filter = new RedirectFilter(service,
+                context.getBean(RedirectController.class),
+                context.getBean(ApiErrorController.class),
+                Set.of("error", "actuator"));
+
+        List<UrlMapping> batch = new ArrayList<>();
+        UrlMapping mapping = new UrlMapping();
+        mapping.setAlias("bench-redirect");
+        mapping.setOriginalUrl("https://example.com/landing/redirect");
+        batch.add(mapping);
+        service.createBatch(batch);
+
+        redirectRequest = new MockHttpServletRequest("GET", "/bench-redirect");
+        notFoundRequest = new MockHttpServletRequest("GET", "/bench-missing");
+        response = new MockHttpServletResponse();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse redirect() throws Exception {
+        return serve(redirectRequest);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse notFound() throws Exception {
+        return serve(notFoundRequest);
+    }
+
+    private MockHttpServletResponse serve(MockHttpServletRequest request) throws Exception {
+        // The 404 is flushed, which commits the response
+        response.setCommitted(false);
+        response.reset();
+        filter.doFilter(request, response, NOT_REACHED);
+        return response;
+    }
+}
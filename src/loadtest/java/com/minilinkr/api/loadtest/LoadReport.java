@@ -0,0 +1,178 @@
+package com.minilinkr.api.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The results of a measured phase: a table on the console, and a JSON report with the options,
+ * per-operation throughput, status counts and latency percentiles, and each histogram in
+ * HdrHistogram's compressed form so runs can be compared or merged exactly later. Each
+ * operation's percentile distribution is also written as a {@code .hgrm} file, which
+ * HdrHistogram's plotter reads.
+ */
+final class LoadReport {
+
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC);
+
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    private final LoadTestOptions options;
+    private final Map<Operation, OperationStats> stats;
+    private final double seconds;
+    private final Instant startedAt;
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final Map<Operation, Histogram> responseTimes = new LinkedHashMap<>();
+    private final Map<Operation, Histogram> serviceTimes = new LinkedHashMap<>();
+
+    LoadReport(LoadTestOptions options, Map<Operation, OperationStats> stats, double seconds, Instant startedAt) {
+        this.options = options;
+        this.stats = stats;
+        this.seconds = seconds;
+        this.startedAt = startedAt;
+        stats.forEach((operation, operationStats) -> {
+            responseTimes.put(operation, operationStats.responseTimes());
+            serviceTimes.put(operation, operationStats.serviceTimes());
+        });
+    }
+
+    void print(PrintStream out) {
+        out.printf("%n%-10s %9s %9s %9s %9s %9s %9s %9s %9s%n",
+                "operation", "count", "ops/s", "errors", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "svc p99");
+        long total = 0;
+        for (Operation operation : stats.keySet()) {
+            Histogram response = responseTimes.get(operation);
+            total += response.getTotalCount();
+            out.printf("%-10s %9d %9.1f %9d %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    operation.label(),
+                    response.getTotalCount(),
+                    response.getTotalCount() / seconds,
+                    errors(operation),
+                    millis(response.getValueAtPercentile(50)),
+                    millis(response.getValueAtPercentile(99)),
+                    millis(response.getValueAtPercentile(99.9)),
+                    millis(response.getMaxValue()),
+                    millis(serviceTimes.get(operation).getValueAtPercentile(99)));
+        }
+        out.printf("%-10s %9d %9.1f%n", "total", total, total / seconds);
+        out.println("Latencies are measured from when each request was due, errors include unexpected statuses,"
+                + " failed and overloaded requests, and svc p99 is measured from when each request was sent.");
+    }
+
+    /**
+     * Writes the JSON report and the percentile distributions.
+     *
+     * @return the JSON report
+     */
+    Path write() throws IOException {
+        Files.createDirectories(options.reportDir);
+        String name = "loadtest-" + FILE_TIME.format(startedAt);
+
+        Map<String, Object> operations = new LinkedHashMap<>();
+        for (Operation operation : stats.keySet()) {
+            OperationStats operationStats = stats.get(operation);
+            Histogram response = responseTimes.get(operation);
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("count", response.getTotalCount());
+            entry.put("throughput", response.getTotalCount() / seconds);
+            entry.put("expected_status", operation.expectedStatus());
+            entry.put("statuses", operationStats.statuses());
+            entry.put("errors", errors(operation));
+            entry.put("failed", operationStats.failed());
+            entry.put("overloaded", operationStats.overloaded());
+            entry.put("skipped", operationStats.skipped());
+            entry.put("response_time_ms", percentiles(response));
+            entry.put("service_time_ms", percentiles(serviceTimes.get(operation)));
+            entry.put("response_time_histogram", encode(response));
+            operations.put(operation.label(), entry);
+
+            try (PrintStream out = new PrintStream(Files.newOutputStream(
+                    options.reportDir.resolve(name + "-" + operation.label() + ".hgrm")))) {
+                response.outputPercentileDistribution(out, NANOS_PER_MILLI);
+            }
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("started_at", startedAt.toString());
+        report.put("measured_s", seconds);
+        report.put("options", options.describe());
+        report.put("operations", operations);
+        Path path = options.reportDir.resolve(name + ".json");
+        objectMapper.writeValue(path.toFile(), report);
+        return path;
+    }
+
+    /**
+     * Prints the change in throughput and p99 of each operation since an earlier report.
+     */
+    void compare(Path baseline, PrintStream out) throws IOException {
+        JsonNode before = objectMapper.readTree(baseline.toFile()).path("operations");
+        out.printf("%nCompared with %s%n", baseline);
+        out.printf("%-10s %20s %8s %24s %8s%n", "operation", "ops/s", "change", "p99 ms", "change");
+        for (Operation operation : stats.keySet()) {
+            JsonNode previous = before.path(operation.label());
+            if (previous.isMissingNode()) {
+                continue;
+            }
+            Histogram response = responseTimes.get(operation);
+            double throughput = response.getTotalCount() / seconds;
+            double previousThroughput = previous.path("throughput").asDouble();
+            double p99 = millis(response.getValueAtPercentile(99));
+            double previousP99 = previous.path("response_time_ms").path("p99").asDouble();
+            out.printf("%-10s %9.1f -> %7.1f %+7.1f%% %11.2f -> %9.2f %+7.1f%%%n",
+                    operation.label(), previousThroughput, throughput, change(previousThroughput, throughput),
+                    previousP99, p99, change(previousP99, p99));
+        }
+    }
+
+    private long errors(Operation operation) {
+        OperationStats operationStats = stats.get(operation);
+        long unexpected = 0;
+        for (Map.Entry<Integer, Long> status : operationStats.statuses().entrySet()) {
+            if (status.getKey() != operation.expectedStatus()) {
+                unexpected += status.getValue();
+            }
+        }
+        return unexpected + operationStats.failed() + operationStats.overloaded();
+    }
+
+    private static Map<String, Object> percentiles(Histogram histogram) {
+        Map<String, Object> percentiles = new LinkedHashMap<>();
+        percentiles.put("mean", millis((long) histogram.getMean()));
+        percentiles.put("p50", millis(histogram.getValueAtPercentile(50)));
+        percentiles.put("p90", millis(histogram.getValueAtPercentile(90)));
+        percentiles.put("p99", millis(histogram.getValueAtPercentile(99)));
+        percentiles.put("p99_9", millis(histogram.getValueAtPercentile(99.9)));
+        percentiles.put("max", millis(histogram.getMaxValue()));
+        return percentiles;
+    }
+
+    private static String encode(Histogram histogram) {
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        return Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / NANOS_PER_MILLI;
+    }
+
+    private static double change(double before, double after) {
+        return before == 0 ? 0 : (after - before) * 100 / before;
+    }
+}
@@ -0,0 +1,106 @@
+package com.minilinkr.api.loadtest;
+
+import com.minilinkr.api.MiniLinkrApiApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * End-to-end load test: starts the application on a random port against an in-memory H2
+ * database (or uses {@code --target}), seeds {@code --mappings} links, sends the request mix
+ * open-loop at {@code --rate} requests a second through a warm-up and then a measured phase,
+ * and reports throughput and latency percentiles per operation.
+ *
+ * <pre>
+ * ./mvnw -Ploadtest compile exec:exec -Dloadtest.args="--rate=2000 --duration=2m --mappings=100000"
+ * </pre>
+ *
+ * The load generator shares the machine, and with the embedded application the JVM, so it
+ * competes with the server for CPU; compare runs made the same way.
+ */
+public final class LoadTest {
+
+    private LoadTest() {}
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        ConfigurableApplicationContext context = options.target == null ? start(options) : null;
+        try {
+            String baseUrl = context == null
+                    ? options.target
+                    : "http://localhost:" + ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .followRedirects(HttpClient.Redirect.NEVER)
+                    .build();
+            Workload workload = new Workload(client, baseUrl, options);
+            workload.seed();
+
+            SplittableRandom random = new SplittableRandom(options.seed);
+            if (!options.warmup.isZero()) {
+                System.out.printf("Warming up for %d s at %.0f requests/s%n", options.warmup.toSeconds(), options.rate);
+                workload.run(options.warmup, random);
+            }
+            System.out.printf("Measuring for %d s at %.0f requests/s%n", options.duration.toSeconds(), options.rate);
+            Instant startedAt = Instant.now();
+            long start = System.nanoTime();
+            Map<Operation, OperationStats> stats = workload.run(options.duration, random);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            LoadReport report = new LoadReport(options, stats, seconds, startedAt);
+            report.print(System.out);
+            Path path = report.write();
+            System.out.printf("%nReport written to %s%n", path);
+            if (options.baseline != null) {
+                report.compare(options.baseline, System.out);
+            }
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext start(LoadTestOptions options) throws Exception {
+        Path dataDir = Files.createTempDirectory("minilinkr-loadtest");
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("spring.datasource.url", "jdbc:h2:mem:loadtest"
+                + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1");
+        properties.put("spring.datasource.username", "sa");
+        properties.put("spring.datasource.password", "");
+        properties.put("spring.jpa.show-sql", "false");
+        properties.put("spring.main.banner-mode", "off");
+        properties.put("logging.level.root", "WARN");
+        properties.put("server.port", "0");
+        // As throwaway as the database
+        properties.put("minilinkr.alias-codes.key", Long.toString(ThreadLocalRandom.current().nextLong()));
+        // Every request comes from one address, which the limiter would soon refuse
+        properties.put("minilinkr.rate-limit.enabled", "false");
+        properties.put("minilinkr.snapshot.dir", dataDir.resolve("snapshot").toString());
+        properties.put("minilinkr.analytics.journal.dir", dataDir.resolve("clicks").toString());
+        // Given last, so they override the above; repeated command-line properties would be joined instead
+        for (String arg : options.applicationArgs) {
+            int equals = arg.indexOf('=');
+            properties.put(arg.substring(2, equals), arg.substring(equals + 1));
+        }
+
+        String[] args = properties.entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new);
+        System.out.println("Starting the application against an in-memory H2 database");
+        return new SpringApplicationBuilder(MiniLinkrApiApplication.class)
+                .logStartupInfo(false)
+                .run(args);
+    }
+}
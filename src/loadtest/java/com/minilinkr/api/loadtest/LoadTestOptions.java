@@ -0,0 +1,108 @@
+package com.minilinkr.api.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Load test settings, given as {@code --name=value} arguments. Arguments the load test doesn't
+ * know, such as {@code --minilinkr.redirect.fast-path=true}, are passed on to the embedded
+ * application.
+ */
+final class LoadTestOptions {
+
+    private static final String DEFAULT_MIX = "redirect=90,create=3,delete=2,not-found=4,list=1";
+
+    String target;
+    int mappings = 10_000;
+    double rate = 1_000;
+    Duration warmup = Duration.ofSeconds(10);
+    Duration duration = Duration.ofSeconds(60);
+    Map<Operation, Integer> mix = parseMix(DEFAULT_MIX);
+    double zipf = 1.0;
+    long seed = 42;
+    int maxInFlight = 10_000;
+    Duration timeout = Duration.ofSeconds(30);
+    Path reportDir = Path.of("target", "loadtest");
+    Path baseline;
+
+    final List<String> applicationArgs = new ArrayList<>();
+
+    static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            String name = arg.substring(2, equals);
+            String value = arg.substring(equals + 1);
+            switch (name) {
+                case "target" -> options.target = value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
+                case "mappings" -> options.mappings = Integer.parseInt(value);
+                case "rate" -> options.rate = Double.parseDouble(value);
+                case "warmup" -> options.warmup = DurationStyle.detectAndParse(value);
+                case "duration" -> options.duration = DurationStyle.detectAndParse(value);
+                case "mix" -> options.mix = parseMix(value);
+                case "zipf" -> options.zipf = Double.parseDouble(value);
+                case "seed" -> options.seed = Long.parseLong(value);
+                case "max-in-flight" -> options.maxInFlight = Integer.parseInt(value);
+                case "timeout" -> options.timeout = DurationStyle.detectAndParse(value);
+                case "report-dir" -> options.reportDir = Path.of(value);
+                case "baseline" -> options.baseline = Path.of(value);
+                default -> options.applicationArgs.add(arg);
+            }
+        }
+        if (options.mappings < 1 || options.rate <= 0 || options.duration.isZero() || options.maxInFlight < 1) {
+            throw new IllegalArgumentException("mappings, rate, duration and max-in-flight must be positive");
+        }
+        if (options.target != null && !options.applicationArgs.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options " + options.applicationArgs
+                    + "; application properties only apply to the embedded application, not to --target");
+        }
+        return options;
+    }
+
+    // "redirect=90,create=3" and so on; operations left out aren't sent
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String part : mix.split(",")) {
+            String[] pair = part.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Expected operation=weight in the mix, got " + part);
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Weights in the mix can't be negative: " + part);
+            }
+            weights.put(Operation.fromLabel(pair[0].trim()), weight);
+        }
+        if (weights.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("The mix has no operations");
+        }
+        return weights;
+    }
+
+    Map<String, Object> describe() {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("target", target == null ? "embedded" : target);
+        description.put("mappings", mappings);
+        description.put("rate", rate);
+        description.put("warmup_s", warmup.toMillis() / 1000.0);
+        description.put("duration_s", duration.toMillis() / 1000.0);
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        mix.forEach((operation, weight) -> weights.put(operation.label(), weight));
+        description.put("mix", weights);
+        description.put("zipf", zipf);
+        description.put("seed", seed);
+        description.put("max_in_flight", maxInFlight);
+        description.put("application_args", applicationArgs);
+        return description;
+    }
+}
@@ -0,0 +1,37 @@
+package com.minilinkr.api.loadtest;
+
+/**
+ * The kinds of request in the load test mix, with the status each should get.
+ */
+enum Operation {
+    REDIRECT("redirect", 302),
+    CREATE("create", 201),
+    DELETE("delete", 200),
+    NOT_FOUND("not-found", 404),
+    LIST("list", 200);
+
+    private final String label;
+    private final int expectedStatus;
+
+    Operation(String label, int expectedStatus) {
+        this.label = label;
+        this.expectedStatus = expectedStatus;
+    }
+
+    String label() {
+        return label;
+    }
+
+    int expectedStatus() {
+        return expectedStatus;
+    }
+
+    static Operation fromLabel(String label) {
+        for (Operation operation : values()) {
+            if (operation.label.equals(label)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation " + label);
+    }
+}
@@ -0,0 +1,75 @@
+package com.minilinkr.api.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * What one operation's requests got during a phase, recorded from any number of threads.
+ *
+ * Response time runs from when the request was due by the arrival schedule, so time spent
+ * waiting behind a slow server counts against it; service time runs from when it was sent.
+ */
+final class OperationStats {
+
+    private final Recorder responseTimes = new Recorder(3);
+    private final Recorder serviceTimes = new Recorder(3);
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder overloaded = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+
+    void record(int status, long responseNanos, long serviceNanos) {
+        responseTimes.recordValue(responseNanos);
+        serviceTimes.recordValue(serviceNanos);
+        statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+    }
+
+    // No response at all, such as a refused connection or a timeout, still counted for as long as it took
+    void fail(long responseNanos, long serviceNanos) {
+        responseTimes.recordValue(responseNanos);
+        serviceTimes.recordValue(serviceNanos);
+        failed.increment();
+    }
+
+    // Not sent because too many requests were in flight; the server isn't keeping up with the rate
+    void overload(long responseNanos) {
+        responseTimes.recordValue(responseNanos);
+        overloaded.increment();
+    }
+
+    // Not sent because there was nothing to act on, such as a delete before any create
+    void skip() {
+        skipped.increment();
+    }
+
+    Histogram responseTimes() {
+        return responseTimes.getIntervalHistogram();
+    }
+
+    Histogram serviceTimes() {
+        return serviceTimes.getIntervalHistogram();
+    }
+
+    Map<Integer, Long> statuses() {
+        Map<Integer, Long> counts = new TreeMap<>();
+        statuses.forEach((status, count) -> counts.put(status, count.sum()));
+        return counts;
+    }
+
+    long failed() {
+        return failed.sum();
+    }
+
+    long overloaded() {
+        return overloaded.sum();
+    }
+
+    long skipped() {
+        return skipped.sum();
+    }
+}
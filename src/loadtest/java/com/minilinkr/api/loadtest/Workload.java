@@ -0,0 +1,229 @@
+package com.minilinkr.api.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Seeds the mappings and drives the request mix against a running instance.
+ *
+ * Requests are sent open-loop: the n-th request of a phase is due {@code n / rate} seconds
+ * after its start whether or not earlier ones have been answered, each on its own virtual
+ * thread, and its response time is measured from when it was due. A server that stalls
+ * therefore shows up in the histograms as the full stall, rather than as the few requests a
+ * closed loop would have sent meanwhile. Which operation is sent when, and to which alias, is
+ * drawn from the seed on the one scheduling thread, so runs with the same options send the
+ * same requests.
+ */
+final class Workload {
+
+    private static final int SEED_BATCH_SIZE = 1000;
+
+    private static final int LIST_LIMIT = 20;
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final LoadTestOptions options;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+    private final ZipfSampler popularity;
+    private final HttpRequest[] redirects;
+    private final HttpRequest list;
+
+    // Run-unique, so aliases created by an earlier run against the same target don't conflict
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private final Queue<String> created = new ConcurrentLinkedQueue<>();
+    private long createCount;
+
+    // A permit per request in flight
+    private final Semaphore slots;
+
+    Workload(HttpClient client, String baseUrl, LoadTestOptions options) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.options = options;
+        slots = new Semaphore(options.maxInFlight);
+
+        operations = options.mix.keySet().toArray(Operation[]::new);
+        cumulativeWeights = new int[operations.length];
+        int sum = 0;
+        for (int i = 0; i < operations.length; i++) {
+            sum += options.mix.get(operations[i]);
+            cumulativeWeights[i] = sum;
+        }
+        popularity = new ZipfSampler(options.mappings, options.zipf, options.seed);
+
+        // Built once, as most requests are these
+        redirects = new HttpRequest[options.mappings];
+        for (int i = 0; i < options.mappings; i++) {
+            redirects[i] = get("/" + seededAlias(i));
+        }
+        list = get("/api/v1/urls?limit=" + LIST_LIMIT);
+    }
+
+    /**
+     * Creates the seeded mappings through the batch endpoint. Those left by an earlier run
+     * against the same target come back as conflicts, and are used as they are.
+     */
+    void seed() throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        for (int from = 0; from < options.mappings; from += SEED_BATCH_SIZE) {
+            List<Map<String, String>> batch = new ArrayList<>();
+            for (int i = from; i < Math.min(from + SEED_BATCH_SIZE, options.mappings); i++) {
+                batch.add(Map.of("alias", seededAlias(i), "originalUrl", "https://example.com/loadtest/" + i));
+            }
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/urls/batch"))
+                    .timeout(options.timeout)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(batch)))
+                    .build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Seeding failed with " + response.statusCode() + ": " + response.body());
+            }
+        }
+        System.out.printf("Seeded %,d mappings in %.1f s%n", options.mappings, (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Sends requests at the configured rate for a while, then waits for those still in flight.
+     *
+     * @param length how long to send for
+     * @param random the source of the operations and aliases, carried over between phases
+     * @return what each operation in the mix got
+     */
+    Map<Operation, OperationStats> run(Duration length, SplittableRandom random) throws InterruptedException {
+        Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+        for (Operation operation : operations) {
+            stats.put(operation, new OperationStats());
+        }
+        double nanosPerRequest = TimeUnit.SECONDS.toNanos(1) / options.rate;
+        long start = System.nanoTime();
+        long end = start + length.toNanos();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long n = 0; ; n++) {
+                long due = start + (long) (n * nanosPerRequest);
+                if (due >= end) {
+                    break;
+                }
+                long delay = due - System.nanoTime();
+                if (delay > 0) {
+                    LockSupport.parkNanos(delay);
+                }
+
+                Operation operation = pick(random);
+                OperationStats operationStats = stats.get(operation);
+                String alias = operation == Operation.CREATE ? "lt-" + runId + "-" + createCount++ : null;
+                HttpRequest request = request(operation, alias, random);
+                if (request == null) {
+                    operationStats.skip();
+                    continue;
+                }
+                if (!slots.tryAcquire()) {
+                    executor.execute(() -> overload(due, operationStats));
+                    continue;
+                }
+                executor.execute(() -> send(request, alias, due, operationStats));
+            }
+            // Closing the executor waits for the requests in flight, each bounded by the timeout
+        }
+        return stats;
+    }
+
+    // Aliases created are queued for later deletes
+    private void send(HttpRequest request, String createdAlias, long due, OperationStats stats) {
+        long sent = System.nanoTime();
+        try {
+            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            long now = System.nanoTime();
+            stats.record(status, now - due, now - sent);
+            if (createdAlias != null && status == Operation.CREATE.expectedStatus()) {
+                created.add(createdAlias);
+            }
+        } catch (IOException ex) {
+            long now = System.nanoTime();
+            stats.fail(now - due, now - sent);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            slots.release();
+        }
+    }
+
+    // Not sent, but timed from when it was due until a slot frees or it would have timed out,
+    // so the percentiles still account for the requests the server couldn't take
+    private void overload(long due, OperationStats stats) {
+        long deadline = due + options.timeout.toNanos();
+        try {
+            if (slots.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                slots.release();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        stats.overload(Math.min(System.nanoTime(), deadline) - due);
+    }
+
+    private Operation pick(SplittableRandom random) {
+        int draw = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; ; i++) {
+            if (draw < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+    }
+
+    // The request for an operation, or null when there is nothing for it to act on
+    private HttpRequest request(Operation operation, String alias, SplittableRandom random) {
+        return switch (operation) {
+            case REDIRECT -> redirects[popularity.next(random)];
+            case NOT_FOUND -> get("/lt-missing-" + Integer.toString(random.nextInt(Integer.MAX_VALUE), 36));
+            case LIST -> list;
+            case CREATE -> HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/urls"))
+                    .timeout(options.timeout)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(
+                            "{\"alias\":\"" + alias + "\",\"originalUrl\":\"https://example.com/loadtest/" + alias + "\"}"))
+                    .build();
+            case DELETE -> {
+                String deleted = created.poll();
+                yield deleted == null ? null : HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/urls/" + deleted))
+                        .timeout(options.timeout)
+                        .DELETE()
+                        .build();
+            }
+        };
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(options.timeout)
+                .GET()
+                .build();
+    }
+
+    private static String seededAlias(int i) {
+        return "lt-" + i;
+    }
+}
@@ -0,0 +1,47 @@
+package com.minilinkr.api.loadtest;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Draws indexes in {@code [0, n)} with Zipf-distributed popularity: the k-th most popular is
+ * drawn in proportion to {@code 1 / k^exponent}. Which index has which rank is shuffled once
+ * from the seed, so the popular aliases are spread over the keyspace rather than the oldest.
+ */
+final class ZipfSampler {
+
+    private final double[] cumulative;
+    private final int[] byRank;
+
+    ZipfSampler(int n, double exponent, long seed) {
+        cumulative = new double[n];
+        double sum = 0;
+        for (int rank = 0; rank < n; rank++) {
+            sum += 1 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < n; rank++) {
+            cumulative[rank] /= sum;
+        }
+
+        byRank = new int[n];
+        for (int i = 0; i < n; i++) {
+            byRank[i] = i;
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = byRank[i];
+            byRank[i] = byRank[j];
+            byRank[j] = swap;
+        }
+    }
+
+    int next(SplittableRandom random) {
+        int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+        if (rank < 0) {
+            rank = Math.min(-rank - 1, cumulative.length - 1);
+        }
+        return byRank[rank];
+    }
+}
@@ -0,0 +1,78 @@
+package com.minilinkr.api.config;
+
+import com.minilinkr.api.controller.v1.ApiErrorController;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Settings that only apply when per-client rate limiting is enabled
+ * ({@code minilinkr.rate-limit.enabled=true}).
+ *
+ * Reads, writes and redirects each have their own rate and burst, so a client flooding the
+ * write API runs out of write tokens long before the connection pool that redirects depend
+ * on is starved. A rate of 0 leaves that budget unlimited.
+ */
+@Configuration
+@ConditionalOnProperty(name = "minilinkr.rate-limit.enabled", havingValue = "true")
+public class RateLimitConfig {
+
+    @Bean
+    public RateLimiter rateLimiter(
+            @Value("${minilinkr.rate-limit.reads.rate:50}") double readRate,
+            @Value("${minilinkr.rate-limit.reads.burst:100}") int readBurst,
+            @Value("${minilinkr.rate-limit.writes.rate:10}") double writeRate,
+            @Value("${minilinkr.rate-limit.writes.burst:20}") int writeBurst,
+            @Value("${minilinkr.rate-limit.redirects.rate:200}") double redirectRate,
+            @Value("${minilinkr.rate-limit.redirects.burst:400}") int redirectBurst,
+            @Value("${minilinkr.rate-limit.max-clients:100000}") long maxClients) {
+        // In RateLimiter.Budget order
+        return new RateLimiter(
+                new double[] { readRate, writeRate, redirectRate },
+                new int[] { readBurst, writeBurst, redirectBurst },
+                maxClients);
+    }
+
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(
+            RateLimiter rateLimiter,
+            ApiErrorController errorController,
+            @Value("${minilinkr.rate-limit.api-key-header:}") String apiKeyHeader,
+            @Value("${minilinkr.rate-limit.api-keys:}") List<String> apiKeys,
+            @Value("${server.error.path:${error.path:/error}}") String errorPath,
+            @Value("${management.endpoints.web.base-path:/actuator}") String actuatorPath) {
+        Set<String> knownKeys = new HashSet<>();
+        for (String key : apiKeys) {
+            if (!key.isBlank()) {
+                knownKeys.add(key.strip());
+            }
+        }
+        if (!apiKeyHeader.isBlank() && knownKeys.isEmpty()) {
+            throw new IllegalStateException(
+                    "minilinkr.rate-limit.api-key-header needs the keys it may carry in minilinkr.rate-limit.api-keys");
+        }
+        Set<String> reservedPaths = new HashSet<>();
+        reservedPaths.add(firstSegment(errorPath));
+        reservedPaths.add(firstSegment(actuatorPath));
+
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(new RateLimitFilter(
+                rateLimiter, errorController, apiKeyHeader.isBlank() ? null : apiKeyHeader, Set.copyOf(knownKeys),
+                Set.copyOf(reservedPaths)));
+        // Right after the observation filter, so 429s are timed but nothing else runs for them
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return registration;
+    }
+
+    private static String firstSegment(String path) {
+        String trimmed = path.startsWith("/") ? path.substring(1) : path;
+        int slash = trimmed.indexOf('/');
+        return slash < 0 ? trimmed : trimmed.substring(0, slash);
+    }
+}
@@ -0,0 +1,121 @@
+package com.minilinkr.api.config;
+
+import com.minilinkr.api.controller.v1.ApiErrorController;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts each request against its client's {@link RateLimiter} budget and answers 429 with
+ * {@code Retry-After} once the budget is spent, before any handler or database work.
+ *
+ * Requests under {@code /api/} are reads when {@code GET}, {@code HEAD} or {@code OPTIONS},
+ * and writes otherwise; other single-segment paths, bar the error and actuator paths, are
+ * redirects. Anything else isn't limited. Clients are told apart by remote address, or by
+ * an API key header when one is configured and carries a known key. Unknown keys count
+ * against their address, so a client can't get fresh buckets by sending a new key each time.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String API_PREFIX = "/api/";
+
+    private static final String ALREADY_FILTERED = RateLimitFilter.class.getName() + ".FILTERED";
+
+    private final RateLimiter limiter;
+    private final byte[] tooManyRequestsJson;
+    private final String apiKeyHeader;
+    private final Set<String> apiKeys;
+    private final String[] reservedPaths;
+
+    /**
+     * @param limiter         the per-client buckets
+     * @param errorController the source of the 429 body
+     * @param apiKeyHeader    the header identifying a client, or null to use the remote address
+     * @param apiKeys         the keys that header is trusted with
+     * @param reservedPaths   single-segment paths that aren't aliases, such as {@code error}
+     */
+    public RateLimitFilter(RateLimiter limiter,
+                           ApiErrorController errorController,
+                           String apiKeyHeader,
+                           Set<String> apiKeys,
+                           Set<String> reservedPaths) {
+        this.limiter = limiter;
+        this.tooManyRequestsJson = errorController.tooManyRequestsJson();
+        this.apiKeyHeader = apiKeyHeader;
+        this.apiKeys = apiKeys;
+        this.reservedPaths = reservedPaths.toArray(String[]::new);
+    }
+
+    // Constant, where the default concatenates the name on every request
+    @Override
+    protected String getAlreadyFilteredAttributeName() {
+        return ALREADY_FILTERED;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RateLimiter.Budget budget = budget(request);
+        long wait = budget == null ? 0 : limiter.tryAcquire(client(request), budget);
+        if (wait == 0) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        // Whole seconds, rounded up, so a client retrying on time finds a token
+        long retryAfter = Math.max(1, (wait + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+        // Always the error controller's JSON, which would otherwise turn into a 406 for clients not accepting it
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        if (!"HEAD".equals(request.getMethod())) {
+            response.getOutputStream().write(tooManyRequestsJson);
+        }
+    }
+
+    // The budget a request counts against, or null when it isn't limited
+    private RateLimiter.Budget budget(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        int start = request.getContextPath().length();
+        if (uri.startsWith(API_PREFIX, start)) {
+            String method = request.getMethod();
+            return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method)
+                    ? RateLimiter.Budget.READ
+                    : RateLimiter.Budget.WRITE;
+        }
+        if (uri.length() <= start + 1 || uri.indexOf('/', start + 1) >= 0 || isReserved(uri, start + 1)) {
+            return null;
+        }
+        return RateLimiter.Budget.REDIRECT;
+    }
+
+    // Compared in place, so checking a redirect allocates nothing
+    private boolean isReserved(String uri, int start) {
+        for (String reserved : reservedPaths) {
+            if (uri.length() - start == reserved.length() && uri.startsWith(reserved, start)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String client(HttpServletRequest request) {
+        if (apiKeyHeader != null) {
+            String key = request.getHeader(apiKeyHeader);
+            if (key != null && apiKeys.contains(key)) {
+                // Prefixed, so a key can't share the buckets of an address
+                return "key:" + key;
+            }
+        }
+        return request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,157 @@
+package com.minilinkr.api.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-client token buckets, one for each {@link Budget}.
+ *
+ * A bucket refills at {@code rate} tokens a second up to {@code burst}. It is kept as the
+ * time at which it would be full again (the "theoretical arrival time" of GCRA), so taking a
+ * token is a map lookup, one read and one CAS on a long, with no lock and no allocation once
+ * the client is known.
+ *
+ * A client whose buckets are all full again is the same as one never seen, so {@link #sweep()}
+ * drops those, and idle clients cost nothing after a sweep. At most {@code maxClients} are
+ * tracked; past that, new clients share one set of overflow buckets until a sweep makes room,
+ * so a flood of new addresses is limited as a whole rather than let through.
+ */
+public class RateLimiter implements MeterBinder {
+
+    public enum Budget {
+        READ("reads"),
+        WRITE("writes"),
+        REDIRECT("redirects");
+
+        private final String label;
+
+        Budget(String label) {
+            this.label = label;
+        }
+
+        public String label() {
+            return label;
+        }
+    }
+
+    private static final Budget[] BUDGETS = Budget.values();
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    // Nanoseconds per token, 0 for an unlimited budget, and how far ahead the full time may run
+    private final long[] intervals = new long[BUDGETS.length];
+    private final long[] tolerances = new long[BUDGETS.length];
+    private final LongAdder[] rejected = new LongAdder[BUDGETS.length];
+
+    private final Map<String, AtomicLongArray> clients = new ConcurrentHashMap<>();
+    private final AtomicLongArray overflow = new AtomicLongArray(BUDGETS.length);
+    private final long maxClients;
+
+    // Keeps the clock positive, so a new bucket (0) is always full
+    private final long origin = System.nanoTime() - 1;
+
+    /**
+     * @param rates      tokens added a second, per budget in {@link Budget} order; 0 for no limit
+     * @param bursts     bucket sizes, per budget in {@link Budget} order
+     * @param maxClients the number of clients tracked at most
+     */
+    public RateLimiter(double[] rates, int[] bursts, long maxClients) {
+        for (int i = 0; i < BUDGETS.length; i++) {
+            if (rates[i] > 0) {
+                intervals[i] = Math.max(1, (long) (NANOS_PER_SECOND / rates[i]));
+                tolerances[i] = intervals[i] * Math.max(1, bursts[i]);
+            }
+            rejected[i] = new LongAdder();
+        }
+        this.maxClients = maxClients;
+    }
+
+    /**
+     * Takes a token from a client's bucket.
+     *
+     * @param client the client key
+     * @param budget the budget the request counts against
+     * @return 0 if the request may go ahead, otherwise how long until a token is available, in nanoseconds
+     */
+    public long tryAcquire(String client, Budget budget) {
+        int i = budget.ordinal();
+        long interval = intervals[i];
+        if (interval == 0) {
+            return 0;
+        }
+        AtomicLongArray buckets = clients.get(client);
+        if (buckets == null) {
+            buckets = clients.size() < maxClients
+                    ? clients.computeIfAbsent(client, key -> new AtomicLongArray(BUDGETS.length))
+                    : overflow;
+        }
+        long tolerance = tolerances[i];
+        long now = System.nanoTime() - origin;
+        while (true) {
+            long full = buckets.get(i);
+            long next = Math.max(full, now) + interval;
+            long wait = next - now - tolerance;
+            if (wait > 0) {
+                rejected[i].increment();
+                return wait;
+            }
+            if (buckets.compareAndSet(i, full, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Drops the clients whose buckets are all full. A token taken by one of them while it is
+     * being dropped is forgotten, which at worst lets one more request through.
+     */
+    @Scheduled(fixedDelayString = "${minilinkr.rate-limit.sweep-interval:10s}")
+    public void sweep() {
+        long now = System.nanoTime() - origin;
+        for (Iterator<AtomicLongArray> it = clients.values().iterator(); it.hasNext(); ) {
+            if (isFull(it.next(), now)) {
+                it.remove();
+            }
+        }
+    }
+
+    public long rejected(Budget budget) {
+        return rejected[budget.ordinal()].sum();
+    }
+
+    public long clients() {
+        return clients.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Budget budget : BUDGETS) {
+            FunctionCounter.builder("minilinkr.rate_limit.rejected", rejected[budget.ordinal()], LongAdder::sum)
+                    .description("Requests refused with a 429 by the per-client rate limiter")
+                    .tag("budget", budget.label())
+                    .register(registry);
+        }
+        Gauge.builder("minilinkr.rate_limit.clients", this, RateLimiter::clients)
+                .description("Clients tracked by the rate limiter")
+                .register(registry);
+    }
+
+    private static boolean isFull(AtomicLongArray buckets, long now) {
+        for (int i = 0; i < BUDGETS.length; i++) {
+            if (buckets.get(i) > now) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
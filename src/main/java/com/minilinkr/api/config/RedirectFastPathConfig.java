@@ -0,0 +1,52 @@
+package com.minilinkr.api.config;
+
+import com.minilinkr.api.controller.v1.ApiErrorController;
+import com.minilinkr.api.controller.v1.RedirectController;
+import com.minilinkr.api.controller.v1.RedirectFilter;
+import com.minilinkr.api.service.UrlShorteningService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Settings that only apply when the redirect fast path is enabled
+ * ({@code minilinkr.redirect.fast-path=true}).
+ *
+ * Alias redirects and their 404s are then answered by a {@link RedirectFilter} ahead of the
+ * {@code DispatcherServlet}, with the same responses as the redirect and error controllers.
+ */
+@Configuration
+@ConditionalOnProperty(name = "minilinkr.redirect.fast-path", havingValue = "true")
+public class RedirectFastPathConfig {
+
+    @Bean
+    public FilterRegistrationBean<RedirectFilter> redirectFilter(
+            UrlShorteningService service,
+            RedirectController redirectController,
+            ApiErrorController errorController,
+            @Value("${server.error.path:${error.path:/error}}") String errorPath,
+            @Value("${management.endpoints.web.base-path:/actuator}") String actuatorPath) {
+        // Single-segment paths of other handlers that would otherwise look like aliases
+        Set<String> reservedPaths = new HashSet<>();
+        reservedPaths.add(firstSegment(errorPath));
+        reservedPaths.add(firstSegment(actuatorPath));
+
+        FilterRegistrationBean<RedirectFilter> registration = new FilterRegistrationBean<>(
+                new RedirectFilter(service, redirectController, errorController, Set.copyOf(reservedPaths)));
+        // Last, so the other filters, such as read-your-writes pinning, still apply
+        registration.setOrder(Ordered.LOWEST_PRECEDENCE);
+        return registration;
+    }
+
+    private static String firstSegment(String path) {
+        String trimmed = path.startsWith("/") ? path.substring(1) : path;
+        int slash = trimmed.indexOf('/');
+        return slash < 0 ? trimmed : trimmed.substring(0, slash);
+    }
+}
@@ -0,0 +1,123 @@
+package com.minilinkr.api.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * DataSource that sends read-only transactions to replicas and everything else to the primary.
+ *
+ * The target is picked when a connection is first needed, so this must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}; by then the
+ * transaction's read-only flag is known. Replicas are picked round-robin, or by fewest
+ * active connections. Work that must see the latest writes can be pinned to the primary
+ * with {@link #onPrimary} or {@link #runOnPrimary}.
+ */
+public final class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    public enum Selection {
+        ROUND_ROBIN,
+        LEAST_LOADED
+    }
+
+    private static final String PRIMARY = "primary";
+
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    private final List<HikariDataSource> replicas;
+    private final Selection selection;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<HikariDataSource> replicas, Selection selection) {
+        this.replicas = replicas;
+        this.selection = selection;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(i, replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    /**
+     * Runs a task with every database access on the primary, read-only or not.
+     *
+     * @param task the task to run
+     * @return the result of the task
+     */
+    public static <T> T onPrimary(Supplier<T> task) {
+        boolean pinned = pin();
+        try {
+            return task.get();
+        } finally {
+            if (pinned) {
+                unpin();
+            }
+        }
+    }
+
+    /**
+     * Runs a task with every database access on the primary, read-only or not.
+     *
+     * @param task the task to run
+     */
+    public static void runOnPrimary(Runnable task) {
+        onPrimary(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    // Returns false if the thread was already pinned, in which case the caller must not unpin it
+    static boolean pin() {
+        if (Boolean.TRUE.equals(PINNED.get())) {
+            return false;
+        }
+        PINNED.set(Boolean.TRUE);
+        return true;
+    }
+
+    static void unpin() {
+        PINNED.remove();
+    }
+
+    @Override
+    public void destroy() {
+        replicas.forEach(HikariDataSource::close);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (replicas.isEmpty()
+                || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || Boolean.TRUE.equals(PINNED.get())) {
+            return PRIMARY;
+        }
+        return selection == Selection.LEAST_LOADED ? leastLoaded() : Math.floorMod(next.getAndIncrement(), replicas.size());
+    }
+
+    private int leastLoaded() {
+        int best = 0;
+        int fewest = Integer.MAX_VALUE;
+        for (int i = 0; i < replicas.size(); i++) {
+            HikariPoolMXBean pool = replicas.get(i).getHikariPoolMXBean();
+            int active = pool == null ? 0 : pool.getActiveConnections();
+            if (active < fewest) {
+                best = i;
+                fewest = active;
+            }
+        }
+        return best;
+    }
+}
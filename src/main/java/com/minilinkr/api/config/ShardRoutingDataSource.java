@@ -0,0 +1,84 @@
+package com.minilinkr.api.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * DataSource that sends each connection to the shard bound to the current thread.
+ *
+ * Shard 0 is the application's own database, which also holds everything that isn't
+ * sharded (click stats and the ID sequence for generated aliases) and is used when no
+ * shard is bound. Like {@link ReplicaRoutingDataSource}, it must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, and the shard
+ * must be bound with {@link #onShard} before a transaction starts, since the transaction
+ * keeps the connection it was given.
+ */
+public final class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final ThreadLocal<Integer> SHARD = new ThreadLocal<>();
+
+    private final List<HikariDataSource> shards;
+
+    /**
+     * @param home   shard 0
+     * @param shards shards 1 to N
+     */
+    public ShardRoutingDataSource(DataSource home, List<HikariDataSource> shards) {
+        this.shards = shards;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(0, home);
+        for (int i = 0; i < shards.size(); i++) {
+            targets.put(i + 1, shards.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(home);
+    }
+
+    /**
+     * Runs a task with every database access on one shard.
+     *
+     * @param shard the shard number
+     * @param task  the task to run
+     * @return the result of the task
+     */
+    public static <T> T onShard(int shard, Supplier<T> task) {
+        Integer previous = SHARD.get();
+        SHARD.set(shard);
+        try {
+            return task.get();
+        } finally {
+            if (previous == null) {
+                SHARD.remove();
+            } else {
+                SHARD.set(previous);
+            }
+        }
+    }
+
+    /**
+     * @return the shard bound to the current thread, 0 if none is
+     */
+    public static int currentShard() {
+        Integer shard = SHARD.get();
+        return shard == null ? 0 : shard;
+    }
+
+    /**
+     * Closes the pools of shards 1 to N.
+     */
+    public void destroy() {
+        shards.forEach(HikariDataSource::close);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return currentShard();
+    }
+}
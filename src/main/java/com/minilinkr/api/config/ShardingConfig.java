@@ -0,0 +1,144 @@
+package com.minilinkr.api.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.DestructionAwareBeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Settings that only apply when {@code url_mappings} is spread over several databases
+ * ({@code minilinkr.shards.urls}).
+ *
+ * The configured database is shard 0 and the listed ones are shards 1 to N, sharing its
+ * credentials and pool size. The application DataSource is wrapped in a
+ * {@link ShardRoutingDataSource}, and Hibernate applies the same schema management
+ * ({@code spring.jpa.hibernate.ddl-auto}) to every shard as to shard 0.
+ */
+@Configuration
+@ConditionalOnExpression("!'${minilinkr.shards.urls:}'.isBlank()")
+public class ShardingConfig {
+
+    @Bean
+    public static BeanPostProcessor shardRoutingPostProcessor(
+            @Value("${minilinkr.shards.urls}") List<String> shardUrls,
+            @Value("${spring.datasource.username:}") String username,
+            @Value("${spring.datasource.password:}") String password,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+            @Value("${spring.datasource.hikari.connection-timeout:30000}") long connectionTimeout,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        return new ShardRoutingPostProcessor(shardUrls, username, password, poolSize, connectionTimeout, meterRegistry);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer shardSchemaCustomizer(@Value("${minilinkr.shards.urls}") List<String> shardUrls) {
+        Integrator integrator = new ShardSchemaIntegrator(shardUrls.size());
+        return properties -> properties.put("hibernate.integrator_provider", (IntegratorProvider) () -> List.of(integrator));
+    }
+
+    // Ordered, so it runs before the BoundedDataSource wrapping of virtual-thread mode, which then bounds all shards together
+    private static final class ShardRoutingPostProcessor implements DestructionAwareBeanPostProcessor, Ordered {
+
+        private final List<String> shardUrls;
+        private final String username;
+        private final String password;
+        private final int poolSize;
+        private final long connectionTimeout;
+        private final ObjectProvider<MeterRegistry> meterRegistry;
+
+        private ShardRoutingDataSource routing;
+
+        ShardRoutingPostProcessor(List<String> shardUrls, String username, String password,
+                                  int poolSize, long connectionTimeout, ObjectProvider<MeterRegistry> meterRegistry) {
+            this.shardUrls = shardUrls;
+            this.username = username;
+            this.password = password;
+            this.poolSize = poolSize;
+            this.connectionTimeout = connectionTimeout;
+            this.meterRegistry = meterRegistry;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource home) || !"dataSource".equals(beanName)) {
+                return bean;
+            }
+            List<HikariDataSource> shards = new ArrayList<>();
+            for (String url : shardUrls) {
+                HikariDataSource shard = new HikariDataSource();
+                shard.setPoolName("shard-" + (shards.size() + 1));
+                shard.setJdbcUrl(url.trim());
+                shard.setUsername(username);
+                shard.setPassword(password);
+                shard.setMaximumPoolSize(poolSize);
+                shard.setConnectionTimeout(connectionTimeout);
+                meterRegistry.ifAvailable(registry -> shard.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+                shards.add(shard);
+            }
+            routing = new ShardRoutingDataSource(home, shards);
+            routing.afterPropertiesSet();
+            return new LazyConnectionDataSourceProxy(routing);
+        }
+
+        // The routing DataSource isn't a bean itself, so the shard pools are closed along with the DataSource
+        @Override
+        public void postProcessBeforeDestruction(Object bean, String beanName) {
+            if (routing != null && "dataSource".equals(beanName)) {
+                routing.destroy();
+            }
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+    }
+
+    // Runs Hibernate's schema management once more per extra shard, with the shard bound. Table
+    // lookups are filtered by the home database's catalog, so on file-based H2, where the catalog
+    // is the database name, a restart logs harmless "already exists" warnings for each shard
+    private static final class ShardSchemaIntegrator implements Integrator {
+
+        private final int shards;
+
+        ShardSchemaIntegrator(int shards) {
+            this.shards = shards;
+        }
+
+        @Override
+        public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+            Map<String, Object> settings = new HashMap<>(sessionFactory.getProperties());
+            for (int shard = 1; shard <= shards; shard++) {
+                ShardRoutingDataSource.onShard(shard, () -> {
+                    SchemaManagementToolCoordinator.process(metadata, sessionFactory.getServiceRegistry(), settings, action -> { });
+                    return null;
+                });
+            }
+        }
+
+        @Override
+        public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.minilinkr.api.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Settings that only apply when request handling runs on virtual threads
+ * ({@code spring.threads.virtual.enabled=true}).
+ *
+ * Spring Boot then serves every request, including those of the redirect and URL
+ * controllers, on a new virtual thread instead of Tomcat's fixed worker pool.
+ * Since nothing bounds the number of in-flight requests any more, the DataSource
+ * is wrapped in a {@link BoundedDataSource}.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    @Bean
+    public static BeanPostProcessor boundedDataSourcePostProcessor(
+            @Value("${minilinkr.datasource.max-concurrency:${spring.datasource.hikari.maximum-pool-size:10}}") int maxConcurrency,
+            @Value("${minilinkr.datasource.acquire-timeout:${spring.datasource.hikari.connection-timeout:30000}}") long timeoutMillis) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                // Only the DataSource the application uses, not the pools it may route between
+                if (bean instanceof DataSource dataSource && "dataSource".equals(beanName)
+                        && !(bean instanceof BoundedDataSource)) {
+                    return new BoundedDataSource(dataSource, maxConcurrency, timeoutMillis);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,143 @@
+package com.minilinkr.api.controller.v1;
+
+import com.minilinkr.api.model.AliasAvailability;
+import com.minilinkr.api.model.UrlMapping;
+import com.minilinkr.api.service.AliasIndex;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Controller answering alias availability from the in-memory alias index.
+ */
+@CrossOrigin
+@RestController
+@RequestMapping("/api/v1/aliases")
+@Tag(name = "Aliases", description = "Alias availability")
+public class AliasController {
+
+    private static final Pattern ALIAS_PATTERN = Pattern.compile(UrlMapping.ALIAS_REGEX);
+
+    private static final int MAX_SUGGESTIONS = 20;
+
+    private static final int DEFAULT_LIMIT = 100;
+
+    private static final int MAX_LIMIT = 1000;
+
+    private final AliasIndex aliasIndex;
+
+    public AliasController(AliasIndex aliasIndex) {
+        this.aliasIndex = aliasIndex;
+    }
+
+    /**
+     * Checks whether an alias can be used for a new link.
+     *
+     * @param alias The custom alias to check.
+     * @param suggestions The number of available aliases close to it to return.
+     * @return The availability of the alias and the suggestions.
+     */
+    @Operation(
+            summary = "Check alias availability",
+            description = "Whether a custom alias is free, and available aliases close to it. Answered from memory, so a link created on another instance in the last second may not be reflected yet",
+            tags = { "find" }
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Availability checked",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = AliasAvailability.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Alias doesn't match the alias pattern, or too many suggestions requested"
+            ),
+            @ApiResponse(
+                    responseCode = "503",
+                    description = "The alias index is still loading"
+            )
+    })
+    @GetMapping("/availability")
+    public ResponseEntity<AliasAvailability> checkAvailability(
+            @Parameter(description = "The custom alias to check", example = "summer-sale")
+            @RequestParam String alias,
+            @Parameter(description = "Number of available aliases to suggest, 0 to " + MAX_SUGGESTIONS)
+            @RequestParam(defaultValue = "5") int suggestions) {
+        if (!ALIAS_PATTERN.matcher(alias).matches()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Alias must be 3–30 characters, letters/numbers/_/− only");
+        }
+        if (suggestions < 0 || suggestions > MAX_SUGGESTIONS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "suggestions must be between 0 and " + MAX_SUGGESTIONS);
+        }
+        try {
+            return ResponseEntity.ok(aliasIndex.checkAvailability(alias, suggestions));
+        } catch (IllegalStateException ex) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+        }
+    }
+
+    /**
+     * Lists the aliases in use that start with a prefix.
+     *
+     * @param prefix The prefix.
+     * @param limit The maximum number of aliases to return.
+     * @return The custom aliases and reserved words starting with the prefix.
+     */
+    @Operation(
+            summary = "List taken aliases by prefix",
+            description = "Custom aliases and reserved words in use that start with the prefix, in byte order. Generated codes aren't listed",
+            tags = { "find" }
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Aliases listed",
+                    content = @Content(
+                            mediaType = "application/json",
+                            array = @ArraySchema(schema = @Schema(implementation = String.class))
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Limit out of range"
+            ),
+            @ApiResponse(
+                    responseCode = "503",
+                    description = "The alias index is still loading"
+            )
+    })
+    @GetMapping
+    public ResponseEntity<List<String>> findTaken(
+            @Parameter(description = "The prefix of the aliases to list", example = "summer")
+            @RequestParam(defaultValue = "") String prefix,
+            @Parameter(description = "Maximum number of aliases, 1 to " + MAX_LIMIT)
+            @RequestParam(defaultValue = "" + DEFAULT_LIMIT) int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_LIMIT);
+        }
+        try {
+            return ResponseEntity.ok(aliasIndex.findTaken(prefix, limit));
+        } catch (IllegalStateException ex) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+        }
+    }
+}
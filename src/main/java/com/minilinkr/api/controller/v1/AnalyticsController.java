@@ -0,0 +1,156 @@
+package com.minilinkr.api.controller.v1;
+
+import com.minilinkr.api.model.AliasClicks;
+import com.minilinkr.api.model.ClickSeries;
+import com.minilinkr.api.service.ClickRollups;
+import com.minilinkr.api.service.UrlShorteningService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Controller answering click analytics from the per-minute rollups of the click journal.
+ */
+@CrossOrigin
+@RestController
+@RequestMapping("/api/v1/analytics")
+@Tag(name = "Analytics", description = "Clicks over time")
+public class AnalyticsController {
+
+    private static final int MAX_BUCKETS = 1440;
+
+    private static final int DEFAULT_LIMIT = 10;
+
+    private static final int MAX_LIMIT = 1000;
+
+    private static final int MAX_WINDOW_MINUTES = 7 * 24 * 60;
+
+    private final UrlShorteningService service;
+
+    private final ClickRollups clickRollups;
+
+    public AnalyticsController(UrlShorteningService service, ClickRollups clickRollups) {
+        this.service = service;
+        this.clickRollups = clickRollups;
+    }
+
+    /**
+     * Retrieves the clicks on a URL mapping over time.
+     *
+     * @param alias The custom alias used in the short URL.
+     * @param resolution The size of the buckets, minute or hour.
+     * @param from The start of the range.
+     * @param to The end of the range.
+     * @return The clicks in each bucket of the range.
+     */
+    @Operation(
+            summary = "Get the clicks of a URL mapping over time",
+            description = "Clicks per minute or per hour for a given short alias. Defaults to the last hour by minute, or the last day by hour. Clicks show up here a minute or so after the redirect",
+            tags = { "find" }
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Click series found",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ClickSeries.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Unknown resolution, or the range is empty or has more than " + MAX_BUCKETS + " buckets"
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Alias not found"
+            )
+    })
+    @GetMapping("/{alias}/clicks")
+    public ResponseEntity<ClickSeries> getClickSeries(
+            @Parameter(description = "The custom alias used in the short URL", example = "exmpl")
+            @PathVariable String alias,
+            @Parameter(description = "The size of the buckets: minute or hour")
+            @RequestParam(defaultValue = "minute") String resolution,
+            @Parameter(description = "The start of the range, as an ISO-8601 instant")
+            @RequestParam(required = false) Instant from,
+            @Parameter(description = "The end of the range, as an ISO-8601 instant; defaults to now")
+            @RequestParam(required = false) Instant to) {
+        int bucketMinutes = switch (resolution) {
+            case "minute" -> 1;
+            case "hour" -> 60;
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "resolution must be minute or hour");
+        };
+        Instant end = to != null ? to : Instant.now();
+        Instant start = from != null ? from : end.minus(bucketMinutes == 1 ? Duration.ofHours(1) : Duration.ofDays(1));
+        if (!start.isBefore(end)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must be before to");
+        }
+        if (Duration.between(start, end).toMinutes() > (long) MAX_BUCKETS * bucketMinutes) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The range can't span more than " + MAX_BUCKETS + " buckets");
+        }
+        if (service.getRedirectTarget(alias).isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Alias not found");
+        }
+        return ResponseEntity.ok(clickRollups.series(alias, start, end, bucketMinutes, resolution));
+    }
+
+    /**
+     * Lists the most clicked aliases of a recent window.
+     *
+     * @param minutes The length of the window, ending now.
+     * @param limit The maximum number of aliases to return.
+     * @return The aliases and their clicks in the window, most clicked first.
+     */
+    @Operation(
+            summary = "List the most clicked aliases",
+            description = "Aliases with the most clicks in the last minutes, an hour by default. Clicks show up here a minute or so after the redirect",
+            tags = { "find" }
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Aliases listed",
+                    content = @Content(
+                            mediaType = "application/json",
+                            array = @ArraySchema(schema = @Schema(implementation = AliasClicks.class))
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Window or limit out of range"
+            )
+    })
+    @GetMapping("/top")
+    public ResponseEntity<List<AliasClicks>> findTop(
+            @Parameter(description = "The length of the window in minutes, 1 to " + MAX_WINDOW_MINUTES)
+            @RequestParam(defaultValue = "60") int minutes,
+            @Parameter(description = "The maximum number of aliases to return, 1 to " + MAX_LIMIT)
+            @RequestParam(defaultValue = "" + DEFAULT_LIMIT) int limit) {
+        if (minutes < 1 || minutes > MAX_WINDOW_MINUTES) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "minutes must be between 1 and " + MAX_WINDOW_MINUTES);
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_LIMIT);
+        }
+        return ResponseEntity.ok(clickRollups.top(Duration.ofMinutes(minutes), limit));
+    }
+}
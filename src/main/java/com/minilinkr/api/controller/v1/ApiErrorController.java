@@ -1,5 +1,7 @@
 package com.minilinkr.api.controller.v1;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.RequestDispatcher;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.boot.web.servlet.error.ErrorController;
@@ -15,45 +17,74 @@ import java.util.Collections;
 @Controller
 public class ApiErrorController implements ErrorController {
 
+    // The bodies are constant, so they are built once rather than per error
+    private static final Map<String, Object> UNKNOWN_ERROR_BODY = errorBody("internal_server_error",
+            "An unknown error occurred.");
+    private static final Map<String, Object> NOT_FOUND_BODY = errorBody("not_found",
+            "The requested resource was not found.");
+    private static final Map<String, Object> INTERNAL_SERVER_ERROR_BODY = errorBody("internal_server_error",
+            "An internal server error occurred.");
+    private static final Map<String, Object> FORBIDDEN_BODY = errorBody("forbidden",
+            "You do not have permission to access this resource.");
+    private static final Map<String, Object> BAD_REQUEST_BODY = errorBody("bad_request",
+            "The request could not be understood or was missing required parameters.");
+    private static final Map<String, Object> CONFLICT_BODY = errorBody("conflict",
+            "The alias already exists. Please choose a different one.");
+    private static final Map<String, Object> SERVICE_UNAVAILABLE_BODY = errorBody("service_unavailable",
+            "The service is busy. Please try again later.");
+    private static final Map<String, Object> TOO_MANY_REQUESTS_BODY = errorBody("too_many_requests",
+            "Too many requests. Please slow down and retry after the time given in Retry-After.");
+    private static final Map<String, Object> UNEXPECTED_ERROR_BODY = errorBody("internal_server_error",
+            "An unexpected error occurred.");
+
+    private final byte[] notFoundJson;
+    private final byte[] tooManyRequestsJson;
+
+    public ApiErrorController(ObjectMapper objectMapper) throws JsonProcessingException {
+        // Same mapper as the JSON message converter, so the bytes match what handleError writes
+        this.notFoundJson = objectMapper.writeValueAsBytes(NOT_FOUND_BODY);
+        this.tooManyRequestsJson = objectMapper.writeValueAsBytes(TOO_MANY_REQUESTS_BODY);
+    }
+
     @RequestMapping("/error")
     public ResponseEntity<Map<String, Object>> handleError(HttpServletRequest request) {
         Object statusAttribute = request.getAttribute(RequestDispatcher.ERROR_STATUS_CODE);
 
         // If there's no status code, something unexpected happened, default to 500
         if (statusAttribute == null) {
-            return buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR,
-                    "internal_server_error",
-                    "An unknown error occurred.");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(UNKNOWN_ERROR_BODY);
         }
 
         int statusCode = Integer.parseInt(statusAttribute.toString());
         HttpStatus httpStatus = HttpStatus.valueOf(statusCode);
 
         return switch (httpStatus) {
-            case NOT_FOUND -> buildErrorResponse(HttpStatus.NOT_FOUND,
-                    "not_found",
-                    "The requested resource was not found.");
-            case INTERNAL_SERVER_ERROR -> buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR,
-                    "internal_server_error",
-                    "An internal server error occurred.");
-            case FORBIDDEN -> buildErrorResponse(HttpStatus.FORBIDDEN,
-                    "forbidden",
-                    "You do not have permission to access this resource.");
-            case BAD_REQUEST -> buildErrorResponse(HttpStatus.BAD_REQUEST,
-                    "bad_request",
-                    "The request could not be understood or was missing required parameters.");
-            case CONFLICT -> buildErrorResponse(
-                    HttpStatus.CONFLICT,
-                    "conflict",
-                    "The alias already exists. Please choose a different one.");
-            default ->
-                // For status codes you haven't explicitly handled, default to 500
-                    buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR,
-                            "internal_server_error",
-                            "An unexpected error occurred.");
+            case NOT_FOUND -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(NOT_FOUND_BODY);
+            case INTERNAL_SERVER_ERROR -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(INTERNAL_SERVER_ERROR_BODY);
+            case FORBIDDEN -> ResponseEntity.status(HttpStatus.FORBIDDEN).body(FORBIDDEN_BODY);
+            case BAD_REQUEST -> ResponseEntity.status(HttpStatus.BAD_REQUEST).body(BAD_REQUEST_BODY);
+            case CONFLICT -> ResponseEntity.status(HttpStatus.CONFLICT).body(CONFLICT_BODY);
+            case SERVICE_UNAVAILABLE -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(SERVICE_UNAVAILABLE_BODY);
+            case TOO_MANY_REQUESTS -> ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(TOO_MANY_REQUESTS_BODY);
+            // For status codes you haven't explicitly handled, default to 500
+            default -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(UNEXPECTED_ERROR_BODY);
         };
     }
 
+    /**
+     * @return the JSON body of a 404, encoded once, for responses written outside the dispatcher
+     */
+    public byte[] notFoundJson() {
+        return notFoundJson;
+    }
+
+    /**
+     * @return the JSON body of a 429, encoded once, for responses written outside the dispatcher
+     */
+    public byte[] tooManyRequestsJson() {
+        return tooManyRequestsJson;
+    }
+
     /**
      * Utility method to build the Slack-like JSON error response:
      *
@@ -68,6 +99,11 @@ public class ApiErrorController implements ErrorController {
     public static ResponseEntity<Map<String, Object>> buildErrorResponse(HttpStatus status,
                                                                    String errorCode,
                                                                    String detailedMessage) {
+        // Return a JSON response with the appropriate status code
+        return ResponseEntity.status(status).body(errorBody(errorCode, detailedMessage));
+    }
+
+    private static Map<String, Object> errorBody(String errorCode, String detailedMessage) {
         // Response body
         Map<String, Object> body = new HashMap<>();
         body.put("ok", false);
@@ -79,8 +115,6 @@ public class ApiErrorController implements ErrorController {
                 String.format("[ERROR] %s Learn more: https://docs.minilinkr.com", detailedMessage)
         ));
         body.put("response_metadata", meta);
-
-        // Return a JSON response with the appropriate status code
-        return ResponseEntity.status(status).body(body);
+        return Collections.unmodifiableMap(body);
     }
 }
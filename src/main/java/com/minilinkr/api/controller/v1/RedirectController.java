@@ -1,21 +1,34 @@
 package com.minilinkr.api.controller.v1;
 
 import com.minilinkr.api.model.UrlMapping;
+import com.minilinkr.api.service.ClickCounter;
+import com.minilinkr.api.service.ClickJournal;
 import com.minilinkr.api.service.UrlShorteningService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 
 @RestController
@@ -25,8 +38,41 @@ public class RedirectController {
 
     private final UrlShorteningService service;
 
-    public RedirectController(UrlShorteningService service) {
+    private final ClickCounter clickCounter;
+
+    private final ClickJournal clickJournal;
+
+    private final Counter redirectHits;
+
+    private final Counter redirectMisses;
+
+    private final Duration maxAge;
+
+    private final String immutableCacheControl;
+
+    private final String defaultCacheControl;
+
+    public RedirectController(UrlShorteningService service,
+                              ClickCounter clickCounter,
+                              ClickJournal clickJournal,
+                              MeterRegistry meterRegistry,
+                              @Value("${minilinkr.redirect.max-age:60s}") Duration maxAge,
+                              @Value("${minilinkr.redirect.immutable-max-age:365d}") Duration immutableMaxAge) {
         this.service = service;
+        this.clickCounter = clickCounter;
+        this.clickJournal = clickJournal;
+        this.maxAge = maxAge;
+        // Most links use one of these two, so their header values are built once
+        this.immutableCacheControl = CacheControl.maxAge(immutableMaxAge).cachePublic().immutable().getHeaderValue();
+        this.defaultCacheControl = CacheControl.maxAge(maxAge).cachePublic().getHeaderValue();
+        this.redirectHits = Counter.builder("minilinkr.redirects")
+                .description("Alias redirects by outcome")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.redirectMisses = Counter.builder("minilinkr.redirects")
+                .description("Alias redirects by outcome")
+                .tag("result", "not_found")
+                .register(meterRegistry);
     }
 
     /**
@@ -48,31 +94,103 @@ public class RedirectController {
     }
 
     /**
-     * Redirects the client to the original URL based on the provided custom alias.
+     * Redirects the client to the original URL based on the provided custom alias, with the
+     * status and caching policy of the mapping. Requests carrying a matching
+     * {@code If-None-Match} get a 304, so caches can revalidate stored redirects cheaply.
      *
-     * @param alias   the custom alias for the shortened URL
-     * @param response the HTTP response
-     * @throws IOException if an I/O error occurs
+     * @param alias       the custom alias for the shortened URL
+     * @param ifNoneMatch the entity tags the client already holds, if any
+     * @param referrer    the page the client came from, if any
+     * @param method      the request method; only GET requests count as clicks
+     * @return the redirect, or a 304 if the client's copy is still current
      */
     @Operation(
             summary = "Redirect to the original URL",
-            description = "Redirects the client to the original URL based on the provided custom alias."
+            description = "Redirects the client to the original URL based on the provided custom alias. Immutable links may redirect permanently and are cacheable for a long time; others redirect temporarily with a short max-age."
     )
-    @ApiResponse(responseCode = "302", description = "Redirection successful")
+    @ApiResponse(responseCode = "302", description = "Redirection successful (301, 307 or 308 depending on the link)")
+    @ApiResponse(responseCode = "304", description = "The cached redirect is still current")
     @ApiResponse(responseCode = "404", description = "Alias not found")
     @GetMapping("/{alias}")
     @Tag(name = "redirect")
     public ResponseEntity<Void> redirect (
             @Parameter(description = "The custom alias for the shortened URL.", required = true)
             @PathVariable String alias,
-            HttpServletResponse response) throws IOException {
+            @Parameter(hidden = true)
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @Parameter(hidden = true)
+            @RequestHeader(value = HttpHeaders.REFERER, required = false) String referrer,
+            HttpMethod method) {
 
-        Optional<UrlMapping> mappingOpt = service.getOriginalUrl(alias);
-        if (mappingOpt.isPresent()) {
-            response.sendRedirect(mappingOpt.get().getOriginalUrl());
-            return null;
+        Optional<UrlMapping> targetOpt = resolve(alias, referrer, method);
+        if (targetOpt.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
         }
 
-        throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        UrlMapping target = targetOpt.get();
+        String etag = etag(target);
+        String cacheControl = cacheControl(target);
+        if (ifNoneMatch != null && matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag)
+                    .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                    .build();
+        }
+        return ResponseEntity.status(target.redirectStatus())
+                .header(HttpHeaders.LOCATION, target.getOriginalUrl())
+                .eTag(etag)
+                .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                .build();
+    }
+
+    private Optional<UrlMapping> resolve(String alias, String referrer, HttpMethod method) {
+        Optional<UrlMapping> target = service.resolveRedirect(alias);
+        record(alias, target.isPresent(), referrer, method);
+        return target;
+    }
+
+    // Counts the outcome of a redirect, and counts and journals the click for GET requests; shared with RedirectFilter
+    void record(String alias, boolean found, String referrer, HttpMethod method) {
+        if (!found) {
+            redirectMisses.increment();
+            return;
+        }
+        redirectHits.increment();
+        if (HttpMethod.GET.equals(method)) {
+            clickCounter.record(alias);
+            clickJournal.record(alias, referrer);
+        }
+    }
+
+    // Immutable links are cached for good; others only briefly, and never past their expiry
+    String cacheControl(UrlMapping target) {
+        if (target.isImmutable()) {
+            return immutableCacheControl;
+        }
+        if (target.getExpiresAt() == null) {
+            return defaultCacheControl;
+        }
+        long seconds = Math.min(maxAge.toSeconds(),
+                Math.max(0, Duration.between(Instant.now(), target.getExpiresAt()).toSeconds()));
+        return CacheControl.maxAge(seconds, TimeUnit.SECONDS).cachePublic().getHeaderValue();
+    }
+
+    // Changes whenever the redirect a client would get changes
+    static String etag(UrlMapping target) {
+        long h = 0xcbf29ce484222325L ^ target.redirectStatus();
+        String url = target.getOriginalUrl();
+        for (int i = 0; i < url.length(); i++) {
+            h = (h ^ url.charAt(i)) * 0x100000001b3L;
+        }
+        return "\"" + Long.toHexString(h) + "\"";
+    }
+
+    static boolean matches(String ifNoneMatch, String etag) {
+        ETag current = ETag.create(etag);
+        for (ETag candidate : ETag.parse(ifNoneMatch)) {
+            if (candidate.isWildcard() || candidate.compare(current, false)) {
+                return true;
+            }
+        }
+        return false;
     }
 }
@@ -0,0 +1,135 @@
+package com.minilinkr.api.controller.v1;
+
+import com.minilinkr.api.model.UrlMapping;
+import com.minilinkr.api.service.UrlShorteningService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.filter.ServerHttpObservationFilter;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Serves {@code GET} and {@code HEAD /{alias}} without going through the
+ * {@code DispatcherServlet}: the redirect, or the 404 with its JSON body encoded once, is
+ * written straight to the response.
+ *
+ * Responses are the same as those of {@link RedirectController} and
+ * {@link ApiErrorController}, and use the same lookup, counters and caching policy. Requests
+ * it can't answer identically are passed on: paths that aren't a plain alias, the error and
+ * actuator paths, and 404s whose {@code Accept} header would need content negotiation.
+ */
+public class RedirectFilter extends OncePerRequestFilter {
+
+    private static final String PATH_PATTERN = "/{alias}";
+
+    private static final String ALREADY_FILTERED = RedirectFilter.class.getName() + ".FILTERED";
+
+    private final UrlShorteningService service;
+    private final RedirectController redirectController;
+    private final byte[] notFoundJson;
+    private final Set<String> reservedPaths;
+
+    /**
+     * @param service            the service resolving aliases
+     * @param redirectController the controller whose responses are reproduced
+     * @param errorController    the source of the 404 body
+     * @param reservedPaths      single-segment paths served by other handlers, such as {@code /error}
+     */
+    public RedirectFilter(UrlShorteningService service,
+                          RedirectController redirectController,
+                          ApiErrorController errorController,
+                          Set<String> reservedPaths) {
+        this.service = service;
+        this.redirectController = redirectController;
+        this.notFoundJson = errorController.notFoundJson();
+        this.reservedPaths = reservedPaths;
+    }
+
+    // Constant, where the default concatenates the name on every request
+    @Override
+    protected String getAlreadyFilteredAttributeName() {
+        return ALREADY_FILTERED;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String method = request.getMethod();
+        return !("GET".equals(method) || "HEAD".equals(method));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String alias = alias(request);
+        if (alias == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        Optional<UrlMapping> target = service.resolveRedirect(alias);
+        if (target.isEmpty() && !acceptsDefaultJson(request.getHeader(HttpHeaders.ACCEPT))) {
+            // The 404 body would have to be negotiated, so the dispatcher answers it
+            chain.doFilter(request, response);
+            return;
+        }
+
+        boolean head = "HEAD".equals(request.getMethod());
+        redirectController.record(alias, target.isPresent(), request.getHeader(HttpHeaders.REFERER),
+                head ? HttpMethod.HEAD : HttpMethod.GET);
+        ServerHttpObservationFilter.findObservationContext(request)
+                .ifPresent(context -> context.setPathPattern(PATH_PATTERN));
+
+        if (target.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            if (!head) {
+                response.getOutputStream().write(notFoundJson);
+                // Flushed before completion like the converter's streamed body, so the framing matches too
+                response.flushBuffer();
+            }
+            return;
+        }
+
+        UrlMapping mapping = target.get();
+        String etag = RedirectController.etag(mapping);
+        String cacheControl = redirectController.cacheControl(mapping);
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null && RedirectController.matches(ifNoneMatch, etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        } else {
+            response.setStatus(mapping.redirectStatus());
+            response.setHeader(HttpHeaders.LOCATION, mapping.getOriginalUrl());
+        }
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+    }
+
+    // The alias of a single-segment path made only of alias characters, or null
+    private String alias(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        int start = request.getContextPath().length() + 1;
+        if (uri.length() <= start || uri.charAt(start - 1) != '/') {
+            return null;
+        }
+        for (int i = start; i < uri.length(); i++) {
+            char c = uri.charAt(i);
+            if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '-' || c == '_')) {
+                return null;
+            }
+        }
+        String alias = uri.substring(start);
+        return reservedPaths.contains(alias) ? null : alias;
+    }
+
+    // True when the error controller would answer with JSON without negotiating
+    private static boolean acceptsDefaultJson(String accept) {
+        return accept == null || accept.equals("*/*") || accept.equals(MediaType.APPLICATION_JSON_VALUE);
+    }
+}
@@ -0,0 +1,204 @@
+package com.minilinkr.api.controller.v1;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.minilinkr.api.config.RateLimiter;
+import com.minilinkr.api.repository.BitcaskUrlMappingRepository;
+import com.minilinkr.api.repository.ShardRouter;
+import com.minilinkr.api.service.AliasCache;
+import com.minilinkr.api.service.AliasChangeFeed;
+import com.minilinkr.api.service.AliasFilter;
+import com.minilinkr.api.service.AliasIndex;
+import com.minilinkr.api.service.AliasSnapshotIndex;
+import com.minilinkr.api.service.CacheWarmer;
+import com.minilinkr.api.service.ClickJournal;
+import com.minilinkr.api.service.ClickRollups;
+import com.minilinkr.api.service.DestinationMigrator;
+import com.minilinkr.api.service.ShardMigrator;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Controller exposing runtime statistics of the lookup path.
+ */
+@RestController
+@RequestMapping("/api/v1/stats")
+@Tag(name = "Stats", description = "Runtime statistics")
+public class StatsController {
+
+    private final AliasCache cache;
+
+    private final AliasFilter aliasFilter;
+
+    private final AliasSnapshotIndex snapshotIndex;
+
+    private final AliasIndex aliasIndex;
+
+    private final AliasChangeFeed changeFeed;
+
+    private final ShardRouter shards;
+
+    private final ShardMigrator shardMigrator;
+
+    private final CacheWarmer cacheWarmer;
+
+    private final DestinationMigrator destinationMigrator;
+
+    private final ClickJournal clickJournal;
+
+    private final ClickRollups clickRollups;
+
+    private final BitcaskUrlMappingRepository bitcask;
+
+    private final RateLimiter rateLimiter;
+
+    public StatsController(AliasCache cache,
+                           AliasFilter aliasFilter,
+                           AliasSnapshotIndex snapshotIndex,
+                           AliasIndex aliasIndex,
+                           AliasChangeFeed changeFeed,
+                           ShardRouter shards,
+                           ShardMigrator shardMigrator,
+                           CacheWarmer cacheWarmer,
+                           DestinationMigrator destinationMigrator,
+                           ClickJournal clickJournal,
+                           ClickRollups clickRollups,
+                           ObjectProvider<BitcaskUrlMappingRepository> bitcask,
+                           ObjectProvider<RateLimiter> rateLimiter) {
+        this.cache = cache;
+        this.aliasFilter = aliasFilter;
+        this.snapshotIndex = snapshotIndex;
+        this.aliasIndex = aliasIndex;
+        this.changeFeed = changeFeed;
+        this.shards = shards;
+        this.shardMigrator = shardMigrator;
+        this.cacheWarmer = cacheWarmer;
+        this.destinationMigrator = destinationMigrator;
+        this.clickJournal = clickJournal;
+        this.clickRollups = clickRollups;
+        this.bitcask = bitcask.getIfAvailable();
+        this.rateLimiter = rateLimiter.getIfAvailable();
+    }
+
+    /**
+     * Retrieves the lookup path counters.
+     *
+     * @return hit, miss and eviction counts of the alias cache and its warm-up, the alias filter accuracy,
+     *         the snapshot and alias index state, the change feed position, the resharding and
+     *         destination migration progress, the click journal throughput and drops, the
+     *         requests refused by the rate limiter, and the log-structured store state when it
+     *         holds the mappings
+     */
+    @Operation(
+            summary = "Get lookup statistics",
+            description = "Hit, miss and eviction counts of the in-memory alias cache and what its startup warm-up loaded, and the negative-lookup filter accuracy, the redirect snapshot and availability index state, the change feed position, the resharding and destination migration progress of this node, the events written and dropped by the click journal, the clients tracked and requests refused by the rate limiter, and the disk use of the log-structured store in the bitcask profile"
+    )
+    @ApiResponse(responseCode = "200", description = "Statistics returned")
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getStats() {
+        CacheStats stats = cache.stats();
+
+        Map<String, Object> cacheStats = new LinkedHashMap<>();
+        cacheStats.put("size", cache.size());
+        cacheStats.put("hits", stats.hitCount());
+        cacheStats.put("misses", stats.missCount());
+        cacheStats.put("evictions", stats.evictionCount());
+        cacheStats.put("hit_rate", stats.hitRate());
+
+        Map<String, Object> warmUpStats = new LinkedHashMap<>();
+        warmUpStats.put("complete", cacheWarmer.complete());
+        warmUpStats.put("loaded", cacheWarmer.loaded());
+        warmUpStats.put("duration_ms", cacheWarmer.durationMillis());
+        warmUpStats.put("timed_out", cacheWarmer.timedOut());
+        cacheStats.put("warm_up", warmUpStats);
+
+        Map<String, Object> filterStats = new LinkedHashMap<>();
+        filterStats.put("capacity", aliasFilter.capacity());
+        filterStats.put("insertions", aliasFilter.insertions());
+        filterStats.put("rejected", aliasFilter.negatives());
+        filterStats.put("false_positives", aliasFilter.falsePositives());
+        filterStats.put("false_positive_rate", aliasFilter.observedFpp());
+        filterStats.put("expected_false_positive_rate", aliasFilter.expectedFpp());
+        filterStats.put("rebuilds", aliasFilter.rebuilds());
+
+        Map<String, Object> snapshotStats = new LinkedHashMap<>();
+        snapshotStats.put("enabled", snapshotIndex.enabled());
+        snapshotStats.put("entries", snapshotIndex.entries());
+        snapshotStats.put("size_bytes", snapshotIndex.sizeInBytes());
+        snapshotStats.put("built_at", snapshotIndex.builtAt() == 0 ? null : Instant.ofEpochMilli(snapshotIndex.builtAt()));
+        snapshotStats.put("overlay", snapshotIndex.overlaySize());
+        snapshotStats.put("rebuilds", snapshotIndex.rebuilds());
+
+        Map<String, Object> indexStats = new LinkedHashMap<>();
+        indexStats.put("enabled", aliasIndex.enabled());
+        indexStats.put("ready", aliasIndex.ready());
+        indexStats.put("entries", aliasIndex.entries());
+        indexStats.put("size_bytes", aliasIndex.sizeInBytes());
+        indexStats.put("overlay", aliasIndex.overlaySize());
+        indexStats.put("rebuilds", aliasIndex.rebuilds());
+
+        Map<String, Object> feedStats = new LinkedHashMap<>();
+        feedStats.put("node", changeFeed.nodeId());
+        feedStats.put("watermarks", changeFeed.watermarks());
+        feedStats.put("pending_gaps", changeFeed.pendingGaps());
+        feedStats.put("applied", changeFeed.applied());
+        feedStats.put("missed_gaps", changeFeed.missedGaps());
+
+        Map<String, Object> shardStats = new LinkedHashMap<>();
+        shardStats.put("count", shards.shardCount());
+        shardStats.put("resharding", shards.resharding() && !shardMigrator.complete());
+        shardStats.put("moved", shardMigrator.moved());
+
+        Map<String, Object> destinationStats = new LinkedHashMap<>();
+        destinationStats.put("migration_complete", destinationMigrator.complete());
+
+        Map<String, Object> journalStats = new LinkedHashMap<>();
+        journalStats.put("enabled", clickJournal.enabled());
+        journalStats.put("capacity", clickJournal.capacity());
+        journalStats.put("pending", clickJournal.pending());
+        journalStats.put("written", clickJournal.written());
+        journalStats.put("dropped", clickJournal.dropped());
+        journalStats.put("rolled_up", clickRollups.rolledUp());
+        journalStats.put("segments_rolled_up", clickRollups.segments());
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("ok", true);
+        body.put("cache", cacheStats);
+        body.put("alias_filter", filterStats);
+        body.put("snapshot", snapshotStats);
+        body.put("alias_index", indexStats);
+        body.put("change_feed", feedStats);
+        body.put("shards", shardStats);
+        body.put("destinations", destinationStats);
+        body.put("click_journal", journalStats);
+        Map<String, Object> rateLimitStats = new LinkedHashMap<>();
+        rateLimitStats.put("enabled", rateLimiter != null);
+        if (rateLimiter != null) {
+            rateLimitStats.put("clients", rateLimiter.clients());
+            Map<String, Object> rejected = new LinkedHashMap<>();
+            for (RateLimiter.Budget budget : RateLimiter.Budget.values()) {
+                rejected.put(budget.label(), rateLimiter.rejected(budget));
+            }
+            rateLimitStats.put("rejected", rejected);
+        }
+        body.put("rate_limit", rateLimitStats);
+        if (bitcask != null) {
+            Map<String, Object> storeStats = new LinkedHashMap<>();
+            storeStats.put("segments", bitcask.segments());
+            storeStats.put("disk_bytes", bitcask.diskBytes());
+            storeStats.put("live_bytes", bitcask.liveBytes());
+            storeStats.put("compactions", bitcask.compactions());
+            body.put("bitcask", storeStats);
+        }
+        return ResponseEntity.ok(body);
+    }
+}
@@ -1,7 +1,19 @@
 package com.minilinkr.api.controller.v1;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.minilinkr.api.model.ApiSuccessResponse;
+import com.minilinkr.api.model.BatchItemResult;
+import com.minilinkr.api.model.ClickStats;
+import com.minilinkr.api.model.ImportCheckpoint;
+import com.minilinkr.api.model.ImportResult;
 import com.minilinkr.api.model.UrlMapping;
+import com.minilinkr.api.model.UrlMappingPage;
+import com.minilinkr.api.service.BulkTransferService;
+import com.minilinkr.api.service.MappingCsv;
+import com.minilinkr.api.service.ReservedAliases;
 import com.minilinkr.api.service.UrlShorteningService;
 import io.swagger.v3.oas.annotations.OpenAPIDefinition;
 import io.swagger.v3.oas.annotations.Operation;
@@ -16,14 +28,26 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
 
 /**
  * Controller for managing URL mappings.
@@ -46,50 +70,273 @@ import java.util.*;
 @Tag(name = "URL Mappings", description = "Operations on URL mappings")
 public class UrlController {
 
-    /**
-     * List of forbidden aliases that cannot be used for URL mappings.
-     */
-    private final List<String> forbiddenAliases = List.of("docs", "api", "v1", "v2", "v3", "admin", "login", "register");
+    private static final String NDJSON = "application/x-ndjson";
+
+    private static final String CSV = "text/csv";
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
+    private static final int MAX_PAGE_SIZE = 1000;
 
     /**
      * The URL shortening service used to manage URL mappings.
      */
     private final UrlShorteningService service;
 
+    /**
+     * The service streaming bulk imports and exports.
+     */
+    private final BulkTransferService bulkTransfer;
+
+    /**
+     * Maximum number of items accepted by a single batch create request.
+     */
+    private final int maxBatchSize;
+
+    /**
+     * Object mapper used to serialise streamed exports.
+     */
+    private final ObjectMapper objectMapper;
+
     /**
      * Constructor for UrlController.
      *
      * @param service The URL shortening service to be used.
+     * @param bulkTransfer The service streaming bulk imports and exports.
+     * @param maxBatchSize The maximum number of items in a batch create request.
+     * @param objectMapper The object mapper used to serialise streamed exports.
      */
-    public UrlController(UrlShorteningService service) {
+    public UrlController(UrlShorteningService service,
+                         BulkTransferService bulkTransfer,
+                         @Value("${minilinkr.batch.max-size:10000}") int maxBatchSize,
+                         ObjectMapper objectMapper) {
         this.service = service;
+        this.bulkTransfer = bulkTransfer;
+        this.maxBatchSize = maxBatchSize;
+        this.objectMapper = objectMapper;
     }
 
     /**
-     * Retrieves all URL mappings.
+     * Retrieves one page of URL mappings.
      *
-     * @return A list of all URL mappings.
+     * @param cursor The cursor returned with the previous page, omitted for the first page.
+     * @param limit The maximum number of mappings in the page.
+     * @return A page of URL mappings and the cursor of the next page.
      */
     @Operation(
-            summary = "List all URL mappings",
-            description = "Retrieve every URL mapping currently stored",
+            summary = "List URL mappings",
+            description = "Retrieve URL mappings one page at a time, in ID order (with several shards, merged by ID, which isn't creation order). Pass the returned nextCursor to get the following page",
             tags = { "find" }
     )
     @ApiResponses({
             @ApiResponse(
                     responseCode = "200",
-                    description = "A JSON array of URLMapping objects",
+                    description = "A page of URLMapping objects",
                     content = @Content(
                             mediaType = "application/json",
-                            array = @ArraySchema(
-                                    schema = @Schema(implementation = UrlMapping.class)
-                            )
+                            schema = @Schema(implementation = UrlMappingPage.class)
                     )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Malformed cursor or page size out of range"
             )
     })
     @GetMapping
-    public ResponseEntity<List<UrlMapping>> getAll() {
-        return ResponseEntity.ok(service.getAllUrlMappings());
+    public ResponseEntity<UrlMappingPage> getAll(
+            @Parameter(description = "Cursor returned with the previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Maximum number of mappings in the page, 1 to " + MAX_PAGE_SIZE)
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        try {
+            return ResponseEntity.ok(service.getAllUrlMappings(cursor, limit));
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed cursor");
+        }
+    }
+
+    /**
+     * Exports every URL mapping as newline-delimited JSON, streamed row by row.
+     *
+     * @param response the HTTP response
+     * @throws IOException if an I/O error occurs
+     */
+    @Operation(
+            summary = "Export all URL mappings",
+            description = "Stream every URL mapping as newline-delimited JSON, one object per line",
+            tags = { "find" }
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "A stream of URLMapping objects",
+            content = @Content(
+                    mediaType = NDJSON,
+                    schema = @Schema(implementation = UrlMapping.class)
+            )
+    )
+    @GetMapping(value = "/export", produces = NDJSON)
+    public void exportAll(HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding("UTF-8");
+
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            exportMappings(mapping -> {
+                try {
+                    writer.writeValue(generator, mapping);
+                    generator.writeRaw('\n');
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        }
+    }
+
+    /**
+     * Exports every URL mapping as CSV with a header row, streamed row by row.
+     *
+     * @param response the HTTP response
+     * @throws IOException if an I/O error occurs
+     */
+    @Operation(
+            summary = "Export all URL mappings as CSV",
+            description = "Stream every URL mapping as CSV, with a header row naming the columns. The output can be imported again",
+            tags = { "find" }
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "A CSV stream of URL mappings",
+            content = @Content(mediaType = CSV)
+    )
+    @GetMapping(value = "/export", params = "format=csv", produces = CSV)
+    public void exportCsv(HttpServletResponse response) throws IOException {
+        response.setContentType(CSV);
+        response.setCharacterEncoding("UTF-8");
+
+        PrintWriter out = response.getWriter();
+        out.write(MappingCsv.HEADER);
+        out.write("\r\n");
+        exportMappings(mapping -> {
+            try {
+                MappingCsv.write(out, mapping);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        out.flush();
+    }
+
+    private void exportMappings(Consumer<UrlMapping> action) {
+        try {
+            bulkTransfer.exportMappings(action);
+        } catch (RejectedExecutionException ex) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+        }
+    }
+
+    /**
+     * Imports URL mappings from a CSV or NDJSON upload, streamed and created in batches.
+     *
+     * @param id The ID of an interrupted import to resume, omitted to start a new one.
+     * @param request The HTTP request carrying the upload.
+     * @return The counts, throughput and first failed rows of the import.
+     * @throws IOException if the upload can't be read
+     */
+    @Operation(
+            summary = "Import URL mappings in bulk",
+            description = "Upload CSV with a header row (originalUrl, and optionally alias, expiresAt, ttl, redirectStatus, immutable) or NDJSON with one mapping per line. "
+                    + "Rows are validated like a create request and created in batches. If the upload is interrupted, send the same file again with the returned id to resume after the last saved batch",
+            tags = { "create" }
+    )
+    @Parameter(name = "id", description = "ID of the import to resume")
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(
+            description = "CSV or newline-delimited JSON mappings",
+            required = true,
+            content = {
+                    @Content(mediaType = CSV, examples = @ExampleObject(
+                            name = "CsvExample",
+                            value = "alias,originalUrl\nexmpl,https://example.com\n,https://example.org")),
+                    @Content(mediaType = NDJSON, examples = @ExampleObject(
+                            name = "NdjsonExample",
+                            value = "{ \"originalUrl\": \"https://example.com\", \"alias\": \"exmpl\" }\n{ \"originalUrl\": \"https://example.org\" }"))
+            }
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Upload processed",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ImportResult.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Malformed upload, such as a CSV without an originalUrl column"
+            ),
+            @ApiResponse(
+                    responseCode = "409",
+                    description = "Import already running or completed"
+            ),
+            @ApiResponse(
+                    responseCode = "503",
+                    description = "Bulk transfer budget busy; resume the import later"
+            )
+    })
+    @PostMapping(value = "/import", consumes = { CSV, NDJSON })
+    public ResponseEntity<ImportResult> importMappings(@RequestParam(required = false) String id,
+                                                       HttpServletRequest request) throws IOException {
+        MediaType contentType = MediaType.parseMediaType(request.getContentType());
+        BulkTransferService.Format format = contentType.isCompatibleWith(MediaType.parseMediaType(CSV))
+                ? BulkTransferService.Format.CSV
+                : BulkTransferService.Format.NDJSON;
+        Charset charset = contentType.getCharset() == null ? StandardCharsets.UTF_8 : contentType.getCharset();
+
+        try {
+            return ResponseEntity.ok(bulkTransfer.importMappings(id, format,
+                    new InputStreamReader(request.getInputStream(), charset)));
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+        } catch (IllegalStateException ex) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, ex.getMessage());
+        } catch (RejectedExecutionException ex) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+        }
+    }
+
+    /**
+     * Retrieves the saved progress of a bulk import.
+     *
+     * @param id The import ID.
+     * @return The checkpoint of the import.
+     */
+    @Operation(
+            summary = "Get the progress of a bulk import",
+            description = "Rows processed and created so far by an import, as of its last saved batch",
+            tags = { "find" }
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Import found",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ImportCheckpoint.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Import not found"
+            )
+    })
+    @GetMapping("/import/{id}")
+    public ResponseEntity<ImportCheckpoint> getImport(@PathVariable String id) {
+        return bulkTransfer.getCheckpoint(id)
+                .map(ResponseEntity::ok)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Import not found"));
     }
 
     /**
@@ -132,13 +379,54 @@ public class UrlController {
     }
 
     /**
-     * Creates a new URL mapping with a custom alias.
+     * Retrieves the click count of a URL mapping.
+     *
+     * @param alias The custom alias used in the short URL.
+     * @return The click statistics for the given alias.
+     */
+    @Operation(
+            summary = "Get the click count of a URL mapping",
+            description = "Number of redirects served for a given short alias, including clicks not yet persisted",
+            tags = { "find" }
+    )
+    @Parameter(
+            name = "alias",
+            description = "The custom alias used in the short URL",
+            required = true,
+            in = ParameterIn.PATH,
+            example = "exmpl"
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Click statistics found",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ClickStats.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Alias not found"
+            )
+    })
+    @GetMapping("/{alias}/clicks")
+    public ResponseEntity<ClickStats> getClicks(@PathVariable String alias) {
+        return service.getClickStats(alias)
+                .map(ResponseEntity::ok)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Alias not found"));
+    }
+
+    /**
+     * Creates a new URL mapping, with a custom alias or, when none is given, a generated one.
      *
      * @param mapping The URL mapping to be created.
+     * @param reuse Whether to return an existing link to the same URL instead of generating a new one.
+     * @return The created or reused URL mapping.
      */
     @Operation(
             summary = "Create a new URL mapping",
-            description = "Submit an original URL and a desired alias to create a short link",
+            description = "Submit an original URL and a desired alias to create a short link. Omit the alias to have a short code generated, or with reuse=true to get an existing link to the same URL back",
             tags = { "create" }
     )
     @io.swagger.v3.oas.annotations.parameters.RequestBody(
@@ -147,35 +435,119 @@ public class UrlController {
             content = @Content(
                     mediaType = "application/json",
                     schema = @Schema(implementation = UrlMapping.class),
-                    examples = @ExampleObject(
-                            name = "CreateExample",
-                            summary = "Create a short link for `https://example.com`",
-                            value = "{ \"originalUrl\": \"https://example.com\", \"alias\": \"exmpl\" }"
-                    )
+                    examples = {
+                            @ExampleObject(
+                                    name = "CreateExample",
+                                    summary = "Create a short link for `https://example.com`",
+                                    value = "{ \"originalUrl\": \"https://example.com\", \"alias\": \"exmpl\" }"
+                            ),
+                            @ExampleObject(
+                                    name = "GenerateExample",
+                                    summary = "Create a short link for `https://example.com` with a generated alias",
+                                    value = "{ \"originalUrl\": \"https://example.com\" }"
+                            )
+                    }
             )
     )
     @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "An existing link to the same URL was reused",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = UrlMapping.class)
+                    )
+            ),
             @ApiResponse(
                     responseCode = "201",
-                    description = "URL mapping successfully created"
+                    description = "URL mapping successfully created",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = UrlMapping.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Alias is reserved for generated codes"
             ),
             @ApiResponse(
                     responseCode = "409",
                     description = "Alias already in use"
             )
     })
-    @ResponseStatus(HttpStatus.CREATED)
     @PostMapping
-    public void createAlias( @Valid @RequestBody UrlMapping mapping) {
+    public ResponseEntity<UrlMapping> createAlias(
+            @Valid @RequestBody UrlMapping mapping,
+            @Parameter(description = "Without an alias, return an existing link to the same URL that doesn't expire and redirects the same way, if there is one")
+            @RequestParam(defaultValue = "false") boolean reuse) {
+        if (mapping.getAlias() == null) {
+            if (reuse) {
+                Optional<UrlMapping> existing = service.findReusable(mapping);
+                if (existing.isPresent()) {
+                    return ResponseEntity.ok(existing.get());
+                }
+            }
+            return ResponseEntity.status(HttpStatus.CREATED).body(service.createGeneratedAlias(mapping));
+        }
+
+        // Check if the alias has the shape of a generated code
+        if (service.isGeneratedAlias(mapping.getAlias())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Alias is reserved for generated codes");
+        }
+
         try {
-//            System.out.println("Alias: " + mapping.getAlias());
-//            System.out.println("Original URL: " + mapping.getOriginalUrl());
-            service.createCustomAlias(mapping);
+            return ResponseEntity.status(HttpStatus.CREATED).body(service.createCustomAlias(mapping));
         } catch (IllegalArgumentException ex) {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "Alias already exists");
         }
     }
 
+    /**
+     * Creates many URL mappings in one request.
+     *
+     * @param mappings The URL mappings to be created.
+     * @return One result per item, in payload order.
+     */
+    @Operation(
+            summary = "Create URL mappings in bulk",
+            description = "Submit a JSON array of mappings. Each item is reported as created, conflict or invalid; items without an alias get a generated one",
+            tags = { "create" }
+    )
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(
+            description = "Array of payloads containing the original URL and desired alias",
+            required = true,
+            content = @Content(
+                    mediaType = "application/json",
+                    array = @ArraySchema(schema = @Schema(implementation = UrlMapping.class)),
+                    examples = @ExampleObject(
+                            name = "BatchExample",
+                            summary = "Create two short links",
+                            value = "[ { \"originalUrl\": \"https://example.com\", \"alias\": \"exmpl\" }, { \"originalUrl\": \"https://example.org\" } ]"
+                    )
+            )
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Batch processed",
+                    content = @Content(
+                            mediaType = "application/json",
+                            array = @ArraySchema(schema = @Schema(implementation = BatchItemResult.class))
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Empty or oversized batch"
+            )
+    })
+    @PostMapping("/batch")
+    public ResponseEntity<List<BatchItemResult>> createBatch(@RequestBody List<UrlMapping> mappings) {
+        if (mappings.isEmpty() || mappings.size() > maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Batch must contain between 1 and " + maxBatchSize + " items");
+        }
+        return ResponseEntity.ok(service.createBatch(mappings));
+    }
+
     /**
      * Deletes a URL mapping by its alias.
      *
@@ -206,6 +578,10 @@ public class UrlController {
             @ApiResponse(
                     responseCode = "404",
                     description = "Alias not found"
+            ),
+            @ApiResponse(
+                    responseCode = "403",
+                    description = "Alias is reserved, or the link is immutable"
             )
     })
     @DeleteMapping("/{alias}")
@@ -213,7 +589,7 @@ public class UrlController {
 
 
         // Check if the alias is forbidden
-        if (forbiddenAliases.contains(alias)) {
+        if (isForbiddenAlias(alias)) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "You do not have permission to use or delete this alias");
         }
 
@@ -227,6 +603,19 @@ public class UrlController {
             return ResponseEntity.ok(new ApiSuccessResponse(true, "deleted", meta));
         } catch (IllegalArgumentException ex) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Alias not found");
+        } catch (IllegalStateException ex) {
+            // Immutable links may be cached as permanent redirects, so deleting them can't take effect
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, ex.getMessage());
         }
     }
+
+    /**
+     * Checks whether an alias is reserved and can't be used or deleted.
+     *
+     * @param alias The custom alias to check.
+     * @return true if the alias is forbidden.
+     */
+    boolean isForbiddenAlias(String alias) {
+        return ReservedAliases.contains(alias);
+    }
 }
@@ -0,0 +1,69 @@
+package com.minilinkr.api.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * Whether an alias can be used for a new link, with available aliases close to it.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AliasAvailability {
+
+    public enum Reason {
+        @JsonProperty("taken") TAKEN,
+        @JsonProperty("reserved") RESERVED,
+        @JsonProperty("generated") GENERATED
+    }
+
+    private String alias;
+
+    private boolean available;
+
+    @Schema(description = "Why the alias can't be used: taken by a link, a reserved word, or in the namespace of generated codes")
+    private Reason reason;
+
+    @Schema(description = "Available aliases close to the requested one")
+    private List<String> suggestions;
+
+    public AliasAvailability(String alias, boolean available, Reason reason, List<String> suggestions) {
+        this.alias = alias;
+        this.available = available;
+        this.reason = reason;
+        this.suggestions = suggestions;
+    }
+
+    public String getAlias() {
+        return alias;
+    }
+
+    public void setAlias(String alias) {
+        this.alias = alias;
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    public void setAvailable(boolean available) {
+        this.available = available;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    public void setReason(Reason reason) {
+        this.reason = reason;
+    }
+
+    public List<String> getSuggestions() {
+        return suggestions;
+    }
+
+    public void setSuggestions(List<String> suggestions) {
+        this.suggestions = suggestions;
+    }
+}
@@ -0,0 +1,61 @@
+package com.minilinkr.api.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * One entry of the change feed: an alias that was created or deleted, written in the same
+ * transaction as the change itself. IDs come from a sequence without client-side caching,
+ * so they increase with insertion order and serve as the feed's version watermark.
+ */
+@Entity
+@Table(name = "alias_changes", indexes = @Index(name = "idx_alias_changes_changed_at", columnList = "changed_at"))
+public class AliasChange {
+
+    public enum Kind {
+        CREATED,
+        DELETED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "alias_changes_seq")
+    @SequenceGenerator(name = "alias_changes_seq", sequenceName = "alias_changes_seq", allocationSize = 1)
+    private Long id;
+
+    @Column(nullable = false)
+    private String alias;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Kind kind;
+
+    // the instance that made the change, which has already applied it
+    @Column(nullable = false, length = 64)
+    private String node;
+
+    @Column(name = "changed_at", nullable = false)
+    private Instant changedAt;
+
+    public AliasChange() {}
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getAlias() {
+        return alias;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getNode() {
+        return node;
+    }
+
+    public Instant getChangedAt() {
+        return changedAt;
+    }
+}
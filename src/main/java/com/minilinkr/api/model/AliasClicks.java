@@ -0,0 +1,27 @@
+package com.minilinkr.api.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Clicks on an alias within a time window.
+ */
+public class AliasClicks {
+
+    private String alias;
+
+    @Schema(description = "Clicks on the alias within the window")
+    private long clicks;
+
+    public AliasClicks(String alias, long clicks) {
+        this.alias = alias;
+        this.clicks = clicks;
+    }
+
+    public String getAlias() {
+        return alias;
+    }
+
+    public long getClicks() {
+        return clicks;
+    }
+}
@@ -0,0 +1,68 @@
+package com.minilinkr.api.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Outcome of one item of a batch create request.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResult {
+
+    public enum Status {
+        @JsonProperty("created") CREATED,
+        @JsonProperty("conflict") CONFLICT,
+        @JsonProperty("invalid") INVALID
+    }
+
+    @Schema(description = "Position of the item in the request payload")
+    private long index;
+
+    @Schema(description = "The requested or generated alias")
+    private String alias;
+
+    private Status status;
+
+    @Schema(description = "Why the item was not created")
+    private String message;
+
+    public BatchItemResult(long index, String alias, Status status, String message) {
+        this.index = index;
+        this.alias = alias;
+        this.status = status;
+        this.message = message;
+    }
+
+    public long getIndex() {
+        return index;
+    }
+
+    public void setIndex(long index) {
+        this.index = index;
+    }
+
+    public String getAlias() {
+        return alias;
+    }
+
+    public void setAlias(String alias) {
+        this.alias = alias;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
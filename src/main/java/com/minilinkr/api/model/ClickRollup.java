@@ -0,0 +1,62 @@
+package com.minilinkr.api.model;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Clicks on an alias within one minute, rolled up from the click journal. Longer buckets are
+ * sums of these. Read and written with plain JDBC; the entity only declares the table.
+ */
+@Entity
+@IdClass(ClickRollup.Key.class)
+@Table(name = "click_rollups", indexes = @Index(name = "idx_click_rollups_bucket_minute", columnList = "bucket_minute"))
+public class ClickRollup {
+
+    @Id
+    private String alias;
+
+    // the start of the minute, in minutes since the epoch
+    @Id
+    @Column(name = "bucket_minute")
+    private long bucketMinute;
+
+    @Column(nullable = false)
+    private long clicks;
+
+    protected ClickRollup() {}
+
+    public String getAlias() {
+        return alias;
+    }
+
+    public long getBucketMinute() {
+        return bucketMinute;
+    }
+
+    public long getClicks() {
+        return clicks;
+    }
+
+    public static class Key implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private String alias;
+
+        private long bucketMinute;
+
+        public Key() {}
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && bucketMinute == key.bucketMinute && Objects.equals(alias, key.alias);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(alias, bucketMinute);
+        }
+    }
+}
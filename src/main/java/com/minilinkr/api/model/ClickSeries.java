@@ -0,0 +1,75 @@
+package com.minilinkr.api.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Clicks on an alias over a time range, in fixed-size buckets.
+ */
+public class ClickSeries {
+
+    public static class Bucket {
+
+        @Schema(description = "Start of the bucket")
+        private Instant start;
+
+        private long clicks;
+
+        public Bucket(Instant start, long clicks) {
+            this.start = start;
+            this.clicks = clicks;
+        }
+
+        public Instant getStart() {
+            return start;
+        }
+
+        public long getClicks() {
+            return clicks;
+        }
+    }
+
+    private String alias;
+
+    @Schema(description = "Size of the buckets: minute or hour")
+    private String resolution;
+
+    @Schema(description = "Start of the first bucket in the range")
+    private Instant from;
+
+    @Schema(description = "End of the range, exclusive")
+    private Instant to;
+
+    @Schema(description = "Buckets with at least one click, oldest first")
+    private List<Bucket> buckets;
+
+    public ClickSeries(String alias, String resolution, Instant from, Instant to, List<Bucket> buckets) {
+        this.alias = alias;
+        this.resolution = resolution;
+        this.from = from;
+        this.to = to;
+        this.buckets = buckets;
+    }
+
+    public String getAlias() {
+        return alias;
+    }
+
+    public String getResolution() {
+        return resolution;
+    }
+
+    public Instant getFrom() {
+        return from;
+    }
+
+    public Instant getTo() {
+        return to;
+    }
+
+    public List<Bucket> getBuckets() {
+        return buckets;
+    }
+}
@@ -0,0 +1,57 @@
+package com.minilinkr.api.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "click_stats")
+public class ClickStats {
+
+    @Id
+    @Schema(description = "The custom alias the clicks belong to")
+    private String alias;
+
+    @Schema(description = "Total number of redirects served for the alias")
+    @Column(nullable = false)
+    private long clicks;
+
+    @Schema(description = "Timestamp of the last flush that touched this row")
+    private Instant updatedAt;
+
+    public ClickStats() {}
+
+    public ClickStats(String alias, long clicks, Instant updatedAt) {
+        this.alias = alias;
+        this.clicks = clicks;
+        this.updatedAt = updatedAt;
+    }
+
+    public String getAlias() {
+        return alias;
+    }
+
+    public void setAlias(String alias) {
+        this.alias = alias;
+    }
+
+    public long getClicks() {
+        return clicks;
+    }
+
+    public void setClicks(long clicks) {
+        this.clicks = clicks;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
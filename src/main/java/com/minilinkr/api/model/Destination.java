@@ -0,0 +1,37 @@
+package com.minilinkr.api.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * An original URL stored once, however many mappings point at it. Keyed by the SHA-256 of
+ * the normalized URL, which {@code url_mappings.destination_hash} references. Read and
+ * written with plain JDBC; the entity only declares the table.
+ */
+@Entity
+@Table(name = "destinations")
+public class Destination {
+
+    public static final int HASH_LENGTH = 32;
+
+    public static final int MAX_URL_LENGTH = 8192;
+
+    @Id
+    @Column(length = HASH_LENGTH)
+    private byte[] hash;
+
+    @Column(nullable = false, length = MAX_URL_LENGTH)
+    private String url;
+
+    protected Destination() {}
+
+    public byte[] getHash() {
+        return hash;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+}
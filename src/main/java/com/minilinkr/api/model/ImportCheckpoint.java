@@ -0,0 +1,118 @@
+package com.minilinkr.api.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.Instant;
+
+/**
+ * Progress of a bulk import, saved after every batch so an interrupted import can be
+ * resumed by uploading the same file again under the same ID.
+ */
+@Entity
+@Table(name = "import_checkpoints")
+public class ImportCheckpoint {
+
+    @Id
+    @Schema(description = "The import ID, chosen by the client or generated")
+    private String id;
+
+    @Schema(description = "Rows of the upload processed so far, not counting the header")
+    @Column(nullable = false)
+    private long rows;
+
+    @Column(nullable = false)
+    private long created;
+
+    @Column(nullable = false)
+    private long conflicts;
+
+    @Column(nullable = false)
+    private long invalid;
+
+    @Schema(description = "Whether the whole upload has been processed")
+    @Column(nullable = false)
+    private boolean completed;
+
+    @Column(nullable = false)
+    private Instant startedAt;
+
+    @Schema(description = "Timestamp of the last saved batch")
+    @Column(nullable = false)
+    private Instant updatedAt;
+
+    public ImportCheckpoint() {}
+
+    public ImportCheckpoint(String id, Instant startedAt) {
+        this.id = id;
+        this.startedAt = startedAt;
+        this.updatedAt = startedAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public void setRows(long rows) {
+        this.rows = rows;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public void setCreated(long created) {
+        this.created = created;
+    }
+
+    public long getConflicts() {
+        return conflicts;
+    }
+
+    public void setConflicts(long conflicts) {
+        this.conflicts = conflicts;
+    }
+
+    public long getInvalid() {
+        return invalid;
+    }
+
+    public void setInvalid(long invalid) {
+        this.invalid = invalid;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(boolean completed) {
+        this.completed = completed;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Instant startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,119 @@
+package com.minilinkr.api.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * Outcome of one bulk import request.
+ */
+public class ImportResult {
+
+    @Schema(description = "The import ID, to resume the import if it is interrupted")
+    private String id;
+
+    @Schema(description = "Rows processed by this request")
+    private long rows;
+
+    @Schema(description = "Rows skipped because an earlier request with the same ID processed them")
+    private long skipped;
+
+    private long created;
+
+    private long conflicts;
+
+    private long invalid;
+
+    private long durationMs;
+
+    @Schema(description = "Rows processed per second by this request")
+    private double rowsPerSecond;
+
+    @Schema(description = "The first rows that were not created; index is the row's position in the upload, not counting the header")
+    private List<BatchItemResult> errors;
+
+    public ImportResult(String id, long rows, long skipped, long created, long conflicts, long invalid,
+                        long durationMs, double rowsPerSecond, List<BatchItemResult> errors) {
+        this.id = id;
+        this.rows = rows;
+        this.skipped = skipped;
+        this.created = created;
+        this.conflicts = conflicts;
+        this.invalid = invalid;
+        this.durationMs = durationMs;
+        this.rowsPerSecond = rowsPerSecond;
+        this.errors = errors;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public void setRows(long rows) {
+        this.rows = rows;
+    }
+
+    public long getSkipped() {
+        return skipped;
+    }
+
+    public void setSkipped(long skipped) {
+        this.skipped = skipped;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public void setCreated(long created) {
+        this.created = created;
+    }
+
+    public long getConflicts() {
+        return conflicts;
+    }
+
+    public void setConflicts(long conflicts) {
+        this.conflicts = conflicts;
+    }
+
+    public long getInvalid() {
+        return invalid;
+    }
+
+    public void setInvalid(long invalid) {
+        this.invalid = invalid;
+    }
+
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    public void setDurationMs(long durationMs) {
+        this.durationMs = durationMs;
+    }
+
+    public double getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public void setRowsPerSecond(double rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    public List<BatchItemResult> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<BatchItemResult> errors) {
+        this.errors = errors;
+    }
+}
@@ -0,0 +1,64 @@
+package com.minilinkr.api.model;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * A row of a bulk import that was created, written in the same transaction as its mapping
+ * and on the same shard, so a resumed import can tell which rows past its checkpoint are
+ * already in. Read and written with plain JDBC; the entity only declares the table.
+ */
+@Entity
+@IdClass(ImportRow.Key.class)
+@Table(name = "import_rows")
+public class ImportRow {
+
+    @Id
+    @Column(name = "import_id")
+    private String importId;
+
+    // the position of the row in the upload, not counting the header
+    @Id
+    @Column(name = "row_index")
+    private long rowIndex;
+
+    @Column(nullable = false)
+    private String alias;
+
+    protected ImportRow() {}
+
+    public String getImportId() {
+        return importId;
+    }
+
+    public long getRowIndex() {
+        return rowIndex;
+    }
+
+    public String getAlias() {
+        return alias;
+    }
+
+    public static class Key implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private String importId;
+
+        private long rowIndex;
+
+        public Key() {}
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && rowIndex == key.rowIndex && Objects.equals(importId, key.importId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(importId, rowIndex);
+        }
+    }
+}
@@ -1,34 +1,71 @@
 package com.minilinkr.api.model;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.minilinkr.api.repository.ShardedSequence;
 import io.swagger.v3.oas.annotations.media.Schema;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Future;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.Formula;
 import org.hibernate.validator.constraints.URL;
 
+import java.time.Instant;
 import java.time.LocalTime;
 
 @Entity
-@Table(name = "url_mappings")
+@Table(name = "url_mappings", indexes = {
+        @Index(name = "idx_url_mappings_expires_at", columnList = "expires_at"),
+        @Index(name = "idx_url_mappings_destination_hash", columnList = "destination_hash")
+})
 public class UrlMapping {
 
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    public static final int DEFAULT_REDIRECT_STATUS = 302;
+
+    // letters, numbers, dash or underscore, 3–30 chars; also checked by AliasController
+    public static final String ALIAS_REGEX = "^[A-Za-z0-9_-]{3,30}$";
+
+    // 100 years; well short of what Instant.plusSeconds can add
+    public static final long MAX_TTL_SECONDS = 3_155_760_000L;
+
+    // pooled sequence rather than IDENTITY, so Hibernate can batch inserts; unique per shard
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @ShardedSequence(name = "url_mappings_seq", allocationSize = UrlMapping.ID_ALLOCATION_SIZE)
     @Schema(description = "Auto-generated ID", accessMode = Schema.AccessMode.READ_ONLY)
     @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     private Long id;
 
+    // stored once per distinct URL in destinations, see storedOriginalUrl
     @NotBlank(message = "originalUrl must not be blank")
     @URL(message = "originalUrl must be a valid URL")
-    @Column(nullable = false)
+    @Size(max = Destination.MAX_URL_LENGTH, message = "originalUrl must be at most " + Destination.MAX_URL_LENGTH + " characters")
+    @Transient
     private String originalUrl;
 
-    @NotBlank(message = "shortUrl must not be blank")
-    // allow only letters, numbers, dash or underscore, 3–30 chars
+    // what is loaded into originalUrl: the destination, or the inline copy of a row not migrated yet
+    @Formula("coalesce(original_url, (select d.url from destinations d where d.hash = destination_hash))")
+    private String storedOriginalUrl;
+
+    // the inline copy of rows created before destinations, emptied by the DestinationMigrator
+    @Column(name = "original_url", length = Destination.MAX_URL_LENGTH)
+    private String inlineOriginalUrl;
+
+    @JsonIgnore
+    @Column(name = "destination_hash", length = Destination.HASH_LENGTH)
+    private byte[] destinationHash;
+
+    // optional on create: when omitted, a short code is generated
     @Pattern(
-            regexp = "^[A-Za-z0-9_-]{3,30}$",
+            regexp = ALIAS_REGEX,
             message = "shortUrl must be 3–30 characters, letters/numbers/_/− only"
     )
     @Column(unique = true, nullable = false)
@@ -40,8 +77,38 @@ public class UrlMapping {
     @Column(nullable = false)
     private LocalTime createdAt;
 
+    // optional: the mapping is gone after this instant
+    @Future(message = "expiresAt must be in the future")
+    @Schema(description = "When the link expires; omit for a link that never expires")
+    @Column(name = "expires_at")
+    private Instant expiresAt;
+
+    // optional on create, an alternative to expiresAt
+    @Positive(message = "ttl must be a positive number of seconds")
+    @Max(value = MAX_TTL_SECONDS, message = "ttl must be at most 100 years (3155760000 seconds)")
+    @Schema(description = "Seconds until the link expires, instead of expiresAt", accessMode = Schema.AccessMode.WRITE_ONLY)
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    @Transient
+    private Long ttl;
+
+    // optional: 301, 302, 307 or 308; null means 302
+    @Schema(description = "HTTP status of the redirect: 301 or 308 (immutable links only), 302 (default) or 307")
+    @Column(name = "redirect_status")
+    private Integer redirectStatus;
+
+    // immutable links can be cached for good, so they can't expire or be deleted
+    @Schema(description = "Whether the link never changes; required for permanent redirects")
+    @ColumnDefault("false")
+    @Column(nullable = false)
+    private boolean immutable;
+
     public UrlMapping() {}
 
+    @PostLoad
+    private void loadOriginalUrl() {
+        originalUrl = storedOriginalUrl;
+    }
+
     public Long getId() {
         return id;
     }
@@ -58,6 +125,14 @@ public class UrlMapping {
         this.originalUrl = originalUrl;
     }
 
+    public byte[] getDestinationHash() {
+        return destinationHash;
+    }
+
+    public void setDestinationHash(byte[] destinationHash) {
+        this.destinationHash = destinationHash;
+    }
+
     public String getAlias() {
         return alias;
     }
@@ -73,4 +148,93 @@ public class UrlMapping {
     public void setCreatedAt(LocalTime createdAt) {
         this.createdAt = createdAt;
     }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public Long getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(Long ttl) {
+        this.ttl = ttl;
+    }
+
+    public Integer getRedirectStatus() {
+        return redirectStatus;
+    }
+
+    public void setRedirectStatus(Integer redirectStatus) {
+        this.redirectStatus = redirectStatus;
+    }
+
+    public boolean isImmutable() {
+        return immutable;
+    }
+
+    public void setImmutable(boolean immutable) {
+        this.immutable = immutable;
+    }
+
+    /**
+     * @return the HTTP status to redirect with
+     */
+    public int redirectStatus() {
+        return redirectStatus == null ? DEFAULT_REDIRECT_STATUS : redirectStatus;
+    }
+
+    /**
+     * @return true if the redirect is permanent (301 or 308)
+     */
+    @JsonIgnore
+    public boolean isPermanentRedirect() {
+        int status = redirectStatus();
+        return status == 301 || status == 308;
+    }
+
+    @AssertTrue(message = "redirectStatus must be 301, 302, 307 or 308")
+    @JsonIgnore
+    public boolean isRedirectStatusSupported() {
+        return redirectStatus == null || redirectStatus == 301 || redirectStatus == 302
+                || redirectStatus == 307 || redirectStatus == 308;
+    }
+
+    @AssertTrue(message = "Permanent redirects (301, 308) are only allowed for immutable links")
+    @JsonIgnore
+    public boolean isPermanentOnlyIfImmutable() {
+        return immutable || !isPermanentRedirect();
+    }
+
+    @AssertTrue(message = "Immutable links can't expire")
+    @JsonIgnore
+    public boolean isImmutableWithoutExpiry() {
+        return !immutable || (expiresAt == null && ttl == null);
+    }
+
+    @AssertTrue(message = "Give either expiresAt or ttl, not both")
+    @JsonIgnore
+    public boolean isExpiryUnambiguous() {
+        return expiresAt == null || ttl == null;
+    }
+
+    /**
+     * Turns a requested ttl into an absolute expiry.
+     *
+     * @param now the creation time the ttl counts from
+     */
+    public void resolveExpiry(Instant now) {
+        if (ttl != null) {
+            expiresAt = now.plusSeconds(ttl);
+            ttl = null;
+        }
+    }
+
+    public boolean isExpiredAt(Instant now) {
+        return expiresAt != null && !expiresAt.isAfter(now);
+    }
 }
@@ -0,0 +1,37 @@
+package com.minilinkr.api.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * One page of URL mappings, with the cursor to fetch the next one.
+ */
+public class UrlMappingPage {
+
+    private List<UrlMapping> items;
+
+    @Schema(description = "Opaque cursor for the next page, or null on the last page")
+    private String nextCursor;
+
+    public UrlMappingPage(List<UrlMapping> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<UrlMapping> getItems() {
+        return items;
+    }
+
+    public void setItems(List<UrlMapping> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,46 @@
+package com.minilinkr.api.repository;
+
+import com.minilinkr.api.model.AliasChange;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface AliasChangeRepository extends JpaRepository<AliasChange, Long> {
+
+    /**
+     * Finds the changes recorded after a given watermark.
+     *
+     * @param id    the highest change ID already seen
+     * @param limit the maximum number of changes to return
+     * @return the newer changes, in ID order
+     */
+    List<AliasChange> findByIdGreaterThanOrderByIdAsc(long id, Limit limit);
+
+    /**
+     * Finds changes by ID, used to pick up changes that committed after later ones.
+     *
+     * @param ids the change IDs
+     * @return the changes that exist by now
+     */
+    List<AliasChange> findByIdIn(Collection<Long> ids);
+
+    /**
+     * @return the highest change ID, or null if the feed is empty
+     */
+    @Query("select max(c.id) from AliasChange c")
+    Long findMaxId();
+
+    /**
+     * Finds the first change recorded at or after a given time.
+     *
+     * @param since the earliest change time of interest
+     * @return the lowest matching change ID, or null if there is none
+     */
+    @Query("select min(c.id) from AliasChange c where c.changedAt >= :since")
+    Long findMinIdSince(@Param("since") Instant since);
+}
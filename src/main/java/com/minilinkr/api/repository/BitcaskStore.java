@@ -0,0 +1,799 @@
+package com.minilinkr.api.repository;
+
+import com.minilinkr.api.model.UrlMapping;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Bitcask-style store of url mappings: an append-only log of records on local disk, and an
+ * in-memory hash index from each alias to where its latest record is.
+ *
+ * The log is split into segment files. Writes append to the active segment, which is rolled
+ * over at {@code segmentSize}; a record is {@code crc32c | seq | alias length | value length |
+ * alias | value}, with a value length of -1 for a deletion. A lookup is one positioned read of
+ * the whole record. Writers append under a lock and then wait for an fsync covering their
+ * record; one fsync covers everything appended while the previous one ran, so concurrent
+ * writers share it.
+ *
+ * On open, the index is loaded from each segment's hint file, or by scanning the segment if it
+ * has none. The record with the highest sequence number wins, so segment order doesn't matter,
+ * and a torn record at the end of a segment is truncated away. Compaction copies the live
+ * records of every inactive segment to new segments with hint files, swaps each entry over in
+ * the index and deletes the old segments; reads carry on meanwhile.
+ */
+final class BitcaskStore implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(BitcaskStore.class);
+
+    // crc32c 4, seq 8, alias length 2, value length 4
+    private static final int HEADER_SIZE = 18;
+
+    // id 8, created at 8, expires at 8, redirect status 2, immutable 1, then the original URL
+    private static final int VALUE_FIXED_SIZE = 27;
+
+    private static final int TOMBSTONE = -1;
+
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    private static final String DATA_SUFFIX = ".data";
+
+    private static final String HINT_SUFFIX = ".hint";
+
+    private static final int READ_ATTEMPTS = 3;
+
+    private static final class Segment {
+        final long id;
+        final Path path;
+        final AtomicLong liveBytes = new AtomicLong();
+        volatile FileChannel channel;
+        volatile long size;
+        volatile long maxSeq;
+        volatile boolean retired;
+
+        Segment(long id, Path path, FileChannel channel, long size) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+            this.size = size;
+        }
+
+        // A channel is closed for every thread when one reading it is interrupted, so reopen it
+        synchronized FileChannel reopen(FileChannel closed) throws IOException {
+            if (retired || Thread.currentThread().isInterrupted()) {
+                throw new ClosedChannelException();
+            }
+            if (channel == closed) {
+                channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            }
+            return channel;
+        }
+
+        synchronized void retire() throws IOException {
+            retired = true;
+            channel.close();
+        }
+    }
+
+    // Where the latest record of an alias is; id is TOMBSTONE for a deletion while recovering
+    private record Entry(Segment segment, long offset, int length, long seq, long id, long expiresAt) {
+    }
+
+    private record Expiry(long at, long id) implements Comparable<Expiry> {
+        @Override
+        public int compareTo(Expiry other) {
+            int byTime = Long.compare(at, other.at);
+            return byTime != 0 ? byTime : Long.compare(id, other.id);
+        }
+    }
+
+    private final Path dir;
+    private final long segmentSize;
+    private final boolean fsync;
+
+    private final ConcurrentHashMap<String, Entry> keys = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, String> ids = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListSet<Expiry> expiries = new ConcurrentSkipListSet<>();
+    private final CopyOnWriteArrayList<Segment> segments = new CopyOnWriteArrayList<>();
+
+    private final Object writeLock = new Object();
+    private final Object syncLock = new Object();
+    private final Object compactLock = new Object();
+
+    // Guarded by writeLock
+    private Segment active;
+    private long nextSegmentId;
+    private long nextSeq;
+    private long nextId;
+
+    private volatile long appended;
+    private final AtomicLong durable = new AtomicLong();
+    private final AtomicLong compactions = new AtomicLong();
+
+    private BitcaskStore(Path dir, long segmentSize, boolean fsync) {
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        this.fsync = fsync;
+    }
+
+    /**
+     * Opens the store in a directory, creating it if needed, and loads the index.
+     *
+     * @param dir         the directory of the segment files
+     * @param segmentSize the size in bytes at which the active segment is rolled over
+     * @param fsync       whether writes wait for their records to reach the disk
+     * @return the open store
+     * @throws UncheckedIOException if the directory can't be read
+     */
+    static BitcaskStore open(Path dir, long segmentSize, boolean fsync) {
+        BitcaskStore store = new BitcaskStore(dir, segmentSize, fsync);
+        try {
+            Files.createDirectories(dir);
+            store.recover();
+            synchronized (store.writeLock) {
+                store.roll();
+            }
+        } catch (IOException ex) {
+            store.close();
+            throw new UncheckedIOException("Can't open the store in " + dir, ex);
+        }
+        return store;
+    }
+
+    /**
+     * @param alias the alias
+     * @return the mapping, or null if the alias doesn't exist
+     */
+    UrlMapping get(String alias) {
+        for (int attempt = 1; ; attempt++) {
+            Entry entry = keys.get(alias);
+            if (entry == null) {
+                return null;
+            }
+            FileChannel channel = entry.segment().channel;
+            try {
+                return decode(alias, read(channel, entry));
+            } catch (ClosedChannelException ex) {
+                // The segment was compacted away or closed by an interrupt; the index has moved on or it reopens
+                if (attempt == READ_ATTEMPTS) {
+                    throw new UncheckedIOException("Can't read the record of " + alias, ex);
+                }
+                reopen(entry.segment(), channel);
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Can't read the record of " + alias, ex);
+            }
+        }
+    }
+
+    boolean contains(String alias) {
+        return keys.containsKey(alias);
+    }
+
+    /**
+     * @param id the ID of a mapping
+     * @return its alias, or null if no mapping has the ID
+     */
+    String aliasOf(long id) {
+        return ids.get(id);
+    }
+
+    /**
+     * @param id    the last ID of the previous page
+     * @param limit the maximum number of IDs
+     * @return the IDs of the mappings greater than {@code id}, in order
+     */
+    List<Long> idsAfter(long id, int limit) {
+        return ids.tailMap(id, false).keySet().stream().limit(limit).toList();
+    }
+
+    /**
+     * @param limit the maximum number of aliases
+     * @return the aliases of the mappings with the highest IDs, highest first
+     */
+    List<String> latestAliases(int limit) {
+        return ids.descendingMap().values().stream().limit(limit).toList();
+    }
+
+    /**
+     * @param now   the current time
+     * @param limit the maximum number of aliases
+     * @return the aliases that expired at or before {@code now}, oldest first
+     */
+    List<String> expiredAliases(Instant now, int limit) {
+        List<String> aliases = new ArrayList<>();
+        for (Expiry expiry : expiries.headSet(new Expiry(toMicros(now), Long.MAX_VALUE), true)) {
+            if (aliases.size() == limit) {
+                break;
+            }
+            String alias = ids.get(expiry.id());
+            if (alias != null) {
+                aliases.add(alias);
+            }
+        }
+        return aliases;
+    }
+
+    void forEachAlias(Consumer<String> action) {
+        keys.keySet().forEach(action);
+    }
+
+    int size() {
+        return keys.size();
+    }
+
+    /**
+     * Appends the mappings and waits until they are durable. A mapping without an ID is new: it
+     * gets the next ID and, if it has none, a creation time. A mapping with an ID replaces the one
+     * stored under its alias.
+     *
+     * @param mappings the mappings to write
+     * @throws DuplicateKeyException if a new mapping's alias exists or appears twice; nothing is written then
+     */
+    void put(List<UrlMapping> mappings) {
+        long target;
+        synchronized (writeLock) {
+            Set<String> adding = new HashSet<>();
+            for (UrlMapping mapping : mappings) {
+                if (mapping.getId() == null && (keys.containsKey(mapping.getAlias()) || !adding.add(mapping.getAlias()))) {
+                    throw new DuplicateKeyException("Alias " + mapping.getAlias() + " already exists");
+                }
+            }
+            for (UrlMapping mapping : mappings) {
+                if (mapping.getId() == null) {
+                    mapping.setId(nextId++);
+                    if (mapping.getCreatedAt() == null) {
+                        mapping.setCreatedAt(LocalTime.now());
+                    }
+                } else {
+                    // The mapping's alias changed: the old one goes
+                    String previous = ids.get(mapping.getId());
+                    if (previous != null && !previous.equals(mapping.getAlias())) {
+                        append(previous, null);
+                    }
+                    nextId = Math.max(nextId, mapping.getId() + 1);
+                }
+                append(mapping.getAlias(), mapping);
+            }
+            target = appended;
+        }
+        sync(target);
+    }
+
+    /**
+     * Appends deletions for the aliases that exist and waits until they are durable.
+     *
+     * @param aliases the aliases to delete
+     * @return the aliases that existed
+     */
+    List<String> delete(Collection<String> aliases) {
+        List<String> deleted = new ArrayList<>();
+        long target;
+        synchronized (writeLock) {
+            for (String alias : aliases) {
+                if (keys.containsKey(alias)) {
+                    append(alias, null);
+                    deleted.add(alias);
+                }
+            }
+            target = appended;
+        }
+        if (!deleted.isEmpty()) {
+            sync(target);
+        }
+        return deleted;
+    }
+
+    // Guarded by writeLock
+    private void append(String alias, UrlMapping mapping) {
+        long seq = nextSeq++;
+        ByteBuffer record = encode(seq, alias, mapping);
+        int length = record.remaining();
+        try {
+            if (active.size > 0 && active.size + length > segmentSize) {
+                roll();
+            }
+            long offset = active.size;
+            write(active, record, offset);
+            active.size = offset + length;
+            active.maxSeq = seq;
+            appended += length;
+
+            Entry entry = mapping == null
+                    ? null
+                    : new Entry(active, offset, length, seq, mapping.getId(), toMicros(mapping.getExpiresAt()));
+            Entry previous = entry == null ? keys.remove(alias) : keys.put(alias, entry);
+            if (previous != null) {
+                unindex(previous);
+            }
+            if (entry != null) {
+                index(alias, entry);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Can't append to " + active.path, ex);
+        }
+    }
+
+    private void write(Segment segment, ByteBuffer record, long offset) throws IOException {
+        FileChannel channel = segment.channel;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                while (record.hasRemaining()) {
+                    channel.write(record, offset + record.position());
+                }
+                return;
+            } catch (ClosedChannelException ex) {
+                if (attempt == READ_ATTEMPTS) {
+                    throw ex;
+                }
+                record.rewind();
+                channel = segment.reopen(channel);
+            }
+        }
+    }
+
+    private void index(String alias, Entry entry) {
+        entry.segment().liveBytes.addAndGet(entry.length());
+        ids.put(entry.id(), alias);
+        if (entry.expiresAt() != NO_TIME) {
+            expiries.add(new Expiry(entry.expiresAt(), entry.id()));
+        }
+    }
+
+    private void unindex(Entry entry) {
+        entry.segment().liveBytes.addAndGet(-entry.length());
+        ids.remove(entry.id());
+        if (entry.expiresAt() != NO_TIME) {
+            expiries.remove(new Expiry(entry.expiresAt(), entry.id()));
+        }
+    }
+
+    // Guarded by writeLock. The outgoing segment is synced, so everything appended so far is durable.
+    private void roll() throws IOException {
+        if (active != null) {
+            active.channel.force(false);
+            durable.accumulateAndGet(appended, Math::max);
+        }
+        long id = nextSegmentId++;
+        Path path = dir.resolve(fileName(id, DATA_SUFFIX));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        active = new Segment(id, path, channel, 0);
+        segments.add(active);
+    }
+
+    // Group commit: whoever gets here first syncs what everyone has appended so far
+    private void sync(long target) {
+        if (!fsync || durable.get() >= target) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (durable.get() >= target) {
+                return;
+            }
+            long upTo;
+            Segment segment;
+            synchronized (writeLock) {
+                upTo = appended;
+                segment = active;
+            }
+            try {
+                segment.channel.force(false);
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Can't sync " + segment.path, ex);
+            }
+            durable.accumulateAndGet(upTo, Math::max);
+        }
+    }
+
+    /**
+     * Rewrites the live records of the inactive segments into new segments and deletes the old
+     * ones, if at least {@code minGarbageRatio} of their bytes are overwritten or deleted records.
+     * Deletions are dropped too: with every older segment rewritten, nothing is left for them to mask.
+     *
+     * @param minGarbageRatio the share of dead bytes that makes compaction worth it, 0 to always compact
+     * @return true if the segments were compacted
+     */
+    boolean compact(double minGarbageRatio) {
+        synchronized (compactLock) {
+            List<Segment> inputs;
+            synchronized (writeLock) {
+                inputs = segments.stream().filter(segment -> segment != active).toList();
+            }
+            long total = inputs.stream().mapToLong(segment -> segment.size).sum();
+            long live = inputs.stream().mapToLong(segment -> segment.liveBytes.get()).sum();
+            if (inputs.isEmpty() || (double) (total - live) / Math.max(total, 1) < minGarbageRatio) {
+                return false;
+            }
+            long start = System.currentTimeMillis();
+            try {
+                List<Segment> outputs = new ArrayList<>();
+                Map<String, Entry[]> moved = new HashMap<>();
+                try (Compactor compactor = new Compactor(outputs)) {
+                    for (Segment input : inputs) {
+                        scan(input, (alias, entry, record) -> {
+                            if (entry.equals(keys.get(alias))) {
+                                moved.put(alias, new Entry[] { entry, compactor.copy(alias, entry, record) });
+                            }
+                        });
+                    }
+                }
+                // Outputs and their hints are durable; point the index at them
+                moved.forEach((alias, swap) -> {
+                    if (keys.replace(alias, swap[0], swap[1])) {
+                        swap[1].segment().liveBytes.addAndGet(swap[1].length());
+                    }
+                });
+                segments.addAll(outputs);
+                segments.removeAll(inputs);
+                // Oldest records first, so a deletion is never removed while a record it masks survives
+                List<Segment> byAge = new ArrayList<>(inputs);
+                byAge.sort(Comparator.comparingLong(segment -> segment.maxSeq));
+                for (Segment input : byAge) {
+                    input.retire();
+                    Files.deleteIfExists(dir.resolve(fileName(input.id, HINT_SUFFIX)));
+                    Files.delete(input.path);
+                }
+                compactions.incrementAndGet();
+                log.info("Compacted {} segments ({} bytes) into {} ({} bytes) in {} ms", inputs.size(), total,
+                        outputs.size(), outputs.stream().mapToLong(segment -> segment.size).sum(),
+                        System.currentTimeMillis() - start);
+                return true;
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Compaction failed", ex);
+            }
+        }
+    }
+
+    // Writes compaction output segments and their hint files
+    private final class Compactor implements Closeable {
+        private final List<Segment> outputs;
+        private Segment segment;
+        private DataOutputStream hint;
+        private Path hintPath;
+
+        Compactor(List<Segment> outputs) {
+            this.outputs = outputs;
+        }
+
+        Entry copy(String alias, Entry entry, ByteBuffer record) {
+            try {
+                if (segment == null || segment.size > 0 && segment.size + entry.length() > segmentSize) {
+                    finish();
+                    start();
+                }
+                long offset = segment.size;
+                record.rewind();
+                write(segment, record, offset);
+                segment.size = offset + entry.length();
+                segment.maxSeq = Math.max(segment.maxSeq, entry.seq());
+                Entry copied = new Entry(segment, offset, entry.length(), entry.seq(), entry.id(), entry.expiresAt());
+                writeHint(hint, alias, copied);
+                return copied;
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Can't write compacted segment", ex);
+            }
+        }
+
+        private void start() throws IOException {
+            long id;
+            synchronized (writeLock) {
+                id = nextSegmentId++;
+            }
+            Path path = dir.resolve(fileName(id, DATA_SUFFIX));
+            segment = new Segment(id, path, FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE), 0);
+            hintPath = dir.resolve(fileName(id, HINT_SUFFIX + ".tmp"));
+            hint = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(hintPath)));
+            outputs.add(segment);
+        }
+
+        // The hint is renamed into place only once it and its segment are on disk
+        private void finish() throws IOException {
+            if (segment == null) {
+                return;
+            }
+            segment.channel.force(false);
+            hint.close();
+            try (FileChannel channel = FileChannel.open(hintPath, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(hintPath, dir.resolve(fileName(segment.id, HINT_SUFFIX)), StandardCopyOption.ATOMIC_MOVE);
+            segment = null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            finish();
+        }
+    }
+
+    private interface RecordVisitor {
+        void visit(String alias, Entry entry, ByteBuffer record) throws IOException;
+    }
+
+    // Reads a segment's records in order; a truncated or corrupt record ends the segment and is cut off
+    private void scan(Segment segment, RecordVisitor visitor) throws IOException {
+        long offset = 0;
+        long size = segment.size;
+        InputStream in = new BufferedInputStream(Channels.newInputStream(segment.channel.position(0)), 1 << 16);
+        byte[] header = new byte[HEADER_SIZE];
+        while (offset < size) {
+            if (in.readNBytes(header, 0, HEADER_SIZE) < HEADER_SIZE) {
+                truncate(segment, offset);
+                return;
+            }
+            ByteBuffer head = ByteBuffer.wrap(header);
+            head.position(4);
+            int keyLength = Short.toUnsignedInt(head.getShort(12));
+            int valueLength = head.getInt(14);
+            int length = HEADER_SIZE + keyLength + Math.max(valueLength, 0);
+            if (valueLength < TOMBSTONE || offset + length > size) {
+                truncate(segment, offset);
+                return;
+            }
+            ByteBuffer record = ByteBuffer.allocate(length);
+            record.put(header);
+            if (in.readNBytes(record.array(), HEADER_SIZE, length - HEADER_SIZE) < length - HEADER_SIZE
+                    || !checksumMatches(record)) {
+                truncate(segment, offset);
+                return;
+            }
+            long seq = record.getLong(4);
+            String alias = new String(record.array(), HEADER_SIZE, keyLength, StandardCharsets.UTF_8);
+            Entry entry = valueLength == TOMBSTONE
+                    ? new Entry(segment, offset, length, seq, TOMBSTONE, NO_TIME)
+                    : new Entry(segment, offset, length, seq,
+                            record.getLong(HEADER_SIZE + keyLength), record.getLong(HEADER_SIZE + keyLength + 16));
+            segment.maxSeq = Math.max(segment.maxSeq, seq);
+            visitor.visit(alias, entry, record);
+            offset += length;
+        }
+    }
+
+    private void truncate(Segment segment, long offset) throws IOException {
+        log.warn("Truncating {} at {} of {} bytes: incomplete or corrupt record", segment.path, offset, segment.size);
+        segment.channel.truncate(offset);
+        segment.size = offset;
+    }
+
+    private void recover() throws IOException {
+        long start = System.currentTimeMillis();
+        List<Path> files;
+        try (Stream<Path> list = Files.list(dir)) {
+            files = list.filter(path -> path.getFileName().toString().endsWith(DATA_SUFFIX)).sorted().toList();
+        }
+        try (Stream<Path> list = Files.list(dir)) {
+            // Hints of a compaction that didn't finish
+            for (Path path : list.filter(path -> path.getFileName().toString().endsWith(".tmp")).toList()) {
+                Files.delete(path);
+            }
+        }
+
+        Map<String, Entry> latest = new HashMap<>();
+        RecordVisitor visitor = (alias, entry, record) -> latest.merge(alias, entry,
+                (current, candidate) -> candidate.seq() > current.seq() ? candidate : current);
+        int hinted = 0;
+        for (Path path : files) {
+            String name = path.getFileName().toString();
+            long id = Long.parseLong(name.substring(0, name.length() - DATA_SUFFIX.length()));
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            Segment segment = new Segment(id, path, channel, channel.size());
+            segments.add(segment);
+            nextSegmentId = Math.max(nextSegmentId, id + 1);
+            Path hint = dir.resolve(fileName(id, HINT_SUFFIX));
+            if (Files.exists(hint)) {
+                readHint(hint, segment, visitor);
+                hinted++;
+            } else {
+                scan(segment, visitor);
+            }
+            // Every start rolls a new segment, so don't keep the ones nothing was written to
+            if (segment.size == 0) {
+                segment.retire();
+                Files.delete(path);
+                segments.remove(segment);
+            }
+        }
+
+        long maxSeq = -1;
+        long maxId = 0;
+        for (Map.Entry<String, Entry> found : latest.entrySet()) {
+            Entry entry = found.getValue();
+            maxSeq = Math.max(maxSeq, entry.seq());
+            if (entry.id() != TOMBSTONE) {
+                keys.put(found.getKey(), entry);
+                index(found.getKey(), entry);
+                maxId = Math.max(maxId, entry.id());
+            }
+        }
+        for (Segment segment : segments) {
+            maxSeq = Math.max(maxSeq, segment.maxSeq);
+        }
+        nextSeq = maxSeq + 1;
+        nextId = maxId + 1;
+        log.info("Loaded {} aliases from {} segments ({} with hints) in {} ms",
+                keys.size(), files.size(), hinted, System.currentTimeMillis() - start);
+    }
+
+    // A hint entry is seq, id, expires at, offset, record length, alias length and alias
+    private static void writeHint(DataOutputStream hint, String alias, Entry entry) throws IOException {
+        byte[] key = alias.getBytes(StandardCharsets.UTF_8);
+        hint.writeLong(entry.seq());
+        hint.writeLong(entry.id());
+        hint.writeLong(entry.expiresAt());
+        hint.writeLong(entry.offset());
+        hint.writeInt(entry.length());
+        hint.writeShort(key.length);
+        hint.write(key);
+    }
+
+    private static void readHint(Path path, Segment segment, RecordVisitor visitor) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            while (true) {
+                long seq;
+                try {
+                    seq = in.readLong();
+                } catch (EOFException ex) {
+                    return;
+                }
+                long id = in.readLong();
+                long expiresAt = in.readLong();
+                long offset = in.readLong();
+                int length = in.readInt();
+                byte[] key = in.readNBytes(in.readUnsignedShort());
+                segment.maxSeq = Math.max(segment.maxSeq, seq);
+                visitor.visit(new String(key, StandardCharsets.UTF_8),
+                        new Entry(segment, offset, length, seq, id, expiresAt), null);
+            }
+        }
+    }
+
+    private static ByteBuffer read(FileChannel channel, Entry entry) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(entry.length());
+        while (record.hasRemaining()) {
+            if (channel.read(record, entry.offset() + record.position()) < 0) {
+                throw new EOFException("Record past the end of the segment");
+            }
+        }
+        if (!checksumMatches(record)) {
+            throw new IOException("Checksum mismatch at " + entry.offset());
+        }
+        return record;
+    }
+
+    private static void reopen(Segment segment, FileChannel closed) {
+        try {
+            segment.reopen(closed);
+        } catch (ClosedChannelException ex) {
+            // Retired: the next attempt finds the record in the segment compaction moved it to
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Can't reopen " + segment.path, ex);
+        }
+    }
+
+    private static ByteBuffer encode(long seq, String alias, UrlMapping mapping) {
+        byte[] key = alias.getBytes(StandardCharsets.UTF_8);
+        byte[] url = mapping == null ? null : mapping.getOriginalUrl().getBytes(StandardCharsets.UTF_8);
+        int valueLength = mapping == null ? TOMBSTONE : VALUE_FIXED_SIZE + url.length;
+        ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + key.length + Math.max(valueLength, 0));
+        record.position(4);
+        record.putLong(seq);
+        record.putShort((short) key.length);
+        record.putInt(valueLength);
+        record.put(key);
+        if (mapping != null) {
+            record.putLong(mapping.getId());
+            record.putLong(mapping.getCreatedAt() == null ? NO_TIME : mapping.getCreatedAt().toNanoOfDay());
+            record.putLong(toMicros(mapping.getExpiresAt()));
+            record.putShort(mapping.getRedirectStatus() == null ? 0 : mapping.getRedirectStatus().shortValue());
+            record.put((byte) (mapping.isImmutable() ? 1 : 0));
+            record.put(url);
+        }
+        record.putInt(0, checksum(record.array(), record.capacity()));
+        record.flip();
+        return record;
+    }
+
+    private static UrlMapping decode(String alias, ByteBuffer record) {
+        int value = HEADER_SIZE + Short.toUnsignedInt(record.getShort(12));
+        UrlMapping mapping = new UrlMapping();
+        mapping.setAlias(alias);
+        mapping.setId(record.getLong(value));
+        long createdAt = record.getLong(value + 8);
+        mapping.setCreatedAt(createdAt == NO_TIME ? null : LocalTime.ofNanoOfDay(createdAt));
+        long expiresAt = record.getLong(value + 16);
+        mapping.setExpiresAt(expiresAt == NO_TIME ? null : Instant.EPOCH.plus(expiresAt, ChronoUnit.MICROS));
+        short status = record.getShort(value + 24);
+        mapping.setRedirectStatus(status == 0 ? null : (int) status);
+        mapping.setImmutable(record.get(value + 26) != 0);
+        int url = value + VALUE_FIXED_SIZE;
+        mapping.setOriginalUrl(new String(record.array(), url, record.capacity() - url, StandardCharsets.UTF_8));
+        return mapping;
+    }
+
+    private static boolean checksumMatches(ByteBuffer record) {
+        return record.getInt(0) == checksum(record.array(), record.capacity());
+    }
+
+    private static int checksum(byte[] record, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(record, 4, length - 4);
+        return (int) crc.getValue();
+    }
+
+    // Microseconds, the precision the database keeps
+    private static long toMicros(Instant instant) {
+        return instant == null ? NO_TIME : ChronoUnit.MICROS.between(Instant.EPOCH, instant);
+    }
+
+    private static String fileName(long id, String suffix) {
+        return String.format("%010d%s", id, suffix);
+    }
+
+    long segmentCount() {
+        return segments.size();
+    }
+
+    long diskBytes() {
+        return segments.stream().mapToLong(segment -> segment.size).sum();
+    }
+
+    long liveBytes() {
+        return segments.stream().mapToLong(segment -> segment.liveBytes.get()).sum();
+    }
+
+    long compactions() {
+        return compactions.get();
+    }
+
+    @Override
+    public void close() {
+        synchronized (writeLock) {
+            for (Segment segment : segments) {
+                try {
+                    segment.retire();
+                } catch (IOException ex) {
+                    log.warn("Can't close {}", segment.path, ex);
+                }
+            }
+        }
+    }
+}
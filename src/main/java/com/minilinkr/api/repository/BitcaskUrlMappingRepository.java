@@ -0,0 +1,652 @@
+package com.minilinkr.api.repository;
+
+import com.minilinkr.api.model.UrlMapping;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.data.repository.query.FluentQuery;
+import org.springframework.data.support.ExampleMatcherAccessor;
+import org.springframework.data.util.DirectFieldAccessFallbackBeanWrapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * {@link UrlMappingRepository} backed by a {@link BitcaskStore} on local disk instead of the
+ * {@code url_mappings} table, for single-node deployments without a database server. Selected
+ * with the {@code bitcask} profile, where it takes precedence over the JPA repository; the
+ * other tables stay in the configured database.
+ *
+ * Writes are held until the surrounding transaction commits and only then appended, so they
+ * apply together with the change feed entries and other rows written alongside them, and not
+ * at all if those roll back; outside a transaction they apply at once. A new alias is reserved
+ * as soon as it is written, so a concurrent create of the same alias fails in its own
+ * transaction, as with a unique constraint. Reads don't see the transaction's own writes.
+ *
+ * Sharding and read replicas don't apply. The sorting, paging and query-by-example methods
+ * inherited from {@link org.springframework.data.jpa.repository.JpaRepository} scan every record.
+ */
+@Repository
+@Primary
+@Profile("bitcask")
+public class BitcaskUrlMappingRepository implements UrlMappingRepository {
+
+    private static final int SCAN_PAGE_SIZE = 1000;
+
+    // The properties the store keeps, which are the ones an Example is matched on
+    private static final List<String> EXAMPLE_PROPERTIES =
+            List.of("id", "alias", "originalUrl", "createdAt", "expiresAt", "redirectStatus", "immutable");
+
+    private final BitcaskStore store;
+
+    private final double minGarbageRatio;
+
+    // New aliases written by transactions that haven't completed
+    private final Set<String> reserved = ConcurrentHashMap.newKeySet();
+
+    private final ProjectionFactory projections = new SpelAwareProxyProjectionFactory();
+
+    public BitcaskUrlMappingRepository(@Value("${minilinkr.bitcask.dir}") Path dir,
+                                       @Value("${minilinkr.bitcask.segment-size:64MB}") DataSize segmentSize,
+                                       @Value("${minilinkr.bitcask.fsync:true}") boolean fsync,
+                                       @Value("${minilinkr.bitcask.compaction.min-garbage-ratio:0.5}") double minGarbageRatio,
+                                       @Value("${minilinkr.shards.urls:}") String shardUrls) {
+        if (!shardUrls.isBlank()) {
+            throw new IllegalStateException("The bitcask profile doesn't support minilinkr.shards.urls");
+        }
+        this.store = BitcaskStore.open(dir, segmentSize.toBytes(), fsync);
+        this.minGarbageRatio = minGarbageRatio;
+    }
+
+    @PreDestroy
+    public void close() {
+        store.close();
+    }
+
+    /**
+     * Compacts the store once enough of it is overwritten or deleted records.
+     */
+    @Scheduled(fixedDelayString = "${minilinkr.bitcask.compaction.interval:1m}",
+            initialDelayString = "${minilinkr.bitcask.compaction.interval:1m}")
+    public void compact() {
+        store.compact(minGarbageRatio);
+    }
+
+    @Override
+    public Optional<UrlMapping> findByAlias(String alias) {
+        return Optional.ofNullable(store.get(alias));
+    }
+
+    @Override
+    public void deleteByAlias(String alias) {
+        delete(List.of(alias));
+    }
+
+    @Override
+    public List<String> findExistingAliases(Collection<String> aliases) {
+        return aliases.stream().filter(store::contains).toList();
+    }
+
+    @Override
+    public List<UrlMapping> findByIdGreaterThanOrderByIdAsc(long id, Limit limit) {
+        return load(aliasesOf(store.idsAfter(id, limit.isLimited() ? limit.max() : Integer.MAX_VALUE)));
+    }
+
+    @Override
+    public List<String> findRecentAliases(Limit limit) {
+        return store.latestAliases(limit.isLimited() ? limit.max() : Integer.MAX_VALUE);
+    }
+
+    @Override
+    public Optional<UrlMapping> findRedirectTarget(String alias) {
+        return findByAlias(alias);
+    }
+
+    @Override
+    public List<UrlMapping> findRedirectTargets(Collection<String> aliases) {
+        return load(aliases);
+    }
+
+    @Override
+    public void forEachAlias(Consumer<String> action) {
+        store.forEachAlias(action);
+    }
+
+    @Override
+    public void forEachMapping(Consumer<UrlMapping> action) {
+        List<Long> page = store.idsAfter(0, SCAN_PAGE_SIZE);
+        while (!page.isEmpty()) {
+            load(aliasesOf(page)).forEach(action);
+            page = store.idsAfter(page.get(page.size() - 1), SCAN_PAGE_SIZE);
+        }
+    }
+
+    @Override
+    public void insertAll(List<UrlMapping> mappings) {
+        put(mappings);
+    }
+
+    @Override
+    public void saveDestinations(Collection<UrlMapping> mappings) {
+        // Each record keeps its URL, so there is only the normalization to apply
+        mappings.forEach(mapping -> mapping.setOriginalUrl(Destinations.normalize(mapping.getOriginalUrl())));
+    }
+
+    @Override
+    public Optional<UrlMapping> findReusable(String originalUrl, int redirectStatus, boolean immutable) {
+        // The log has no index by URL, so this reads every record
+        String url = Destinations.normalize(originalUrl);
+        List<UrlMapping> found = new ArrayList<>(1);
+        forEachMapping(mapping -> {
+            if (found.isEmpty() && mapping.getOriginalUrl().equals(url) && mapping.getExpiresAt() == null
+                    && mapping.redirectStatus() == redirectStatus && mapping.isImmutable() == immutable) {
+                found.add(mapping);
+            }
+        });
+        return found.stream().findFirst();
+    }
+
+    @Override
+    public boolean hasInlineUrls() {
+        return false;
+    }
+
+    @Override
+    public long migrateDestinations(long afterId, int limit) {
+        return -1;
+    }
+
+    @Override
+    public void dropInlineUrlConstraint() {
+        // No table
+    }
+
+    @Override
+    public void alignIdSequence(int allocationSize) {
+        // IDs are assigned by the store
+    }
+
+    @Override
+    public List<String> deleteExpired(Instant now, int limit) {
+        List<String> expired = store.expiredAliases(now, limit);
+        delete(expired);
+        return expired;
+    }
+
+    @Override
+    public <S extends UrlMapping> S save(S entity) {
+        put(List.of(entity));
+        return entity;
+    }
+
+    @Override
+    public <S extends UrlMapping> S saveAndFlush(S entity) {
+        return save(entity);
+    }
+
+    @Override
+    public <S extends UrlMapping> List<S> saveAll(Iterable<S> entities) {
+        List<S> list = StreamSupport.stream(entities.spliterator(), false).toList();
+        put(new ArrayList<>(list));
+        return list;
+    }
+
+    @Override
+    public <S extends UrlMapping> List<S> saveAllAndFlush(Iterable<S> entities) {
+        return saveAll(entities);
+    }
+
+    @Override
+    public void flush() {
+        // Writes are appended when the transaction commits
+    }
+
+    @Override
+    public Optional<UrlMapping> findById(Long id) {
+        String alias = store.aliasOf(id);
+        return alias == null ? Optional.empty() : findByAlias(alias);
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return store.aliasOf(id) != null;
+    }
+
+    @Override
+    public List<UrlMapping> findAll() {
+        List<UrlMapping> all = new ArrayList<>();
+        forEachMapping(all::add);
+        return all;
+    }
+
+    @Override
+    public List<UrlMapping> findAllById(Iterable<Long> ids) {
+        return load(aliasesOf(ids));
+    }
+
+    @Override
+    public long count() {
+        return store.size();
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        deleteAllById(List.of(id));
+    }
+
+    @Override
+    public void delete(UrlMapping entity) {
+        deleteByAlias(entity.getAlias());
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends Long> ids) {
+        delete(aliasesOf(ids));
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends UrlMapping> entities) {
+        List<String> aliases = new ArrayList<>();
+        entities.forEach(entity -> aliases.add(entity.getAlias()));
+        delete(aliases);
+    }
+
+    @Override
+    public void deleteAll() {
+        List<String> aliases = new ArrayList<>(store.size());
+        store.forEachAlias(aliases::add);
+        delete(aliases);
+    }
+
+    @Override
+    public void deleteAllInBatch(Iterable<UrlMapping> entities) {
+        deleteAll(entities);
+    }
+
+    @Override
+    public void deleteAllByIdInBatch(Iterable<Long> ids) {
+        deleteAllById(ids);
+    }
+
+    @Override
+    public void deleteAllInBatch() {
+        deleteAll();
+    }
+
+    @Deprecated
+    @Override
+    public UrlMapping getOne(Long id) {
+        return getReferenceById(id);
+    }
+
+    @Deprecated
+    @Override
+    public UrlMapping getById(Long id) {
+        return getReferenceById(id);
+    }
+
+    @Override
+    public UrlMapping getReferenceById(Long id) {
+        return findById(id).orElseThrow(() -> new IllegalArgumentException("No mapping with ID " + id));
+    }
+
+    @Override
+    public List<UrlMapping> findAll(Sort sort) {
+        return find(mapping -> true, sort);
+    }
+
+    @Override
+    public Page<UrlMapping> findAll(Pageable pageable) {
+        return page(findAll(pageable.getSort()), pageable);
+    }
+
+    @Override
+    public <S extends UrlMapping> Optional<S> findOne(Example<S> example) {
+        List<S> found = find(example, Sort.unsorted());
+        if (found.size() > 1) {
+            throw new IncorrectResultSizeDataAccessException(1, found.size());
+        }
+        return found.stream().findFirst();
+    }
+
+    @Override
+    public <S extends UrlMapping> List<S> findAll(Example<S> example) {
+        return find(example, Sort.unsorted());
+    }
+
+    @Override
+    public <S extends UrlMapping> List<S> findAll(Example<S> example, Sort sort) {
+        return find(example, sort);
+    }
+
+    @Override
+    public <S extends UrlMapping> Page<S> findAll(Example<S> example, Pageable pageable) {
+        return page(find(example, pageable.getSort()), pageable);
+    }
+
+    @Override
+    public <S extends UrlMapping> long count(Example<S> example) {
+        return find(example, Sort.unsorted()).size();
+    }
+
+    @Override
+    public <S extends UrlMapping> boolean exists(Example<S> example) {
+        return !find(example, Sort.unsorted()).isEmpty();
+    }
+
+    @Override
+    public <S extends UrlMapping, R> R findBy(Example<S> example, Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
+        return queryFunction.apply(new ExampleQuery<>(example, Sort.unsorted(), Integer.MAX_VALUE, this::cast));
+    }
+
+    public long segments() {
+        return store.segmentCount();
+    }
+
+    public long diskBytes() {
+        return store.diskBytes();
+    }
+
+    public long liveBytes() {
+        return store.liveBytes();
+    }
+
+    public long compactions() {
+        return store.compactions();
+    }
+
+    // New aliases are reserved at once; the write itself waits for the transaction to commit
+    private void put(List<UrlMapping> mappings) {
+        List<String> reserving = new ArrayList<>();
+        for (UrlMapping mapping : mappings) {
+            if (mapping.getId() != null) {
+                continue;
+            }
+            String alias = mapping.getAlias();
+            boolean free = reserved.add(alias);
+            if (free) {
+                reserving.add(alias);
+            }
+            if (!free || store.contains(alias)) {
+                reserving.forEach(reserved::remove);
+                throw new DuplicateKeyException("Alias " + alias + " already exists");
+            }
+        }
+        onCommit(() -> store.put(mappings), () -> reserving.forEach(reserved::remove));
+    }
+
+    private void delete(Collection<String> aliases) {
+        onCommit(() -> store.delete(aliases), () -> {});
+    }
+
+    // Runs a write once the surrounding transaction has committed, or right away outside one
+    private static void onCommit(Runnable write, Runnable completed) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            try {
+                write.run();
+            } finally {
+                completed.run();
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                write.run();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                completed.run();
+            }
+        });
+    }
+
+    // Every mapping that matches, in the given order
+    private <T> List<T> find(Predicate<UrlMapping> filter, Sort sort, Function<UrlMapping, T> result) {
+        List<UrlMapping> found = new ArrayList<>();
+        forEachMapping(mapping -> {
+            if (filter.test(mapping)) {
+                found.add(mapping);
+            }
+        });
+        if (sort.isSorted()) {
+            found.sort(comparator(sort));
+        }
+        return found.stream().map(result).toList();
+    }
+
+    private List<UrlMapping> find(Predicate<UrlMapping> filter, Sort sort) {
+        return find(filter, sort, Function.identity());
+    }
+
+    private <S extends UrlMapping> List<S> find(Example<S> example, Sort sort) {
+        return find(matcher(example), sort, this::cast);
+    }
+
+    // Mappings are always read as UrlMapping, whatever subtype the Example is declared with
+    @SuppressWarnings("unchecked")
+    private <S extends UrlMapping> S cast(UrlMapping mapping) {
+        return (S) mapping;
+    }
+
+    private static <T> Page<T> page(List<T> all, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(all);
+        }
+        int from = (int) Math.min(pageable.getOffset(), all.size());
+        int to = Math.min(from + pageable.getPageSize(), all.size());
+        return new PageImpl<>(all.subList(from, to), pageable, all.size());
+    }
+
+    // Nulls sort as the highest values, as they do in the database
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Comparator<UrlMapping> comparator(Sort sort) {
+        Comparator<UrlMapping> comparator = (a, b) -> 0;
+        for (Sort.Order order : sort) {
+            Comparator<Object> values = order.isIgnoreCase()
+                    ? (a, b) -> String.CASE_INSENSITIVE_ORDER.compare((String) a, (String) b)
+                    : (a, b) -> ((Comparable) a).compareTo(b);
+            if (order.isDescending()) {
+                values = values.reversed();
+            }
+            boolean nullsFirst = switch (order.getNullHandling()) {
+                case NULLS_FIRST -> true;
+                case NULLS_LAST -> false;
+                case NATIVE -> order.isDescending();
+            };
+            comparator = comparator.thenComparing(mapping -> property(mapping, order.getProperty()),
+                    nullsFirst ? Comparator.nullsFirst(values) : Comparator.nullsLast(values));
+        }
+        return comparator;
+    }
+
+    // Matches the way the JPA repository would: primitives always count, nulls per the null handler
+    private static Predicate<UrlMapping> matcher(Example<?> example) {
+        ExampleMatcherAccessor matcher = new ExampleMatcherAccessor(example.getMatcher());
+        DirectFieldAccessFallbackBeanWrapper probe = new DirectFieldAccessFallbackBeanWrapper(example.getProbe());
+        List<Predicate<UrlMapping>> conditions = new ArrayList<>();
+        for (String property : EXAMPLE_PROPERTIES) {
+            if (matcher.isIgnoredPath(property)) {
+                continue;
+            }
+            Object expected = matcher.getValueTransformerForPath(property)
+                    .apply(Optional.ofNullable(probe.getPropertyValue(property)))
+                    .orElse(null);
+            if (expected == null) {
+                if (matcher.getNullHandler() == ExampleMatcher.NullHandler.INCLUDE) {
+                    conditions.add(mapping -> property(mapping, property) == null);
+                }
+            } else if (expected instanceof String text) {
+                Predicate<String> matches = stringMatcher(text, matcher.getStringMatcherForPath(property),
+                        matcher.isIgnoreCaseForPath(property));
+                conditions.add(mapping -> property(mapping, property) instanceof String actual && matches.test(actual));
+            } else {
+                conditions.add(mapping -> expected.equals(property(mapping, property)));
+            }
+        }
+        if (conditions.isEmpty()) {
+            return mapping -> true;
+        }
+        return example.getMatcher().isAllMatching()
+                ? mapping -> conditions.stream().allMatch(condition -> condition.test(mapping))
+                : mapping -> conditions.stream().anyMatch(condition -> condition.test(mapping));
+    }
+
+    private static Predicate<String> stringMatcher(String expected, ExampleMatcher.StringMatcher matcher, boolean ignoreCase) {
+        if (matcher == ExampleMatcher.StringMatcher.REGEX) {
+            Pattern pattern = Pattern.compile(expected, ignoreCase ? Pattern.CASE_INSENSITIVE : 0);
+            return actual -> pattern.matcher(actual).matches();
+        }
+        String value = ignoreCase ? expected.toLowerCase(Locale.ROOT) : expected;
+        return actual -> {
+            String candidate = ignoreCase ? actual.toLowerCase(Locale.ROOT) : actual;
+            return switch (matcher) {
+                case STARTING -> candidate.startsWith(value);
+                case ENDING -> candidate.endsWith(value);
+                case CONTAINING -> candidate.contains(value);
+                default -> candidate.equals(value);
+            };
+        };
+    }
+
+    private static Object property(UrlMapping mapping, String property) {
+        return new DirectFieldAccessFallbackBeanWrapper(mapping).getPropertyValue(property);
+    }
+
+    // The fluent form of an Example query, evaluated over a scan like the others
+    private final class ExampleQuery<T> implements FluentQuery.FetchableFluentQuery<T> {
+
+        private final Example<?> example;
+        private final Sort sort;
+        private final int limit;
+        private final Function<UrlMapping, T> result;
+
+        ExampleQuery(Example<?> example, Sort sort, int limit, Function<UrlMapping, T> result) {
+            this.example = example;
+            this.sort = sort;
+            this.limit = limit;
+            this.result = result;
+        }
+
+        @Override
+        public FluentQuery.FetchableFluentQuery<T> sortBy(Sort sort) {
+            return new ExampleQuery<>(example, this.sort.and(sort), limit, result);
+        }
+
+        @Override
+        public FluentQuery.FetchableFluentQuery<T> limit(int limit) {
+            return new ExampleQuery<>(example, sort, limit, result);
+        }
+
+        @Override
+        public <R> FluentQuery.FetchableFluentQuery<R> as(Class<R> resultType) {
+            if (resultType.isAssignableFrom(UrlMapping.class)) {
+                return new ExampleQuery<>(example, sort, limit, resultType::cast);
+            }
+            if (resultType.isInterface()) {
+                return new ExampleQuery<>(example, sort, limit, mapping -> projections.createProjection(resultType, mapping));
+            }
+            throw new UnsupportedOperationException("Only interface projections are supported by the bitcask repository");
+        }
+
+        @Override
+        public FluentQuery.FetchableFluentQuery<T> project(Collection<String> properties) {
+            // Every property is read from the record anyway
+            return this;
+        }
+
+        @Override
+        public T oneValue() {
+            List<T> found = fetch(sort, 2);
+            if (found.size() > 1) {
+                throw new IncorrectResultSizeDataAccessException(1, found.size());
+            }
+            return found.isEmpty() ? null : found.get(0);
+        }
+
+        @Override
+        public T firstValue() {
+            List<T> found = fetch(sort, 1);
+            return found.isEmpty() ? null : found.get(0);
+        }
+
+        @Override
+        public List<T> all() {
+            return fetch(sort, limit);
+        }
+
+        @Override
+        public Page<T> page(Pageable pageable) {
+            return BitcaskUrlMappingRepository.page(fetch(sort.and(pageable.getSort()), limit), pageable);
+        }
+
+        @Override
+        public Stream<T> stream() {
+            return all().stream();
+        }
+
+        @Override
+        public long count() {
+            return fetch(Sort.unsorted(), limit).size();
+        }
+
+        @Override
+        public boolean exists() {
+            return !fetch(Sort.unsorted(), 1).isEmpty();
+        }
+
+        private List<T> fetch(Sort sort, int limit) {
+            List<T> found = find(matcher(example), sort, result);
+            return found.size() > limit ? found.subList(0, limit) : found;
+        }
+    }
+
+    // Mappings deleted since their aliases were listed are left out
+    private List<UrlMapping> load(Collection<String> aliases) {
+        return aliases.stream().map(store::get).filter(Objects::nonNull).toList();
+    }
+
+    private List<String> aliasesOf(Iterable<? extends Long> ids) {
+        List<String> aliases = new ArrayList<>();
+        for (Long id : ids) {
+            String alias = store.aliasOf(id);
+            if (alias != null) {
+                aliases.add(alias);
+            }
+        }
+        return aliases;
+    }
+}
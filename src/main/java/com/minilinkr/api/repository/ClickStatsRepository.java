@@ -0,0 +1,22 @@
+package com.minilinkr.api.repository;
+
+import com.minilinkr.api.model.ClickStats;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface ClickStatsRepository extends JpaRepository<ClickStats, String> {
+
+    /**
+     * Finds the aliases with the most recorded clicks.
+     *
+     * @param limit the maximum number of aliases to return
+     * @return the aliases, most clicked first
+     */
+    @Query("select c.alias from ClickStats c order by c.clicks desc")
+    @Transactional(readOnly = true)
+    List<String> findMostClicked(Limit limit);
+}
@@ -0,0 +1,70 @@
+package com.minilinkr.api.repository;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+
+/**
+ * Normalization and hashing of original URLs, which key the destinations table.
+ */
+final class Destinations {
+
+    private Destinations() {
+    }
+
+    /**
+     * Normalizes the parts of a URL that don't change where it leads: the scheme and host are
+     * lowercased, a default port is dropped and an empty path becomes {@code /}. The path, query
+     * and fragment are kept as they are. A URL that can't be parsed is returned unchanged.
+     *
+     * @param url the original URL
+     * @return the normalized URL
+     */
+    static String normalize(String url) {
+        URI uri;
+        try {
+            uri = new URI(url);
+        } catch (URISyntaxException ex) {
+            return url;
+        }
+        if (uri.isOpaque() || uri.getScheme() == null || uri.getHost() == null) {
+            return url;
+        }
+        String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+        int port = uri.getPort();
+        if (port == 80 && scheme.equals("http") || port == 443 && scheme.equals("https")) {
+            port = -1;
+        }
+        StringBuilder normalized = new StringBuilder(url.length() + 1).append(scheme).append("://");
+        if (uri.getRawUserInfo() != null) {
+            normalized.append(uri.getRawUserInfo()).append('@');
+        }
+        normalized.append(uri.getHost().toLowerCase(Locale.ROOT));
+        if (port >= 0) {
+            normalized.append(':').append(port);
+        }
+        normalized.append(uri.getRawPath().isEmpty() ? "/" : uri.getRawPath());
+        if (uri.getRawQuery() != null) {
+            normalized.append('?').append(uri.getRawQuery());
+        }
+        if (uri.getRawFragment() != null) {
+            normalized.append('#').append(uri.getRawFragment());
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * @param normalizedUrl a URL returned by {@link #normalize}
+     * @return the SHA-256 of its UTF-8 bytes
+     */
+    static byte[] hash(String normalizedUrl) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(normalizedUrl.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+}
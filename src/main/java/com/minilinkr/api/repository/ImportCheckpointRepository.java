@@ -0,0 +1,7 @@
+package com.minilinkr.api.repository;
+
+import com.minilinkr.api.model.ImportCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ImportCheckpointRepository extends JpaRepository<ImportCheckpoint, String> {
+}
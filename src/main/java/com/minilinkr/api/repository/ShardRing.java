@@ -0,0 +1,55 @@
+package com.minilinkr.api.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Consistent-hash ring assigning aliases to shards.
+ *
+ * Each shard owns a number of points on a 64-bit ring, and an alias belongs to the shard
+ * owning the first point at or after its hash. A ring with more shards keeps every point of
+ * a smaller one, so adding a shard only moves the aliases that now hash to its points,
+ * about {@code 1 / shards} of them, and only onto the new shard.
+ */
+final class ShardRing {
+
+    private final long[] points;
+    private final int[] owners;
+
+    ShardRing(int shards, int pointsPerShard) {
+        long[][] entries = new long[shards * pointsPerShard][];
+        for (int shard = 0; shard < shards; shard++) {
+            for (int i = 0; i < pointsPerShard; i++) {
+                entries[shard * pointsPerShard + i] = new long[] { hash("shard-" + shard + "#" + i), shard };
+            }
+        }
+        Arrays.sort(entries, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+
+        points = new long[entries.length];
+        owners = new int[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            points[i] = entries[i][0];
+            owners[i] = (int) entries[i][1];
+        }
+    }
+
+    int shardFor(String alias) {
+        int i = Arrays.binarySearch(points, hash(alias));
+        if (i < 0) {
+            i = -i - 1;
+        }
+        return owners[i == points.length ? 0 : i];
+    }
+
+    // FNV-1a with a final mix; must never change, or every alias would need moving
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h = (h ^ b) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+}
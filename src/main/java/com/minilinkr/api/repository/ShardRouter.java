@@ -0,0 +1,150 @@
+package com.minilinkr.api.repository;
+
+import com.minilinkr.api.config.ShardRoutingDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Decides which shard holds each alias, and binds repository calls to it.
+ *
+ * Single-alias operations touch the alias's own shard only; scans and listings go through
+ * every shard. Binding is left to {@link ShardedUrlMappingRepository} and
+ * {@link ShardedAliasChangeRepository}: a call made outside a binding silently runs on
+ * shard 0, where only the tables that are not sharded belong. Without {@code minilinkr.shards.urls} there is a single shard and binding
+ * it changes nothing.
+ *
+ * While resharding ({@code minilinkr.shards.previous-count} set to the shard count before
+ * shards were added), an alias that hashes to a new shard may still be on its previous
+ * one until the {@link com.minilinkr.api.service.ShardMigrator} has moved it.
+ */
+@Component
+public class ShardRouter {
+
+    private final int shards;
+    private final int previousShards;
+    private final ShardRing ring;
+    private final ShardRing previousRing;
+
+    public ShardRouter(@Value("${minilinkr.shards.urls:}") List<String> shardUrls,
+                       @Value("${minilinkr.shards.previous-count:0}") int previousCount,
+                       @Value("${minilinkr.shards.points-per-shard:128}") int pointsPerShard) {
+        this.shards = 1 + (int) shardUrls.stream().filter(url -> !url.isBlank()).count();
+        if (previousCount < 0 || previousCount > shards) {
+            throw new IllegalArgumentException("minilinkr.shards.previous-count can't exceed the shard count");
+        }
+        this.previousShards = previousCount == 0 ? shards : previousCount;
+        this.ring = new ShardRing(shards, pointsPerShard);
+        this.previousRing = previousShards == shards ? null : new ShardRing(previousShards, pointsPerShard);
+    }
+
+    public int shardCount() {
+        return shards;
+    }
+
+    /**
+     * @return the number of shards before shards were added, which are the only ones aliases move off
+     */
+    public int previousShardCount() {
+        return previousShards;
+    }
+
+    /**
+     * @return whether aliases may still be on the shard they hashed to before shards were added
+     */
+    public boolean resharding() {
+        return previousRing != null;
+    }
+
+    /**
+     * @param alias the custom alias
+     * @return the shard that holds, or will hold, the alias
+     */
+    public int shardFor(String alias) {
+        return ring.shardFor(alias);
+    }
+
+    /**
+     * @param alias the custom alias
+     * @return the shard the alias may still be on while resharding, or empty if it isn't moving
+     */
+    public OptionalInt previousShardFor(String alias) {
+        if (previousRing == null) {
+            return OptionalInt.empty();
+        }
+        int previous = previousRing.shardFor(alias);
+        return previous == ring.shardFor(alias) ? OptionalInt.empty() : OptionalInt.of(previous);
+    }
+
+    /**
+     * Runs a task with every database access on one shard.
+     *
+     * @param shard the shard number
+     * @param task  the task to run
+     * @return the result of the task
+     */
+    <T> T onShard(int shard, Supplier<T> task) {
+        return ShardRoutingDataSource.onShard(shard, task);
+    }
+
+    /**
+     * Runs a task with every database access on one shard.
+     *
+     * @param shard the shard number
+     * @param task  the task to run
+     */
+    void runOnShard(int shard, Runnable task) {
+        onShard(shard, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs a task with every database access on the shard of an alias.
+     *
+     * @param alias the custom alias
+     * @param task  the task to run
+     * @return the result of the task
+     */
+    <T> T onShardFor(String alias, Supplier<T> task) {
+        return onShard(shardFor(alias), task);
+    }
+
+    /**
+     * Looks an alias up where it is. While resharding, the previous shard is asked first:
+     * the migrator copies a mapping before deleting the original, so a miss there means
+     * the new shard has it, if it exists at all.
+     *
+     * @param alias  the custom alias
+     * @param lookup the lookup, run with the shard bound
+     * @return the result of the lookup on the shard that had the alias, or empty if none did
+     */
+    <T> Optional<T> find(String alias, Supplier<Optional<T>> lookup) {
+        OptionalInt previous = previousShardFor(alias);
+        if (previous.isPresent()) {
+            Optional<T> found = onShard(previous.getAsInt(), lookup);
+            if (found.isPresent()) {
+                return found;
+            }
+        }
+        return onShardFor(alias, lookup);
+    }
+
+    /**
+     * Runs a task once per shard, in shard order, with the shard bound.
+     *
+     * @param task the task, given the shard number
+     */
+    void forEachShard(IntConsumer task) {
+        for (int shard = 0; shard < shards; shard++) {
+            int current = shard;
+            runOnShard(shard, () -> task.accept(current));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.minilinkr.api.repository;
+
+import com.minilinkr.api.model.AliasChange;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Access to the {@code alias_changes} feed of every shard, for the services to use instead of
+ * {@link AliasChangeRepository}.
+ *
+ * Each shard has its own feed, written in the shard's transactions and read one shard at a
+ * time, so reads take the shard as an argument.
+ */
+@Component
+public class ShardedAliasChangeRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO alias_changes (id, alias, kind, node, changed_at) "
+                    + "VALUES (nextval('alias_changes_seq'), ?, ?, ?, CURRENT_TIMESTAMP)";
+
+    private final AliasChangeRepository repository;
+    private final ShardRouter shards;
+    private final JdbcTemplate jdbcTemplate;
+
+    public ShardedAliasChangeRepository(AliasChangeRepository repository,
+                                        ShardRouter shards,
+                                        JdbcTemplate jdbcTemplate) {
+        this.repository = repository;
+        this.shards = shards;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public int shardCount() {
+        return shards.shardCount();
+    }
+
+    /**
+     * Appends changes to the feed. Must run in a transaction opened by
+     * {@link ShardedUrlMappingRepository}, which binds the shard of the aliases.
+     *
+     * @param kind    what happened to the aliases
+     * @param aliases the custom aliases
+     * @param node    the node making the change
+     */
+    public void record(AliasChange.Kind kind, Collection<String> aliases, String node) {
+        List<Object[]> rows = new ArrayList<>(aliases.size());
+        for (String alias : aliases) {
+            rows.add(new Object[] { alias, kind.name(), node });
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    /**
+     * @param shard the shard number
+     * @return the highest change ID on the shard, or null if its feed is empty
+     */
+    public Long findMaxId(int shard) {
+        return shards.onShard(shard, repository::findMaxId);
+    }
+
+    /**
+     * @param shard the shard number
+     * @param since the earliest change time of interest
+     * @return the lowest ID on the shard of a change recorded at or after that time, or null if there is none
+     */
+    public Long findMinIdSince(int shard, Instant since) {
+        return shards.onShard(shard, () -> repository.findMinIdSince(since));
+    }
+
+    /**
+     * @param shard the shard number
+     * @param id    the highest change ID already seen
+     * @param limit the maximum number of changes to return
+     * @return the newer changes on the shard, in ID order
+     */
+    public List<AliasChange> findByIdGreaterThan(int shard, long id, int limit) {
+        return shards.onShard(shard, () -> repository.findByIdGreaterThanOrderByIdAsc(id, Limit.of(limit)));
+    }
+
+    /**
+     * @param shard the shard number
+     * @param ids   the change IDs
+     * @return the changes on the shard that exist by now
+     */
+    public List<AliasChange> findByIdIn(int shard, Collection<Long> ids) {
+        return shards.onShard(shard, () -> repository.findByIdIn(ids));
+    }
+
+    /**
+     * Deletes the changes recorded before a given time, on every shard.
+     *
+     * @param cutoff the time before which changes are deleted
+     * @return the number of changes deleted
+     */
+    public long deleteChangedBefore(Instant cutoff) {
+        long[] deleted = { 0 };
+        shards.forEachShard(shard ->
+                deleted[0] += jdbcTemplate.update("DELETE FROM alias_changes WHERE changed_at < ?", cutoff.atOffset(ZoneOffset.UTC)));
+        return deleted[0];
+    }
+}
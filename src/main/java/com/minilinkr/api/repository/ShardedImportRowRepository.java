@@ -0,0 +1,69 @@
+package com.minilinkr.api.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Access to the {@code import_rows} of every shard: the rows of bulk imports that were
+ * created, kept on the shard of their mapping.
+ */
+@Component
+public class ShardedImportRowRepository {
+
+    private static final String INSERT_SQL = "INSERT INTO import_rows (import_id, row_index, alias) VALUES (?, ?, ?)";
+
+    private final ShardRouter shards;
+    private final JdbcTemplate jdbcTemplate;
+
+    public ShardedImportRowRepository(ShardRouter shards, JdbcTemplate jdbcTemplate) {
+        this.shards = shards;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Records created rows of an import. Must run in a transaction opened by
+     * {@link ShardedUrlMappingRepository}, which binds the shard of the aliases.
+     *
+     * @param importId the import ID
+     * @param aliases  the aliases created
+     * @param rows     the row of the upload each alias was created from
+     */
+    public void record(String importId, Collection<String> aliases, Map<String, Long> rows) {
+        List<Object[]> args = new ArrayList<>(aliases.size());
+        for (String alias : aliases) {
+            args.add(new Object[] { importId, rows.get(alias), alias });
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, args);
+    }
+
+    /**
+     * @param importId the import ID
+     * @param fromRow  the first row of interest
+     * @return the alias created from each row of the import from that row on, by row
+     */
+    public Map<Long, String> findFrom(String importId, long fromRow) {
+        Map<Long, String> rows = new HashMap<>();
+        shards.forEachShard(shard -> jdbcTemplate.query(
+                "SELECT row_index, alias FROM import_rows WHERE import_id = ? AND row_index >= ?",
+                rs -> {
+                    rows.put(rs.getLong(1), rs.getString(2));
+                },
+                importId, fromRow));
+        return rows;
+    }
+
+    /**
+     * Deletes the rows of an import, on every shard.
+     *
+     * @param importId the import ID
+     */
+    public void delete(String importId) {
+        shards.forEachShard(shard -> jdbcTemplate.update("DELETE FROM import_rows WHERE import_id = ?", importId));
+    }
+}
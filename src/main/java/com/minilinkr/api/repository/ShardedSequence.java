@@ -0,0 +1,30 @@
+package com.minilinkr.api.repository;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Generates an entity's IDs with a {@link ShardedSequenceGenerator}, from a pooled sequence
+ * that keeps a separate block of IDs per shard.
+ */
+@IdGeneratorType(ShardedSequenceGenerator.class)
+@Retention(RUNTIME)
+@Target({ FIELD, METHOD })
+public @interface ShardedSequence {
+
+    /**
+     * @return the name of the sequence on every shard
+     */
+    String name();
+
+    /**
+     * @return how many IDs each call to the sequence reserves, which must match its increment
+     */
+    int allocationSize();
+}
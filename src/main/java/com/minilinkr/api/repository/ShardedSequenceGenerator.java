@@ -0,0 +1,64 @@
+package com.minilinkr.api.repository;
+
+import com.minilinkr.api.config.ShardRoutingDataSource;
+import org.hibernate.MappingException;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.Optimizer;
+import org.hibernate.id.enhanced.OptimizerDescriptor;
+import org.hibernate.id.enhanced.OptimizerFactory;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pooled sequence generator that keeps a separate block of IDs per shard.
+ *
+ * Every shard has its own sequence, but Hibernate's generator keeps a single in-memory
+ * block, so a block fetched from one shard's sequence would be used on another and two
+ * shards could hand out the same IDs. Here each shard takes its blocks from its own
+ * sequence, so IDs stay unique within a shard. With a single shard it behaves exactly
+ * like the standard generator.
+ *
+ * Applied to an ID with {@link ShardedSequence}, which names the sequence and its increment.
+ */
+public class ShardedSequenceGenerator extends SequenceStyleGenerator {
+
+    private static final long serialVersionUID = 1L;
+
+    // Generators live with the session factory and are never serialized
+    private final transient ShardedSequence sequence;
+
+    private final transient Map<Integer, Optimizer> optimizers = new ConcurrentHashMap<>();
+
+    private transient OptimizerDescriptor optimizerDescriptor;
+
+    public ShardedSequenceGenerator(ShardedSequence sequence) {
+        this.sequence = sequence;
+    }
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        params.setProperty(SEQUENCE_PARAM, sequence.name());
+        params.setProperty(INCREMENT_PARAM, Integer.toString(sequence.allocationSize()));
+        super.configure(type, params, serviceRegistry);
+    }
+
+    @Override
+    protected OptimizerDescriptor determineOptimizationStrategy(Properties params, int incrementSize) {
+        optimizerDescriptor = super.determineOptimizationStrategy(params, incrementSize);
+        return optimizerDescriptor;
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        Optimizer optimizer = optimizers.computeIfAbsent(ShardRoutingDataSource.currentShard(), shard -> shard == 0
+                ? getOptimizer()
+                : OptimizerFactory.buildOptimizer(optimizerDescriptor, getIdentifierType().getReturnedClass(),
+                        getOptimizer().getIncrementSize(), getDatabaseStructure().getInitialValue()));
+        return optimizer.generate(getDatabaseStructure().buildCallback(session));
+    }
+}
@@ -0,0 +1,466 @@
+package com.minilinkr.api.repository;
+
+import com.minilinkr.api.model.UrlMapping;
+import jakarta.persistence.EntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Access to {@code url_mappings} across every shard, for the services to use instead of
+ * {@link UrlMappingRepository} and {@link ShardRouter}.
+ *
+ * Operations on an alias go to the alias's shard, or while resharding to its previous shard
+ * first; operations on several aliases are split by shard; scans and counts go through every
+ * shard and merge the results. The few operations that work one shard at a time, for the
+ * migrators and the expiry sweeper, take the shard as an argument. No caller has to bind a
+ * shard itself, so none can forget to and end up on shard 0.
+ *
+ * Writes run in one transaction per shard. The {@code inTransaction} callbacks run in that
+ * transaction, with its shard bound, so what they write (such as the change feed) commits
+ * or rolls back along with the mappings.
+ */
+@Component
+public class ShardedUrlMappingRepository {
+
+    // Keeps IN lists well below driver bind-parameter limits
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+
+    /**
+     * One page of a listing ordered by ID and then shard, with the last ID taken from each shard.
+     *
+     * @param items   the mappings in the page
+     * @param after   the last ID read from each shard, in shard order, where the next page starts
+     * @param hasMore whether another page follows
+     */
+    public record Page(List<UrlMapping> items, long[] after, boolean hasMore) {
+    }
+
+    private record ShardRow(int shard, UrlMapping mapping) {
+    }
+
+    private final UrlMappingRepository repository;
+    private final ShardRouter shards;
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public ShardedUrlMappingRepository(UrlMappingRepository repository,
+                                       ShardRouter shards,
+                                       EntityManager entityManager,
+                                       JdbcTemplate jdbcTemplate,
+                                       TransactionTemplate transactionTemplate) {
+        this.repository = repository;
+        this.shards = shards;
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    public int shardCount() {
+        return shards.shardCount();
+    }
+
+    /**
+     * @return the number of shards before shards were added, which are the only ones mappings move off
+     */
+    public int previousShardCount() {
+        return shards.previousShardCount();
+    }
+
+    /**
+     * @return whether mappings may still be on the shard they hashed to before shards were added
+     */
+    public boolean resharding() {
+        return shards.resharding();
+    }
+
+    /**
+     * @param alias the custom alias
+     * @return the shard that holds, or will hold, the alias
+     */
+    public int shardFor(String alias) {
+        return shards.shardFor(alias);
+    }
+
+    /**
+     * Finds a mapping by its alias, wherever it is.
+     *
+     * @param alias the custom alias
+     * @return the full mapping, or an empty Optional if not found
+     */
+    public Optional<UrlMapping> findByAlias(String alias) {
+        return shards.find(alias, () -> repository.findByAlias(alias));
+    }
+
+    /**
+     * Finds the redirect target of an alias, wherever it is.
+     *
+     * @param alias the custom alias
+     * @return a plain mapping with the alias, original URL, expiry and redirect policy, or an empty Optional
+     */
+    public Optional<UrlMapping> findRedirectTarget(String alias) {
+        return shards.find(alias, () -> repository.findRedirectTarget(alias));
+    }
+
+    /**
+     * Finds the redirect targets of many aliases, with one query per shard they are on.
+     *
+     * @param aliases the custom aliases
+     * @return plain mappings for the aliases that exist, in no particular order
+     */
+    public List<UrlMapping> findRedirectTargets(Collection<String> aliases) {
+        List<UrlMapping> found = new ArrayList<>(aliases.size());
+        Set<String> seen = new HashSet<>();
+        for (Map.Entry<Integer, List<String>> lookup : lookups(aliases)) {
+            shards.runOnShard(lookup.getKey(), () -> {
+                for (UrlMapping target : repository.findRedirectTargets(lookup.getValue())) {
+                    if (seen.add(target.getAlias())) {
+                        found.add(target);
+                    }
+                }
+            });
+        }
+        return found;
+    }
+
+    /**
+     * Finds which of the given aliases are taken, on their shards or, while resharding, still
+     * on their previous ones.
+     *
+     * @param aliases the custom aliases to check
+     * @return the subset of aliases that already exist
+     */
+    public Set<String> findExistingAliases(Collection<String> aliases) {
+        Set<String> existing = new HashSet<>();
+        for (Map.Entry<Integer, List<String>> lookup : lookups(aliases)) {
+            List<String> lookupAliases = lookup.getValue();
+            shards.runOnShard(lookup.getKey(), () -> {
+                for (int from = 0; from < lookupAliases.size(); from += LOOKUP_CHUNK_SIZE) {
+                    existing.addAll(repository.findExistingAliases(
+                            lookupAliases.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, lookupAliases.size()))));
+                }
+            });
+        }
+        return existing;
+    }
+
+    /**
+     * Inserts a mapping, with its destination, on the alias's shard.
+     *
+     * @param mapping       the mapping to insert
+     * @param inTransaction called with the alias in the inserting transaction
+     * @return the saved mapping
+     * @throws DataIntegrityViolationException if the alias is taken, including on its previous shard
+     */
+    public UrlMapping insert(UrlMapping mapping, Consumer<List<String>> inTransaction) {
+        String alias = mapping.getAlias();
+        OptionalInt previous = shards.previousShardFor(alias);
+        if (previous.isPresent() && !shards.onShard(previous.getAsInt(),
+                () -> repository.findExistingAliases(List.of(alias))).isEmpty()) {
+            throw new DataIntegrityViolationException("Alias still exists on its previous shard");
+        }
+        return shards.onShardFor(alias, () -> transactionTemplate.execute(status -> {
+            repository.saveDestinations(List.of(mapping));
+            UrlMapping saved = repository.saveAndFlush(mapping);
+            inTransaction.accept(List.of(alias));
+            return saved;
+        }));
+    }
+
+    /**
+     * Inserts mappings, with their destinations, in JDBC batches and one transaction per shard.
+     * If a shard's insert fails, the shards before it stay committed.
+     *
+     * @param mappings      the mappings to insert, whose aliases must not be taken
+     * @param inTransaction called with each shard's aliases in that shard's transaction
+     * @throws DataIntegrityViolationException if an alias was taken concurrently
+     */
+    public void insertAll(List<UrlMapping> mappings, Consumer<List<String>> inTransaction) {
+        Map<Integer, List<UrlMapping>> byShard = new TreeMap<>();
+        for (UrlMapping mapping : mappings) {
+            byShard.computeIfAbsent(shards.shardFor(mapping.getAlias()), shard -> new ArrayList<>()).add(mapping);
+        }
+        byShard.forEach((shard, shardMappings) -> shards.runOnShard(shard, () -> transactionTemplate.executeWithoutResult(status -> {
+            repository.saveDestinations(shardMappings);
+            repository.insertAll(shardMappings);
+            inTransaction.accept(shardMappings.stream().map(UrlMapping::getAlias).toList());
+        })));
+    }
+
+    /**
+     * Deletes a mapping by its alias, wherever it is. The mapping is looked up in the deleting
+     * transaction, so it is read from the primary.
+     *
+     * @param alias         the custom alias
+     * @param inTransaction called with the mapping in the deleting transaction before it is
+     *                      deleted; throwing rolls the delete back
+     * @return whether the alias existed
+     */
+    public boolean deleteByAlias(String alias, Consumer<UrlMapping> inTransaction) {
+        // While resharding, the alias may still be on its previous shard
+        OptionalInt previous = shards.previousShardFor(alias);
+        return previous.isPresent() && deleteOn(previous.getAsInt(), alias, inTransaction)
+                || deleteOn(shards.shardFor(alias), alias, inTransaction);
+    }
+
+    private boolean deleteOn(int shard, String alias, Consumer<UrlMapping> inTransaction) {
+        return Boolean.TRUE.equals(shards.onShard(shard, () -> transactionTemplate.execute(status -> {
+            Optional<UrlMapping> mapping = repository.findByAlias(alias);
+            if (mapping.isEmpty()) {
+                return false;
+            }
+            inTransaction.accept(mapping.get());
+            repository.delete(mapping.get());
+            return true;
+        })));
+    }
+
+    /**
+     * Deletes a batch of expired mappings from one shard.
+     *
+     * @param shard         the shard number
+     * @param now           the current time
+     * @param limit         the maximum number of mappings to delete
+     * @param inTransaction called with the deleted aliases in the deleting transaction, if there are any
+     * @return the aliases of the deleted mappings
+     */
+    public List<String> deleteExpired(int shard, Instant now, int limit, Consumer<List<String>> inTransaction) {
+        return shards.onShard(shard, () -> transactionTemplate.execute(status -> {
+            List<String> expired = repository.deleteExpired(now, limit);
+            if (!expired.isEmpty()) {
+                inTransaction.accept(expired);
+            }
+            return expired;
+        }));
+    }
+
+    /**
+     * @return the number of mappings on every shard together
+     */
+    public long count() {
+        long[] count = { 0 };
+        shards.forEachShard(shard -> count[0] += repository.count());
+        return count[0];
+    }
+
+    /**
+     * Streams every alias, shard by shard, without holding them in memory.
+     *
+     * @param action the callback invoked for each alias
+     */
+    public void forEachAlias(Consumer<String> action) {
+        shards.forEachShard(shard -> repository.forEachAlias(action));
+    }
+
+    /**
+     * Streams every mapping, shard by shard and in ID order within each shard, without
+     * holding them in memory.
+     *
+     * @param action the callback invoked for each mapping
+     */
+    public void forEachMapping(Consumer<UrlMapping> action) {
+        shards.forEachShard(shard -> repository.forEachMapping(action));
+    }
+
+    /**
+     * Reads one page of mappings ordered by ID and then shard. Each shard is read from where
+     * {@code after} left it and the results are merged by ID. Every shard allocates IDs from
+     * its own sequence, so with several shards this interleaves them rather than following
+     * creation order.
+     *
+     * @param after the last ID read from each shard, in shard order, all 0 for the first page
+     * @param limit the maximum number of mappings in the page
+     * @return the page
+     */
+    public Page findPage(long[] after, int limit) {
+        // Fetch one extra row per shard to know whether another page follows
+        List<ShardRow> rows = new ArrayList<>();
+        shards.forEachShard(shard -> repository.findByIdGreaterThanOrderByIdAsc(after[shard], Limit.of(limit + 1))
+                .forEach(mapping -> rows.add(new ShardRow(shard, mapping))));
+        rows.sort(Comparator.comparingLong((ShardRow row) -> row.mapping().getId()).thenComparingInt(ShardRow::shard));
+
+        long[] next = after.clone();
+        List<UrlMapping> items = new ArrayList<>(Math.min(rows.size(), limit));
+        for (ShardRow row : rows.subList(0, Math.min(rows.size(), limit))) {
+            items.add(row.mapping());
+            next[row.shard()] = row.mapping().getId();
+        }
+        return new Page(items, next, rows.size() > limit);
+    }
+
+    /**
+     * Reads the next mappings of one shard in ID order.
+     *
+     * @param shard the shard number
+     * @param id    the last ID already read
+     * @param limit the maximum number of mappings to return
+     * @return the mappings with a greater ID, in ID order
+     */
+    public List<UrlMapping> findByIdGreaterThan(int shard, long id, int limit) {
+        return shards.onShard(shard, () -> repository.findByIdGreaterThanOrderByIdAsc(id, Limit.of(limit)));
+    }
+
+    /**
+     * @param id a mapping ID
+     * @return whether any shard has a mapping with at least this ID
+     */
+    public boolean containsIdAtLeast(long id) {
+        boolean[] found = { false };
+        shards.forEachShard(shard -> found[0] |= !repository.findByIdGreaterThanOrderByIdAsc(id - 1, Limit.of(1)).isEmpty());
+        return found[0];
+    }
+
+    /**
+     * Finds the oldest link, on any shard, to the same destination that doesn't expire and
+     * redirects the same way.
+     *
+     * @param originalUrl    the original URL
+     * @param redirectStatus the redirect status
+     * @param immutable      whether the link is immutable
+     * @return the oldest such link, or an empty Optional if there is none
+     */
+    public Optional<UrlMapping> findReusable(String originalUrl, int redirectStatus, boolean immutable) {
+        List<UrlMapping> reusable = new ArrayList<>();
+        shards.forEachShard(shard -> repository.findReusable(originalUrl, redirectStatus, immutable).ifPresent(reusable::add));
+        return reusable.stream().min(Comparator.comparing(UrlMapping::getId));
+    }
+
+    /**
+     * Finds the most recently created aliases, taking an equal share from every shard.
+     *
+     * @param limit the number of aliases to return at most
+     * @return the aliases, newest first within each shard
+     */
+    public List<String> findRecentAliases(int limit) {
+        int perShard = Math.ceilDiv(limit, shards.shardCount());
+        List<String> aliases = new ArrayList<>();
+        shards.forEachShard(shard -> aliases.addAll(repository.findRecentAliases(Limit.of(perShard))));
+        return aliases;
+    }
+
+    /**
+     * Moves the ID sequence of every shard past the IDs in use, see
+     * {@link UrlMappingRepositoryCustom#alignIdSequence}.
+     *
+     * @param allocationSize the number of IDs the generator reserves per call
+     */
+    public void alignIdSequence(int allocationSize) {
+        shards.forEachShard(shard -> repository.alignIdSequence(allocationSize));
+    }
+
+    /**
+     * Makes the inline original URL column of one shard nullable.
+     *
+     * @param shard the shard number
+     * @return whether the shard still has mappings with an inline original URL
+     */
+    public boolean prepareDestinations(int shard) {
+        return shards.onShard(shard, () -> {
+            repository.dropInlineUrlConstraint();
+            return repository.hasInlineUrls();
+        });
+    }
+
+    /**
+     * Moves the inline original URLs of a batch of one shard's mappings to destinations.
+     *
+     * @param shard   the shard number
+     * @param afterId the last ID already migrated
+     * @param limit   the maximum number of mappings to migrate
+     * @return the last ID migrated, or -1 once the shard is done
+     */
+    public long migrateDestinations(int shard, long afterId, int limit) {
+        return shards.onShard(shard, () -> repository.migrateDestinations(afterId, limit));
+    }
+
+    /**
+     * Moves mappings from one shard to another: they are copied, keeping their creation time,
+     * in one transaction, then deleted from the shard they came from in another. A copy whose
+     * original was deleted in between is deleted again.
+     *
+     * @param from          the shard the mappings are on
+     * @param to            the shard they move to
+     * @param mappings      the mappings, as read from {@code from}
+     * @param inTransaction called with the aliases of the copies deleted again, in the deleting transaction
+     * @return the number of mappings moved
+     */
+    public int move(int from, int to, List<UrlMapping> mappings, Consumer<List<String>> inTransaction) {
+        shards.runOnShard(to, () -> transactionTemplate.executeWithoutResult(status -> {
+            // Already there if a previous run stopped between the copy and the delete
+            Set<String> existing = new HashSet<>(repository.findExistingAliases(
+                    mappings.stream().map(UrlMapping::getAlias).toList()));
+            List<UrlMapping> copies = new ArrayList<>();
+            List<Object[]> createdAt = new ArrayList<>();
+            for (UrlMapping mapping : mappings) {
+                if (existing.contains(mapping.getAlias())) {
+                    continue;
+                }
+                UrlMapping copy = new UrlMapping();
+                copy.setAlias(mapping.getAlias());
+                copy.setOriginalUrl(mapping.getOriginalUrl());
+                copy.setExpiresAt(mapping.getExpiresAt());
+                copy.setRedirectStatus(mapping.getRedirectStatus());
+                copy.setImmutable(mapping.isImmutable());
+                copies.add(copy);
+                createdAt.add(new Object[] { mapping.getCreatedAt(), mapping.getAlias() });
+            }
+            // Each shard has its own destinations, so the redirect lookup stays on one database
+            repository.saveDestinations(copies);
+            copies.forEach(entityManager::persist);
+            entityManager.flush();
+            entityManager.clear();
+            // The creation timestamp is set on insert, so it is carried over afterwards
+            jdbcTemplate.batchUpdate("UPDATE url_mappings SET created_at = ? WHERE alias = ?", createdAt);
+        }));
+
+        List<Object[]> ids = mappings.stream().map(mapping -> new Object[] { mapping.getId() }).toList();
+        int[] deleted = shards.onShard(from, () -> transactionTemplate.execute(status ->
+                jdbcTemplate.batchUpdate("DELETE FROM url_mappings WHERE id = ?", ids)));
+
+        List<String> gone = new ArrayList<>();
+        for (int i = 0; i < deleted.length; i++) {
+            if (deleted[i] == 0) {
+                gone.add(mappings.get(i).getAlias());
+            }
+        }
+        if (!gone.isEmpty()) {
+            // Deleted from the previous shard since it was scanned
+            shards.runOnShard(to, () -> transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate("DELETE FROM url_mappings WHERE alias = ?",
+                        gone.stream().map(alias -> new Object[] { alias }).toList());
+                inTransaction.accept(gone);
+            }));
+        }
+        return mappings.size() - gone.size();
+    }
+
+    // Groups aliases by the shards to look them up on: while resharding, the previous shards of
+    // moving aliases come first, as for a single alias, then every alias's current shard
+    private List<Map.Entry<Integer, List<String>>> lookups(Collection<String> aliases) {
+        Map<Integer, List<String>> previous = new TreeMap<>();
+        Map<Integer, List<String>> current = new TreeMap<>();
+        for (String alias : aliases) {
+            shards.previousShardFor(alias).ifPresent(shard -> previous.computeIfAbsent(shard, k -> new ArrayList<>()).add(alias));
+            current.computeIfAbsent(shards.shardFor(alias), k -> new ArrayList<>()).add(alias);
+        }
+        List<Map.Entry<Integer, List<String>>> lookups = new ArrayList<>(previous.entrySet());
+        lookups.addAll(current.entrySet());
+        return lookups;
+    }
+}
@@ -1,11 +1,17 @@
 package com.minilinkr.api.repository;
 
 import com.minilinkr.api.model.UrlMapping;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-public interface UrlMappingRepository  extends JpaRepository<UrlMapping, Long> {
+public interface UrlMappingRepository  extends JpaRepository<UrlMapping, Long>, UrlMappingRepositoryCustom {
 
     /**
      * Finds a UrlMapping by its custom alias.
@@ -13,6 +19,7 @@ public interface UrlMappingRepository  extends JpaRepository<UrlMapping, Long> {
      * @param alias the custom alias for the shortened URL
      * @return an Optional containing the UrlMapping if found, or an empty Optional if not found
      */
+    @Transactional(readOnly = true)
     Optional<UrlMapping> findByAlias(String alias);
 
     /**
@@ -21,4 +28,33 @@ public interface UrlMappingRepository  extends JpaRepository<UrlMapping, Long> {
      * @param alias the custom alias for the shortened URL
      */
     void deleteByAlias(String alias);
-}
\ No newline at end of file
+
+    /**
+     * Finds which of the given aliases are already taken, in a single query.
+     *
+     * @param aliases the custom aliases to check
+     * @return the subset of aliases that already exist
+     */
+    @Query("select u.alias from UrlMapping u where u.alias in :aliases")
+    List<String> findExistingAliases(@Param("aliases") Collection<String> aliases);
+
+    /**
+     * Finds the next page of UrlMappings after a given ID, using the primary key index.
+     *
+     * @param id    the last ID of the previous page
+     * @param limit the maximum number of mappings to return
+     * @return the mappings with a greater ID, in ID order
+     */
+    @Transactional(readOnly = true)
+    List<UrlMapping> findByIdGreaterThanOrderByIdAsc(long id, Limit limit);
+
+    /**
+     * Finds the most recently created aliases, using the primary key index.
+     *
+     * @param limit the maximum number of aliases to return
+     * @return the aliases, newest first
+     */
+    @Query("select u.alias from UrlMapping u order by u.id desc")
+    @Transactional(readOnly = true)
+    List<String> findRecentAliases(Limit limit);
+}
@@ -0,0 +1,120 @@
+package com.minilinkr.api.repository;
+
+import com.minilinkr.api.model.UrlMapping;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Repository operations implemented with plain JDBC, for access patterns that
+ * shouldn't go through the persistence context.
+ */
+public interface UrlMappingRepositoryCustom {
+
+    /**
+     * Looks up what a redirect needs for an alias with a single prepared query, outside the
+     * persistence context and in a read-only scope, so it can be served by a replica.
+     *
+     * @param alias the custom alias
+     * @return a plain mapping with the alias, original URL, expiry and redirect policy,
+     *         or an empty Optional if the alias doesn't exist
+     */
+    Optional<UrlMapping> findRedirectTarget(String alias);
+
+    /**
+     * Looks up what a redirect needs for several aliases in one query, like
+     * {@link #findRedirectTarget}.
+     *
+     * @param aliases the custom aliases
+     * @return plain mappings for the aliases that exist, in no particular order
+     */
+    List<UrlMapping> findRedirectTargets(Collection<String> aliases);
+
+    /**
+     * Streams every alias in the table through a forward-only cursor,
+     * so memory stays flat whatever the table size.
+     *
+     * @param action the callback invoked for each alias
+     */
+    void forEachAlias(Consumer<String> action);
+
+    /**
+     * Streams every mapping in ID order through a forward-only cursor. The mappings
+     * passed to the callback are plain objects, not managed entities.
+     *
+     * @param action the callback invoked for each mapping
+     */
+    void forEachMapping(Consumer<UrlMapping> action);
+
+    /**
+     * Inserts new mappings in the current transaction, flushing and clearing the persistence
+     * context every {@value UrlMappingRepositoryImpl#INSERT_CHUNK_SIZE} so it stays small.
+     * The mappings get their IDs assigned.
+     *
+     * @param mappings the mappings to insert, with aliases not yet taken
+     */
+    void insertAll(List<UrlMapping> mappings);
+
+    /**
+     * Stores the original URLs of mappings about to be inserted in the destinations table, once
+     * per distinct normalized URL, and points the mappings at them. Runs in the current
+     * transaction; URLs already stored are left as they are.
+     *
+     * @param mappings the new mappings; their original URLs are replaced by the normalized form
+     */
+    void saveDestinations(Collection<UrlMapping> mappings);
+
+    /**
+     * Finds the oldest mapping to the same destination as a URL that doesn't expire and has the
+     * given redirect policy, through the destination hash index. Mappings whose URL the
+     * DestinationMigrator hasn't moved yet aren't found.
+     *
+     * @param originalUrl    the original URL, normalized before the lookup
+     * @param redirectStatus the HTTP status of the redirect, with null stored as 302
+     * @param immutable      whether the mapping is immutable
+     * @return a plain mapping, or an empty Optional if there is none
+     */
+    Optional<UrlMapping> findReusable(String originalUrl, int redirectStatus, boolean immutable);
+
+    /**
+     * @return true if some mappings still keep their original URL inline instead of in destinations
+     */
+    boolean hasInlineUrls();
+
+    /**
+     * Moves the inline original URLs of the next mappings in ID order to the destinations
+     * table, in one short transaction.
+     *
+     * @param afterId the last ID of the previous batch
+     * @param limit   the maximum number of mappings to scan
+     * @return the last ID scanned, or -1 if there were no mappings after {@code afterId}
+     */
+    long migrateDestinations(long afterId, int limit);
+
+    /**
+     * Makes the inline {@code original_url} column nullable. Tables created before destinations
+     * have it NOT NULL, which Hibernate's schema update leaves alone.
+     */
+    void dropInlineUrlConstraint();
+
+    /**
+     * Moves the ID sequence past the highest existing ID. Needed once when upgrading
+     * a table whose IDs were assigned by an identity column.
+     *
+     * @param allocationSize the allocation size the sequence is used with
+     */
+    void alignIdSequence(int allocationSize);
+
+    /**
+     * Deletes up to {@code limit} mappings that expired at or before {@code now}, oldest
+     * first, in one short transaction driven by the {@code expires_at} index.
+     *
+     * @param now   the current time
+     * @param limit the maximum number of mappings to delete
+     * @return the aliases of the deleted mappings
+     */
+    List<String> deleteExpired(Instant now, int limit);
+}
@@ -0,0 +1,272 @@
+package com.minilinkr.api.repository;
+
+import com.minilinkr.api.model.UrlMapping;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * JDBC implementation of {@link UrlMappingRepositoryCustom}, picked up by Spring Data
+ * through the {@code Impl} suffix and merged into {@link UrlMappingRepository}.
+ */
+public class UrlMappingRepositoryImpl implements UrlMappingRepositoryCustom {
+
+    private static final int FETCH_SIZE = 1000;
+
+    // Matches spring.jpa.properties.hibernate.jdbc.batch_size
+    static final int INSERT_CHUNK_SIZE = 500;
+
+    // The original URL is in destinations, or still inline for rows the DestinationMigrator hasn't reached
+    private static final String MAPPINGS_WITH_URL = "url_mappings m LEFT JOIN destinations d ON d.hash = m.destination_hash";
+
+    private static final String ORIGINAL_URL = "COALESCE(m.original_url, d.url) AS original_url";
+
+    // A constant statement, so the driver's per-connection statement cache can reuse it
+    private static final String REDIRECT_TARGET_SQL = "SELECT " + ORIGINAL_URL
+            + ", m.expires_at, m.redirect_status, m.immutable FROM " + MAPPINGS_WITH_URL + " WHERE m.alias = ?";
+
+    private static final String MAPPING_COLUMNS = "m.id, " + ORIGINAL_URL
+            + ", m.alias, m.created_at, m.expires_at, m.redirect_status, m.immutable";
+
+    private static final String INSERT_DESTINATION_SQL =
+            "INSERT INTO destinations (hash, url) VALUES (?, ?) ON CONFLICT DO NOTHING";
+
+    // Translates what a flush throws the way the repository proxy would, e.g. into DataIntegrityViolationException
+    private static final HibernateJpaDialect JPA_DIALECT = new HibernateJpaDialect();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final TransactionTemplate transaction;
+
+    private final TransactionTemplate readOnlyScope;
+
+    public UrlMappingRepositoryImpl(JdbcTemplate jdbcTemplate,
+                                    EntityManager entityManager,
+                                    PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.transaction = new TransactionTemplate(transactionManager);
+        // Marks the work read-only for routing without starting a JPA transaction
+        this.readOnlyScope = new TransactionTemplate(transactionManager);
+        this.readOnlyScope.setPropagationBehavior(TransactionDefinition.PROPAGATION_SUPPORTS);
+        this.readOnlyScope.setReadOnly(true);
+    }
+
+    @Override
+    public Optional<UrlMapping> findRedirectTarget(String alias) {
+        List<UrlMapping> found = readOnlyScope.execute(status ->
+                jdbcTemplate.query(REDIRECT_TARGET_SQL, (rs, rowNum) -> mapRedirectTarget(rs, alias), alias));
+        return found == null || found.isEmpty() ? Optional.empty() : Optional.of(found.get(0));
+    }
+
+    @Override
+    public List<UrlMapping> findRedirectTargets(Collection<String> aliases) {
+        if (aliases.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String placeholders = String.join(",", Collections.nCopies(aliases.size(), "?"));
+        String sql = "SELECT " + ORIGINAL_URL + ", m.expires_at, m.redirect_status, m.immutable, m.alias FROM "
+                + MAPPINGS_WITH_URL + " WHERE m.alias IN (" + placeholders + ")";
+        return readOnlyScope.execute(status ->
+                jdbcTemplate.query(sql, (rs, rowNum) -> mapRedirectTarget(rs, rs.getString(5)), aliases.toArray()));
+    }
+
+    @Override
+    public void forEachAlias(Consumer<String> action) {
+        scan("SELECT alias FROM url_mappings", rs -> action.accept(rs.getString(1)));
+    }
+
+    @Override
+    public void forEachMapping(Consumer<UrlMapping> action) {
+        scan("SELECT " + MAPPING_COLUMNS + " FROM " + MAPPINGS_WITH_URL + " ORDER BY m.id",
+                rs -> action.accept(mapRow(rs)));
+    }
+
+    @Override
+    public void insertAll(List<UrlMapping> mappings) {
+        for (int i = 0; i < mappings.size(); i++) {
+            entityManager.persist(mappings.get(i));
+            if ((i + 1) % INSERT_CHUNK_SIZE == 0) {
+                try {
+                    entityManager.flush();
+                } catch (PersistenceException ex) {
+                    DataAccessException translated = JPA_DIALECT.translateExceptionIfPossible(ex);
+                    throw translated != null ? translated : ex;
+                }
+                entityManager.clear();
+            }
+        }
+    }
+
+    @Override
+    public void saveDestinations(Collection<UrlMapping> mappings) {
+        // Sorted, so concurrent inserts of the same URLs take their row locks in the same order
+        Map<String, byte[]> destinations = new TreeMap<>();
+        for (UrlMapping mapping : mappings) {
+            String url = Destinations.normalize(mapping.getOriginalUrl());
+            mapping.setOriginalUrl(url);
+            mapping.setDestinationHash(destinations.computeIfAbsent(url, Destinations::hash));
+        }
+        insertDestinations(destinations);
+    }
+
+    @Override
+    public Optional<UrlMapping> findReusable(String originalUrl, int redirectStatus, boolean immutable) {
+        byte[] hash = Destinations.hash(Destinations.normalize(originalUrl));
+        List<UrlMapping> found = readOnlyScope.execute(status -> jdbcTemplate.query(
+                "SELECT " + MAPPING_COLUMNS + " FROM " + MAPPINGS_WITH_URL + " WHERE m.destination_hash = ?"
+                        + " AND m.expires_at IS NULL AND COALESCE(m.redirect_status, " + UrlMapping.DEFAULT_REDIRECT_STATUS + ") = ?"
+                        + " AND m.immutable = ? ORDER BY m.id LIMIT 1",
+                (rs, rowNum) -> mapRow(rs), hash, redirectStatus, immutable));
+        return found == null || found.isEmpty() ? Optional.empty() : Optional.of(found.get(0));
+    }
+
+    @Override
+    public boolean hasInlineUrls() {
+        return !jdbcTemplate.queryForList("SELECT id FROM url_mappings WHERE original_url IS NOT NULL LIMIT 1", Long.class)
+                .isEmpty();
+    }
+
+    @Override
+    public long migrateDestinations(long afterId, int limit) {
+        Long last = transaction.execute(status -> {
+            Map<Long, String> inline = new LinkedHashMap<>();
+            long[] lastId = { -1 };
+            jdbcTemplate.query("SELECT id, original_url FROM url_mappings WHERE id > ? ORDER BY id LIMIT ?",
+                    rs -> {
+                        lastId[0] = rs.getLong(1);
+                        String url = rs.getString(2);
+                        if (url != null) {
+                            inline.put(lastId[0], url);
+                        }
+                    },
+                    afterId, limit);
+
+            Map<String, byte[]> destinations = new TreeMap<>();
+            List<Object[]> updates = new ArrayList<>(inline.size());
+            inline.forEach((id, url) -> {
+                String normalized = Destinations.normalize(url);
+                updates.add(new Object[] { destinations.computeIfAbsent(normalized, Destinations::hash), id });
+            });
+            insertDestinations(destinations);
+            // Mappings are never updated, so the URL read above is still the one to move
+            jdbcTemplate.batchUpdate("UPDATE url_mappings SET destination_hash = ?, original_url = NULL WHERE id = ?", updates);
+            return lastId[0];
+        });
+        return last == null ? -1 : last;
+    }
+
+    @Override
+    public void dropInlineUrlConstraint() {
+        jdbcTemplate.execute("ALTER TABLE url_mappings ALTER COLUMN original_url DROP NOT NULL");
+    }
+
+    private void insertDestinations(Map<String, byte[]> destinations) {
+        if (destinations.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(destinations.size());
+        destinations.forEach((url, hash) -> rows.add(new Object[] { hash, url }));
+        jdbcTemplate.batchUpdate(INSERT_DESTINATION_SQL, rows);
+    }
+
+    @Override
+    public void alignIdSequence(int allocationSize) {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM url_mappings", Long.class);
+        if (maxId == null) {
+            return;
+        }
+        Long next = jdbcTemplate.queryForObject("SELECT nextval('url_mappings_seq')", Long.class);
+        if (next != null && next <= maxId + allocationSize) {
+            long restart = maxId + allocationSize + 1;
+            jdbcTemplate.execute("ALTER SEQUENCE url_mappings_seq RESTART WITH " + restart);
+        }
+    }
+
+    @Override
+    public List<String> deleteExpired(Instant now, int limit) {
+        return transaction.execute(status -> {
+            List<Long> ids = new ArrayList<>(limit);
+            List<String> aliases = new ArrayList<>(limit);
+            jdbcTemplate.query(
+                    "SELECT id, alias FROM url_mappings WHERE expires_at <= ? ORDER BY expires_at LIMIT ?",
+                    rs -> {
+                        ids.add(rs.getLong(1));
+                        aliases.add(rs.getString(2));
+                    },
+                    now.atOffset(ZoneOffset.UTC), limit);
+            if (ids.isEmpty()) {
+                return Collections.emptyList();
+            }
+            // expires_at never changes, so the rows selected above are still the expired ones
+            String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+            jdbcTemplate.update("DELETE FROM url_mappings WHERE id IN (" + placeholders + ")", ids.toArray());
+            return aliases;
+        });
+    }
+
+    // Runs a forward-only, read-only query row by row. The transaction keeps autocommit off,
+    // which Postgres needs to honour the fetch size instead of buffering the whole result.
+    private void scan(String sql, RowCallbackHandler handler) {
+        readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(FETCH_SIZE);
+            return ps;
+        }, handler));
+    }
+
+    // Reads original_url, expires_at, redirect_status and immutable from the first four columns
+    private static UrlMapping mapRedirectTarget(ResultSet rs, String alias) throws SQLException {
+        UrlMapping mapping = new UrlMapping();
+        mapping.setAlias(alias);
+        mapping.setOriginalUrl(rs.getString(1));
+        OffsetDateTime expiresAt = rs.getObject(2, OffsetDateTime.class);
+        mapping.setExpiresAt(expiresAt == null ? null : expiresAt.toInstant());
+        mapping.setRedirectStatus(rs.getObject(3, Integer.class));
+        mapping.setImmutable(rs.getBoolean(4));
+        return mapping;
+    }
+
+    private static UrlMapping mapRow(ResultSet rs) throws SQLException {
+        UrlMapping mapping = new UrlMapping();
+        mapping.setId(rs.getLong("id"));
+        mapping.setOriginalUrl(rs.getString("original_url"));
+        mapping.setAlias(rs.getString("alias"));
+        Time createdAt = rs.getTime("created_at");
+        mapping.setCreatedAt(createdAt == null ? null : createdAt.toLocalTime());
+        OffsetDateTime expiresAt = rs.getObject("expires_at", OffsetDateTime.class);
+        mapping.setExpiresAt(expiresAt == null ? null : expiresAt.toInstant());
+        mapping.setRedirectStatus(rs.getObject("redirect_status", Integer.class));
+        mapping.setImmutable(rs.getBoolean("immutable"));
+        return mapping;
+    }
+}
@@ -0,0 +1,123 @@
+package com.minilinkr.api.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.minilinkr.api.model.UrlMapping;
+import com.minilinkr.api.repository.ShardedUrlMappingRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read-through, in-memory cache of redirect targets sitting in front of the database.
+ *
+ * Entries are plain mappings carrying only the alias, original URL, expiry and redirect
+ * policy, loaded with a single-row JDBC projection rather than as managed entities.
+ * Backed by Caffeine, which bounds the cache by size and TTL and uses a frequency sketch
+ * (W-TinyLFU) to decide admission, so a burst of one-off aliases can't evict the hot set.
+ * Concurrent misses on the same alias are collapsed into a single repository call.
+ * Aliases that don't exist, or have expired, are not cached. An entry never outlives the
+ * link's own expiry; Caffeine schedules each entry on its timer wheel accordingly.
+ */
+@Component
+public class AliasCache {
+
+    private final LoadingCache<String, UrlMapping> cache;
+
+    public AliasCache(ShardedUrlMappingRepository repository,
+                      MeterRegistry meterRegistry,
+                      @Value("${minilinkr.cache.maximum-size:100000}") long maximumSize,
+                      @Value("${minilinkr.cache.ttl:10m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new LinkExpiry(ttl.toNanos()))
+                .recordStats()
+                .build(alias -> repository.findRedirectTarget(alias)
+                        .filter(mapping -> !mapping.isExpiredAt(Instant.now()))
+                        .orElse(null));
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "aliases");
+    }
+
+    /**
+     * Gets the redirect target of an alias, loading it from the database on a miss.
+     *
+     * @param alias the custom alias
+     * @return an Optional containing the plain mapping if found, or an empty Optional if not found
+     */
+    public Optional<UrlMapping> get(String alias) {
+        return Optional.ofNullable(cache.get(alias));
+    }
+
+    /**
+     * Adds redirect targets loaded ahead of their first lookup. Expired ones are skipped.
+     *
+     * @param targets plain mappings with the alias, original URL, expiry and redirect policy
+     */
+    public void putAll(Collection<UrlMapping> targets) {
+        Instant now = Instant.now();
+        Map<String, UrlMapping> live = new HashMap<>();
+        for (UrlMapping target : targets) {
+            if (!target.isExpiredAt(now)) {
+                live.put(target.getAlias(), target);
+            }
+        }
+        cache.putAll(live);
+    }
+
+    /**
+     * Removes an alias from the cache so the next lookup goes to the database.
+     *
+     * @param alias the custom alias
+     */
+    public void invalidate(String alias) {
+        cache.invalidate(alias);
+    }
+
+    /**
+     * @return a snapshot of the hit, miss and eviction counters
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * @return the approximate number of cached entries
+     */
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    // Expires entries after the cache TTL or at the link's expiry, whichever comes first
+    private record LinkExpiry(long ttlNanos) implements Expiry<String, UrlMapping> {
+
+        @Override
+        public long expireAfterCreate(String alias, UrlMapping mapping, long currentTime) {
+            if (mapping.getExpiresAt() == null) {
+                return ttlNanos;
+            }
+            long remainingMillis = mapping.getExpiresAt().toEpochMilli() - System.currentTimeMillis();
+            return Math.max(0, Math.min(ttlNanos, TimeUnit.MILLISECONDS.toNanos(remainingMillis)));
+        }
+
+        @Override
+        public long expireAfterUpdate(String alias, UrlMapping mapping, long currentTime, long currentDuration) {
+            return expireAfterCreate(alias, mapping, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String alias, UrlMapping mapping, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
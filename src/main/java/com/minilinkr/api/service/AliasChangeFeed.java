@@ -0,0 +1,234 @@
+package com.minilinkr.api.service;
+
+import com.minilinkr.api.model.AliasChange;
+import com.minilinkr.api.repository.ShardedAliasChangeRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the in-memory lookup state of every node coherent with changes made on other nodes.
+ *
+ * Each create and delete appends a row to {@code alias_changes} in the same transaction as
+ * the change. Every node polls the table for IDs above its watermark and applies the
+ * changes made elsewhere to its cache, alias filter and snapshot overlay, so staleness is
+ * bounded by the poll interval. A transaction can commit after one holding a higher ID, so
+ * IDs skipped over are kept as gaps and looked up again until the gap timeout. After a
+ * restart, the feed is replayed from the time the loaded snapshot was built.
+ *
+ * With several shards, each shard has its own {@code alias_changes}, written in the shard's
+ * transactions and tailed separately.
+ */
+@Component
+public class AliasChangeFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(AliasChangeFeed.class);
+
+    // Keeps the gap lookup a single bounded IN query
+    private static final int MAX_GAPS = 1000;
+
+    // The position in one shard's feed
+    private static final class Tail {
+        private long watermark;
+        private final Map<Long, Long> gaps = new HashMap<>();
+    }
+
+    private final ShardedAliasChangeRepository repository;
+    private final AliasCache cache;
+    private final AliasFilter aliasFilter;
+    private final AliasSnapshotIndex snapshotIndex;
+    private final AliasIndex aliasIndex;
+    private final ClickCounter clickCounter;
+    private final String nodeId;
+    private final int batchSize;
+    private final Duration gapTimeout;
+    private final Duration retention;
+
+    private final Tail[] tails;
+
+    private final AtomicLong applied = new AtomicLong();
+    private final AtomicLong missedGaps = new AtomicLong();
+
+    public AliasChangeFeed(ShardedAliasChangeRepository repository,
+                           AliasCache cache,
+                           AliasFilter aliasFilter,
+                           AliasSnapshotIndex snapshotIndex,
+                           AliasIndex aliasIndex,
+                           ClickCounter clickCounter,
+                           @Value("${minilinkr.node-id:}") String nodeId,
+                           @Value("${minilinkr.changes.batch-size:1000}") int batchSize,
+                           @Value("${minilinkr.changes.gap-timeout:30s}") Duration gapTimeout,
+                           @Value("${minilinkr.changes.retention:24h}") Duration retention) {
+        this.repository = repository;
+        this.cache = cache;
+        this.aliasFilter = aliasFilter;
+        this.snapshotIndex = snapshotIndex;
+        this.aliasIndex = aliasIndex;
+        this.clickCounter = clickCounter;
+        this.nodeId = nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+        this.batchSize = batchSize;
+        this.gapTimeout = gapTimeout;
+        this.retention = retention;
+        this.tails = new Tail[repository.shardCount()];
+        Arrays.setAll(tails, shard -> new Tail());
+    }
+
+    /**
+     * Starts tailing at the head of the feed, or, when a snapshot was loaded from disk,
+     * early enough to replay everything that changed since it was built.
+     */
+    @PostConstruct
+    public synchronized void start() {
+        long builtAt = snapshotIndex.builtAt();
+        for (int shard = 0; shard < tails.length; shard++) {
+            Tail tail = tails[shard];
+            Long head = repository.findMaxId(shard);
+            tail.watermark = head == null ? 0 : head;
+
+            if (builtAt > 0) {
+                Long first = repository.findMinIdSince(shard, Instant.ofEpochMilli(builtAt).minus(gapTimeout));
+                if (first != null) {
+                    tail.watermark = Math.min(tail.watermark, first - 1);
+                }
+            }
+        }
+        log.info("Tailing alias changes as node {} from version {}", nodeId, watermarks());
+    }
+
+    /**
+     * Records created aliases. Must run in the transaction that creates them, as an
+     * {@code inTransaction} callback of the {@link com.minilinkr.api.repository.ShardedUrlMappingRepository}.
+     *
+     * @param aliases the custom aliases
+     */
+    public void recordCreated(Collection<String> aliases) {
+        repository.record(AliasChange.Kind.CREATED, aliases, nodeId);
+    }
+
+    /**
+     * Records deleted aliases. Must run in the transaction that deletes them, as an
+     * {@code inTransaction} callback of the {@link com.minilinkr.api.repository.ShardedUrlMappingRepository}.
+     *
+     * @param aliases the custom aliases
+     */
+    public void recordDeleted(Collection<String> aliases) {
+        repository.record(AliasChange.Kind.DELETED, aliases, nodeId);
+    }
+
+    /**
+     * Applies the changes other nodes made since the last poll.
+     */
+    @Scheduled(fixedDelayString = "${minilinkr.changes.poll-interval:1s}")
+    public synchronized void poll() {
+        long now = System.currentTimeMillis();
+        for (int shard = 0; shard < tails.length; shard++) {
+            try {
+                poll(shard, tails[shard], now);
+            } catch (RuntimeException ex) {
+                log.warn("Failed to read alias changes from shard {}, will retry", shard, ex);
+            }
+        }
+    }
+
+    private void poll(int shard, Tail tail, long now) {
+        List<AliasChange> changes;
+        do {
+            changes = repository.findByIdGreaterThan(shard, tail.watermark, batchSize);
+            for (AliasChange change : changes) {
+                trackGaps(tail, change.getId(), now + gapTimeout.toMillis());
+                apply(change);
+                tail.watermark = change.getId();
+            }
+        } while (changes.size() == batchSize);
+
+        if (!tail.gaps.isEmpty()) {
+            for (AliasChange change : repository.findByIdIn(shard, tail.gaps.keySet())) {
+                apply(change);
+                tail.gaps.remove(change.getId());
+            }
+            // Most gaps are rolled-back transactions and never fill
+            tail.gaps.values().removeIf(deadline -> deadline < now);
+        }
+    }
+
+    /**
+     * Deletes changes older than the retention period.
+     */
+    @Scheduled(fixedDelayString = "${minilinkr.changes.prune-interval:1h}",
+            initialDelayString = "${minilinkr.changes.prune-interval:1h}")
+    public void prune() {
+        Instant cutoff = Instant.now().minus(retention);
+        long deleted = repository.deleteChangedBefore(cutoff);
+        if (deleted > 0) {
+            log.info("Pruned {} alias changes", deleted);
+        }
+    }
+
+    // Remembers the IDs between the watermark and the next change, most recent first, up to MAX_GAPS
+    private void trackGaps(Tail tail, long to, long deadline) {
+        long missing = to - tail.watermark - 1;
+        long tracked = Math.min(missing, MAX_GAPS - tail.gaps.size());
+        for (long i = 1; i <= tracked; i++) {
+            tail.gaps.put(to - i, deadline);
+        }
+        if (missing > tracked) {
+            missedGaps.addAndGet(missing - tracked);
+        }
+    }
+
+    private void apply(AliasChange change) {
+        String alias = change.getAlias();
+        // Even for this node's own changes, since a lagging replica may have put the old row
+        // back in the cache after the change was made
+        cache.invalidate(alias);
+        if (nodeId.equals(change.getNode())) {
+            return;
+        }
+        snapshotIndex.invalidate(alias);
+        if (change.getKind() == AliasChange.Kind.CREATED) {
+            aliasFilter.add(alias);
+            aliasIndex.onCreated(alias);
+        } else {
+            aliasFilter.recordRemoval();
+            aliasIndex.onDeleted(alias);
+            clickCounter.discardPending(alias);
+        }
+        applied.incrementAndGet();
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    /**
+     * @return the highest change ID applied on each shard, in shard order
+     */
+    public synchronized List<Long> watermarks() {
+        return Arrays.stream(tails).map(tail -> tail.watermark).toList();
+    }
+
+    public synchronized int pendingGaps() {
+        return Arrays.stream(tails).mapToInt(tail -> tail.gaps.size()).sum();
+    }
+
+    public long applied() {
+        return applied.get();
+    }
+
+    public long missedGaps() {
+        return missedGaps.get();
+    }
+}
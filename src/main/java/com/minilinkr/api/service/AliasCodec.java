@@ -0,0 +1,155 @@
+package com.minilinkr.api.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Turns numeric IDs into short, non-sequential base62 codes and back.
+ *
+ * IDs are scrambled with a keyed 4-round Feistel network over 38 bits, which is a
+ * bijection, so distinct IDs always give distinct codes. The result is written as exactly
+ * 7 base62 digits. Since 2^38 < 10 * 62^6, the leading digit is always 0-9, and that shape
+ * ({@code [0-9][0-9A-Za-z]{6}}) is reserved for generated codes.
+ */
+@Component
+public class AliasCodec {
+
+    public static final int CODE_LENGTH = 7;
+
+    private static final String ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+    private static final int HALF_BITS = 19;
+    private static final long HALF_MASK = (1L << HALF_BITS) - 1;
+    private static final int ROUNDS = 4;
+
+    /**
+     * Largest ID that can be encoded.
+     */
+    public static final long MAX_ID = (1L << (2 * HALF_BITS)) - 1;
+
+    private final long[] roundKeys = new long[ROUNDS];
+
+    /**
+     * @param key the secret key, as a decimal or {@code 0x} hexadecimal 64-bit number. Anyone
+     *            who knows it can decode generated aliases into IDs and enumerate every link,
+     *            and changing it changes the code every ID maps to, so it has no default.
+     */
+    public AliasCodec(@Value("${minilinkr.alias-codes.key:}") String key) {
+        if (key.isBlank()) {
+            throw new IllegalStateException("Set ALIAS_CODES_KEY (minilinkr.alias-codes.key) to a secret key"
+                    + " for generated aliases, such as 0x followed by the output of openssl rand -hex 8");
+        }
+        long seed = parseKey(key.strip());
+        for (int i = 0; i < ROUNDS; i++) {
+            seed = mix(seed + 0x9e3779b97f4a7c15L);
+            roundKeys[i] = seed;
+        }
+    }
+
+    /**
+     * Encodes an ID as a generated alias.
+     *
+     * @param id the ID, between 0 and {@link #MAX_ID}
+     * @return the 7-character code
+     */
+    public String encode(long id) {
+        if (id < 0 || id > MAX_ID) {
+            throw new IllegalArgumentException("ID out of range: " + id);
+        }
+        long value = permute(id);
+        char[] code = new char[CODE_LENGTH];
+        for (int i = CODE_LENGTH - 1; i >= 0; i--) {
+            code[i] = ALPHABET.charAt((int) (value % 62));
+            value /= 62;
+        }
+        return new String(code);
+    }
+
+    /**
+     * Decodes a generated alias back into its ID.
+     *
+     * @param code the 7-character code
+     * @return the ID the code was generated from
+     */
+    public long decode(String code) {
+        if (!isGenerated(code)) {
+            throw new IllegalArgumentException("Not a generated alias: " + code);
+        }
+        long value = 0;
+        for (int i = 0; i < CODE_LENGTH; i++) {
+            value = value * 62 + ALPHABET.indexOf(code.charAt(i));
+        }
+        if (value > MAX_ID) {
+            throw new IllegalArgumentException("Not a generated alias: " + code);
+        }
+        return unpermute(value);
+    }
+
+    /**
+     * Checks whether an alias falls in the namespace reserved for generated codes.
+     *
+     * @param alias the alias to check
+     * @return true if the alias has the shape of a generated code
+     */
+    public boolean isGenerated(String alias) {
+        if (alias == null || alias.length() != CODE_LENGTH) {
+            return false;
+        }
+        char first = alias.charAt(0);
+        if (first < '0' || first > '9') {
+            return false;
+        }
+        for (int i = 1; i < CODE_LENGTH; i++) {
+            char c = alias.charAt(i);
+            if (!((c >= '0' && c <= '9') || (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long permute(long value) {
+        long left = value >>> HALF_BITS;
+        long right = value & HALF_MASK;
+        for (int i = 0; i < ROUNDS; i++) {
+            long next = left ^ round(right, i);
+            left = right;
+            right = next;
+        }
+        return (left << HALF_BITS) | right;
+    }
+
+    private long unpermute(long value) {
+        long left = value >>> HALF_BITS;
+        long right = value & HALF_MASK;
+        for (int i = ROUNDS - 1; i >= 0; i--) {
+            long previous = right ^ round(left, i);
+            right = left;
+            left = previous;
+        }
+        return (left << HALF_BITS) | right;
+    }
+
+    private long round(long half, int i) {
+        return mix(half ^ roundKeys[i]) & HALF_MASK;
+    }
+
+    private static long parseKey(String key) {
+        try {
+            if (key.startsWith("0x") || key.startsWith("0X")) {
+                return Long.parseUnsignedLong(key.substring(2), 16);
+            }
+            return Long.parseLong(key);
+        } catch (NumberFormatException ex) {
+            throw new IllegalStateException("minilinkr.alias-codes.key must be a 64-bit decimal or 0x hexadecimal number", ex);
+        }
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,190 @@
+package com.minilinkr.api.service;
+
+import com.minilinkr.api.config.ReplicaRoutingDataSource;
+import com.minilinkr.api.repository.ShardedUrlMappingRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Negative-lookup filter over every existing alias.
+ *
+ * A Bloom filter sized from the {@code url_mappings} row count answers "definitely absent"
+ * without touching the database. It is built at startup, kept current on create, and
+ * rebuilt in the background once inserts, deletes or the observed false-positive rate
+ * outgrow the size it was built for. Until the first build completes every alias is
+ * reported as possibly present.
+ */
+@Component
+public class AliasFilter implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(AliasFilter.class);
+
+    // Don't judge the observed false-positive rate on too few samples
+    private static final long MIN_FPP_SAMPLES = 10_000;
+
+    private final ShardedUrlMappingRepository repository;
+    private final double fpp;
+    private final double growthFactor;
+    private final long minimumCapacity;
+
+    private volatile BloomFilter current;
+    private volatile BloomFilter building;
+
+    private final AtomicLong removals = new AtomicLong();
+    private final AtomicLong negatives = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+    private final AtomicLong rebuilds = new AtomicLong();
+
+    public AliasFilter(ShardedUrlMappingRepository repository,
+                       @Value("${minilinkr.alias-filter.fpp:0.01}") double fpp,
+                       @Value("${minilinkr.alias-filter.growth-factor:2.0}") double growthFactor,
+                       @Value("${minilinkr.alias-filter.minimum-capacity:10000}") long minimumCapacity) {
+        this.repository = repository;
+        this.fpp = fpp;
+        this.growthFactor = growthFactor;
+        this.minimumCapacity = minimumCapacity;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        rebuild();
+    }
+
+    /**
+     * Checks whether an alias may exist. A {@code false} answer is definite.
+     *
+     * @param alias the custom alias
+     * @return false if the alias certainly doesn't exist, true otherwise
+     */
+    public boolean mightContain(String alias) {
+        BloomFilter filter = current;
+        if (filter == null || filter.mightContain(alias)) {
+            return true;
+        }
+        negatives.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Records a newly created alias.
+     *
+     * @param alias the custom alias
+     */
+    public void add(String alias) {
+        // The filter being built first: rebuild() swaps it in before clearing building, so
+        // whichever of the two reads races the swap, the new filter gets the alias
+        BloomFilter next = building;
+        if (next != null) {
+            next.put(alias);
+        }
+        BloomFilter filter = current;
+        if (filter != null) {
+            filter.put(alias);
+        }
+    }
+
+    /**
+     * Records a deleted alias. Bloom filters can't forget, so this only counts towards the next rebuild.
+     */
+    public void recordRemoval() {
+        removals.incrementAndGet();
+    }
+
+    /**
+     * Records a lookup the filter let through that turned out not to exist.
+     */
+    public void recordFalsePositive() {
+        falsePositives.incrementAndGet();
+    }
+
+    /**
+     * Rebuilds the filter from the database, sized for the current row count,
+     * and swaps it in once complete. Aliases created meanwhile go to both filters.
+     */
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        // A replica could miss aliases created just before, which the filter would then reject
+        long rows = ReplicaRoutingDataSource.onPrimary(repository::count);
+        long capacity = Math.max(minimumCapacity, (long) (rows * growthFactor));
+
+        BloomFilter next = BloomFilter.create(capacity, fpp);
+        building = next;
+        try {
+            ReplicaRoutingDataSource.runOnPrimary(() -> repository.forEachAlias(next::put));
+            current = next;
+        } finally {
+            building = null;
+        }
+
+        removals.set(0);
+        negatives.set(0);
+        falsePositives.set(0);
+        rebuilds.incrementAndGet();
+        log.info("Alias filter built for {} aliases (capacity {}, {} bits) in {} ms",
+                next.insertions(), capacity, next.bitCount(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Rebuilds the filter when it has outgrown its capacity or no longer meets its target false-positive rate.
+     */
+    @Scheduled(fixedDelayString = "${minilinkr.alias-filter.check-interval:5m}",
+            initialDelayString = "${minilinkr.alias-filter.check-interval:5m}")
+    public void rebuildIfNeeded() {
+        BloomFilter filter = current;
+        if (filter == null) {
+            return;
+        }
+        boolean full = filter.insertions() + removals.get() > filter.expectedInsertions();
+        boolean inaccurate = falsePositives.get() + negatives.get() >= MIN_FPP_SAMPLES
+                && observedFpp() > 2 * fpp;
+        if (full || inaccurate) {
+            rebuild();
+        }
+    }
+
+    /**
+     * @return the fraction of lookups for missing aliases that the filter failed to reject
+     */
+    public double observedFpp() {
+        long fp = falsePositives.get();
+        long total = fp + negatives.get();
+        return total == 0 ? 0.0 : (double) fp / total;
+    }
+
+    /**
+     * @return the false-positive probability implied by the current fill, or 1 if the filter isn't built yet
+     */
+    public double expectedFpp() {
+        BloomFilter filter = current;
+        return filter == null ? 1.0 : filter.expectedFpp();
+    }
+
+    public long capacity() {
+        BloomFilter filter = current;
+        return filter == null ? 0 : filter.expectedInsertions();
+    }
+
+    public long insertions() {
+        BloomFilter filter = current;
+        return filter == null ? 0 : filter.insertions();
+    }
+
+    public long negatives() {
+        return negatives.get();
+    }
+
+    public long falsePositives() {
+        return falsePositives.get();
+    }
+
+    public long rebuilds() {
+        return rebuilds.get();
+    }
+}
@@ -0,0 +1,250 @@
+package com.minilinkr.api.service;
+
+import com.minilinkr.api.config.ReplicaRoutingDataSource;
+import com.minilinkr.api.model.AliasAvailability;
+import com.minilinkr.api.repository.ShardedUrlMappingRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory index of the custom aliases in use, to check availability and suggest free
+ * aliases without touching the database.
+ *
+ * Every custom alias and reserved word is held in an {@link AliasTrie}, rebuilt from the
+ * database every {@code minilinkr.alias-index.rebuild-interval}. Creates and deletes since
+ * the build, on this node or on others through the {@link AliasChangeFeed}, are kept in a
+ * sorted overlay that takes precedence over the trie. Generated codes aren't indexed: their
+ * namespace is never available to custom aliases, and leaving them out keeps the index to
+ * the aliases people chose.
+ */
+@Component
+public class AliasIndex implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(AliasIndex.class);
+
+    private static final int MIN_LENGTH = 3;
+
+    // Numbered suggestions stop here, so a crowded name can't make a request loop for long
+    private static final int MAX_SUFFIX = 1000;
+
+    private static final String[] SUFFIX_SEPARATORS = { "", "-" };
+
+    // A false change masks a deleted alias
+    private record Change(boolean present, long seq) {
+    }
+
+    private final ShardedUrlMappingRepository repository;
+    private final AliasCodec aliasCodec;
+    private final boolean enabled;
+
+    private final ConcurrentSkipListMap<String, Change> overlay = new ConcurrentSkipListMap<>();
+    private final AtomicLong seq = new AtomicLong();
+    private final AtomicLong rebuilds = new AtomicLong();
+
+    private volatile AliasTrie current;
+
+    public AliasIndex(ShardedUrlMappingRepository repository,
+                      AliasCodec aliasCodec,
+                      @Value("${minilinkr.alias-index.enabled:true}") boolean enabled) {
+        this.repository = repository;
+        this.aliasCodec = aliasCodec;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        rebuild();
+    }
+
+    /**
+     * Checks whether an alias can be used for a new link.
+     *
+     * @param alias       the custom alias, already checked against the alias pattern
+     * @param suggestions the number of available aliases close to it to return
+     * @return the availability of the alias, and the suggestions
+     * @throws IllegalStateException if the index isn't built yet or is disabled
+     */
+    public AliasAvailability checkAvailability(String alias, int suggestions) {
+        AliasTrie trie = requireTrie();
+        AliasAvailability.Reason reason = unavailableReason(trie, alias);
+        return new AliasAvailability(alias, reason == null, reason, suggest(trie, alias, suggestions));
+    }
+
+    /**
+     * Lists the custom aliases and reserved words in use that start with a prefix.
+     *
+     * @param prefix the prefix, empty for all aliases
+     * @param limit  the maximum number of aliases to return
+     * @return up to {@code limit} aliases, in byte order
+     * @throws IllegalStateException if the index isn't built yet or is disabled
+     */
+    public List<String> findTaken(String prefix, int limit) {
+        AliasTrie trie = requireTrie();
+        NavigableMap<String, Change> changes = prefix.isEmpty()
+                ? overlay
+                : overlay.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        // Each alias deleted since the build can take one of the trie's results away
+        long deleted = changes.values().stream().filter(change -> !change.present()).count();
+        TreeSet<String> taken = new TreeSet<>(trie.withPrefix(prefix, (int) Math.min(limit + deleted, Integer.MAX_VALUE)));
+        changes.forEach((alias, change) -> {
+            if (change.present()) {
+                taken.add(alias);
+            } else {
+                taken.remove(alias);
+            }
+        });
+        return taken.stream().limit(limit).toList();
+    }
+
+    /**
+     * Records a newly created alias.
+     *
+     * @param alias the alias
+     */
+    public void onCreated(String alias) {
+        if (enabled && !aliasCodec.isGenerated(alias)) {
+            overlay.put(alias, new Change(true, seq.incrementAndGet()));
+        }
+    }
+
+    /**
+     * Records a deleted alias. Reserved words stay taken.
+     *
+     * @param alias the alias
+     */
+    public void onDeleted(String alias) {
+        if (enabled && !aliasCodec.isGenerated(alias) && !ReservedAliases.contains(alias)) {
+            overlay.put(alias, new Change(false, seq.incrementAndGet()));
+        }
+    }
+
+    /**
+     * Rebuilds the trie from the database and swaps it in. On failure the current trie and
+     * the overlay stay in use.
+     */
+    @Scheduled(fixedDelayString = "${minilinkr.alias-index.rebuild-interval:10m}",
+            initialDelayString = "${minilinkr.alias-index.rebuild-interval:10m}")
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        // Changes recorded up to here were committed before the scan starts, so the new trie has them
+        long covered = seq.get();
+        AliasTrie next;
+        try {
+            next = AliasTrie.build(action -> {
+                ReservedAliases.WORDS.forEach(action);
+                // A replica could miss aliases created just before, which the index would then offer
+                ReplicaRoutingDataSource.runOnPrimary(() -> repository.forEachAlias(alias -> {
+                    if (!aliasCodec.isGenerated(alias)) {
+                        action.accept(alias);
+                    }
+                }));
+            });
+        } catch (RuntimeException ex) {
+            log.warn("Alias index rebuild failed, keeping the current one", ex);
+            return;
+        }
+        current = next;
+
+        overlay.entrySet().removeIf(entry -> entry.getValue().seq() <= covered);
+        rebuilds.incrementAndGet();
+        log.info("Alias index built with {} aliases ({} bytes) in {} ms",
+                next.size(), next.sizeInBytes(), System.currentTimeMillis() - start);
+    }
+
+    private AliasTrie requireTrie() {
+        AliasTrie trie = current;
+        if (trie == null) {
+            throw new IllegalStateException(enabled ? "Alias index is still loading" : "Alias index is disabled");
+        }
+        return trie;
+    }
+
+    private AliasAvailability.Reason unavailableReason(AliasTrie trie, String alias) {
+        if (ReservedAliases.contains(alias)) {
+            return AliasAvailability.Reason.RESERVED;
+        }
+        if (aliasCodec.isGenerated(alias)) {
+            return AliasAvailability.Reason.GENERATED;
+        }
+        Change change = overlay.get(alias);
+        boolean taken = change != null ? change.present() : trie.contains(alias);
+        return taken ? AliasAvailability.Reason.TAKEN : null;
+    }
+
+    // Separator variants first, then the alias with a number appended, truncated to fit if needed
+    private List<String> suggest(AliasTrie trie, String alias, int count) {
+        List<String> suggestions = new ArrayList<>(count);
+        if (count == 0) {
+            return suggestions;
+        }
+        Set<String> variants = new LinkedHashSet<>();
+        variants.add(alias.replace('-', '_'));
+        variants.add(alias.replace('_', '-'));
+        variants.add(alias.replace("-", "").replace("_", ""));
+        variants.remove(alias);
+        for (String variant : variants) {
+            addIfAvailable(trie, variant, suggestions, count);
+        }
+        for (int n = 1; n <= MAX_SUFFIX && suggestions.size() < count; n++) {
+            String suffix = Integer.toString(n);
+            for (String separator : SUFFIX_SEPARATORS) {
+                int keep = Math.min(alias.length(), AliasTrie.MAX_LENGTH - separator.length() - suffix.length());
+                addIfAvailable(trie, alias.substring(0, keep) + separator + suffix, suggestions, count);
+            }
+        }
+        return suggestions;
+    }
+
+    private void addIfAvailable(AliasTrie trie, String candidate, List<String> suggestions, int count) {
+        if (suggestions.size() < count
+                && candidate.length() >= MIN_LENGTH
+                && AliasTrie.isIndexable(candidate)
+                && !suggestions.contains(candidate)
+                && unavailableReason(trie, candidate) == null) {
+            suggestions.add(candidate);
+        }
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    public boolean ready() {
+        return current != null;
+    }
+
+    public long entries() {
+        AliasTrie trie = current;
+        return trie == null ? 0 : trie.size();
+    }
+
+    public long sizeInBytes() {
+        AliasTrie trie = current;
+        return trie == null ? 0 : trie.sizeInBytes();
+    }
+
+    public int overlaySize() {
+        return overlay.size();
+    }
+
+    public long rebuilds() {
+        return rebuilds.get();
+    }
+}
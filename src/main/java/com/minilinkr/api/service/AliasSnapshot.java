@@ -0,0 +1,288 @@
+package com.minilinkr.api.service;
+
+import com.minilinkr.api.model.UrlMapping;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Immutable, memory-mapped {@code alias -> originalUrl} index stored in a single file,
+ * carrying each link's expiry and redirect policy so redirects need nothing from the database.
+ *
+ * Layout, all integers big-endian:
+ * <pre>
+ *   header   magic "MLSX" | version | builtAt (epoch ms) | entries | slots | highest ID (long)
+ *            | source length (u16) | source (UTF-8)
+ *   slots    one int per slot: offset of the record relative to the data section, plus one; 0 = empty
+ *   data     per record: alias length (u16) | alias (UTF-8) | expiresAt (epoch ms, 0 = never)
+ *            | redirect status (u16, 0 = default) | immutable (byte) | url length (int) | url (UTF-8)
+ * </pre>
+ * The slot table is an open-addressing hash table with linear probing, at most half full,
+ * so a lookup is a hash, usually one probe and one key comparison, all off-heap.
+ * A single mapping limits the file to 2 GB.
+ *
+ * The source names the database the snapshot was read from, and the highest ID is that of the
+ * newest mapping in it, so a file left behind by another database, or by one since recreated
+ * under the same URL, can be told apart from a current one.
+ */
+final class AliasSnapshot {
+
+    private static final int MAGIC = 0x4D4C5358;
+    private static final int VERSION = 4;
+    private static final int FIXED_HEADER_SIZE = 4 + 4 + 8 + 8 + 4 + 8 + 2;
+
+    private final MappedByteBuffer buffer;
+    private final long builtAt;
+    private final long entries;
+    private final long highestId;
+    private final String source;
+    private final int slotsStart;
+    private final int slotMask;
+    private final int dataStart;
+
+    private AliasSnapshot(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Not an alias snapshot, or an unsupported version");
+        }
+        this.builtAt = buffer.getLong(8);
+        this.entries = buffer.getLong(16);
+        int slots = buffer.getInt(24);
+        this.highestId = buffer.getLong(28);
+        byte[] sourceBytes = new byte[buffer.getShort(36) & 0xFFFF];
+        buffer.get(FIXED_HEADER_SIZE, sourceBytes);
+        this.source = new String(sourceBytes, StandardCharsets.UTF_8);
+        this.slotsStart = FIXED_HEADER_SIZE + sourceBytes.length;
+        this.slotMask = slots - 1;
+        this.dataStart = slotsStart + slots * 4;
+    }
+
+    /**
+     * Maps a snapshot file into memory.
+     *
+     * @param file the snapshot file
+     */
+    static AliasSnapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            return new AliasSnapshot(buffer);
+        }
+    }
+
+    /**
+     * Writes a snapshot file from a stream of mappings. Records are spooled to a temporary
+     * file first, since the slot table size is only known once every mapping has been seen.
+     *
+     * @param file     the snapshot file to write
+     * @param source   names the database the mappings are read from
+     * @param mappings feeds every mapping to the given consumer
+     */
+    static void write(Path file, String source, Consumer<Consumer<UrlMapping>> mappings) throws IOException {
+        Path spoolFile = Files.createTempFile(file.getParent(), "snapshot", ".spool");
+        try {
+            Spool spool;
+            try (CountingOutputStream out = new CountingOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(spoolFile), 1 << 16))) {
+                spool = new Spool(out);
+                mappings.accept(spool);
+                spool.data.flush();
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+
+            int slots = Integer.highestOneBit(Math.max(2, spool.count * 2 - 1)) << 1;
+            int mask = slots - 1;
+            int[] table = new int[slots];
+            for (int i = 0; i < spool.count; i++) {
+                int slot = (int) spool.hashes[i] & mask;
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = spool.offsets[i] + 1;
+            }
+
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16)) {
+                DataOutputStream header = new DataOutputStream(out);
+                header.writeInt(MAGIC);
+                header.writeInt(VERSION);
+                header.writeLong(System.currentTimeMillis());
+                header.writeLong(spool.count);
+                header.writeInt(slots);
+                header.writeLong(spool.highestId);
+                byte[] sourceBytes = source.getBytes(StandardCharsets.UTF_8);
+                header.writeShort(sourceBytes.length);
+                header.write(sourceBytes);
+                ByteBuffer slotBytes = ByteBuffer.allocate(slots * 4);
+                slotBytes.asIntBuffer().put(table);
+                out.write(slotBytes.array());
+                Files.copy(spoolFile, out);
+            }
+        } finally {
+            Files.deleteIfExists(spoolFile);
+        }
+    }
+
+    /**
+     * Looks up an alias.
+     *
+     * @param alias the custom alias
+     * @return a plain mapping with the alias, original URL, expiry and redirect policy,
+     *         or null if the alias isn't in the snapshot
+     */
+    UrlMapping get(String alias) {
+        byte[] key = alias.getBytes(StandardCharsets.UTF_8);
+        int slot = (int) hash(key, key.length) & slotMask;
+        while (true) {
+            int offset = buffer.getInt(slotsStart + slot * 4);
+            if (offset == 0) {
+                return null;
+            }
+            int record = dataStart + offset - 1;
+            if (matches(record, key)) {
+                int expiresAt = record + 2 + key.length;
+                int redirectStatus = expiresAt + 8;
+                int urlAt = redirectStatus + 3;
+                byte[] url = new byte[buffer.getInt(urlAt)];
+                buffer.get(urlAt + 4, url);
+
+                UrlMapping mapping = new UrlMapping();
+                mapping.setAlias(alias);
+                mapping.setOriginalUrl(new String(url, StandardCharsets.UTF_8));
+                long expiresAtMillis = buffer.getLong(expiresAt);
+                mapping.setExpiresAt(expiresAtMillis == 0 ? null : Instant.ofEpochMilli(expiresAtMillis));
+                int status = buffer.getShort(redirectStatus) & 0xFFFF;
+                mapping.setRedirectStatus(status == 0 ? null : status);
+                mapping.setImmutable(buffer.get(redirectStatus + 2) != 0);
+                return mapping;
+            }
+            slot = (slot + 1) & slotMask;
+        }
+    }
+
+    long builtAt() {
+        return builtAt;
+    }
+
+    long entries() {
+        return entries;
+    }
+
+    /**
+     * @return the ID of the newest mapping in the snapshot, or 0 if it is empty
+     */
+    long highestId() {
+        return highestId;
+    }
+
+    /**
+     * @return the database the snapshot was read from
+     */
+    String source() {
+        return source;
+    }
+
+    long sizeInBytes() {
+        return buffer.capacity();
+    }
+
+    private boolean matches(int record, byte[] key) {
+        int length = buffer.getShort(record) & 0xFFFF;
+        if (length != key.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(record + 2 + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long hash(byte[] bytes, int length) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < length; i++) {
+            h = (h ^ bytes[i]) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    // Writes records to the data section and remembers each one's hash and offset for the slot table
+    private static final class Spool implements Consumer<UrlMapping> {
+        private final CountingOutputStream out;
+        private final DataOutputStream data;
+        private long[] hashes = new long[1024];
+        private int[] offsets = new int[1024];
+        private int count;
+        private long highestId;
+
+        Spool(CountingOutputStream out) {
+            this.out = out;
+            this.data = new DataOutputStream(out);
+        }
+
+        @Override
+        public void accept(UrlMapping mapping) {
+            byte[] alias = mapping.getAlias().getBytes(StandardCharsets.UTF_8);
+            byte[] url = mapping.getOriginalUrl().getBytes(StandardCharsets.UTF_8);
+            if (count == hashes.length) {
+                hashes = Arrays.copyOf(hashes, count * 2);
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+            hashes[count] = hash(alias, alias.length);
+            offsets[count] = Math.toIntExact(out.count());
+            try {
+                data.writeShort(alias.length);
+                data.write(alias);
+                data.writeLong(mapping.getExpiresAt() == null ? 0 : mapping.getExpiresAt().toEpochMilli());
+                data.writeShort(mapping.getRedirectStatus() == null ? 0 : mapping.getRedirectStatus());
+                data.writeByte(mapping.isImmutable() ? 1 : 0);
+                data.writeInt(url.length);
+                data.write(url);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            if (mapping.getId() != null) {
+                highestId = Math.max(highestId, mapping.getId());
+            }
+            count++;
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        long count() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.minilinkr.api.service;
+
+import com.minilinkr.api.config.ReplicaRoutingDataSource;
+import com.minilinkr.api.model.UrlMapping;
+import com.minilinkr.api.repository.ShardedUrlMappingRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Redirect index that keeps answering while the database is slow or unavailable.
+ *
+ * Every {@code alias -> originalUrl} mapping, with its expiry and redirect policy, is
+ * periodically written to an {@link AliasSnapshot} file and memory-mapped, so lookups stay
+ * off-heap and a restart can serve from the last file right away. Creates and deletes made
+ * by this node since the snapshot was built are kept in an in-memory overlay that takes
+ * precedence over the file. A rebuilt snapshot is moved into place atomically and swapped
+ * in, after which the overlay entries it already covers are dropped.
+ *
+ * Changes made by other nodes reach the overlay through the {@link AliasChangeFeed}.
+ *
+ * A snapshot records which database it was read from and its newest mapping's ID. One left
+ * by a run against another database, or against one recreated since, e.g. in memory, is
+ * not loaded.
+ */
+@Component
+public class AliasSnapshotIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(AliasSnapshotIndex.class);
+
+    private static final String FILE_NAME = "aliases.idx";
+
+    // A null mapping masks a deleted alias
+    private record Change(UrlMapping mapping, long seq) {
+    }
+
+    private final ShardedUrlMappingRepository repository;
+    private final boolean enabled;
+    private final Path file;
+    private final Duration maxAge;
+    private final String source;
+
+    private final ConcurrentHashMap<String, Change> overlay = new ConcurrentHashMap<>();
+    private final AtomicLong seq = new AtomicLong();
+    private final AtomicLong rebuilds = new AtomicLong();
+
+    private volatile AliasSnapshot current;
+
+    public AliasSnapshotIndex(ShardedUrlMappingRepository repository,
+                              @Value("${minilinkr.snapshot.enabled:true}") boolean enabled,
+                              @Value("${minilinkr.snapshot.dir:${java.io.tmpdir}/minilinkr}") Path dir,
+                              @Value("${minilinkr.snapshot.max-age:1h}") Duration maxAge,
+                              @Value("${spring.datasource.url:}") String datasourceUrl,
+                              @Value("${minilinkr.shards.urls:}") String shardUrls) {
+        this.repository = repository;
+        this.enabled = enabled;
+        this.file = dir.resolve(FILE_NAME);
+        this.maxAge = maxAge;
+        this.source = sourceOf(datasourceUrl + "|" + shardUrls);
+    }
+
+    /**
+     * Maps the snapshot left by a previous run, unless it is too old to be trusted.
+     */
+    @PostConstruct
+    public void load() {
+        if (!enabled || !Files.exists(file)) {
+            return;
+        }
+        try {
+            AliasSnapshot snapshot = AliasSnapshot.open(file);
+            if (!snapshot.source().equals(source)) {
+                log.info("Ignoring alias snapshot read from another database");
+                return;
+            }
+            if (snapshot.highestId() > 0 && !repository.containsIdAtLeast(snapshot.highestId())) {
+                log.info("Ignoring alias snapshot with mappings up to ID {}, newer than the database's",
+                        snapshot.highestId());
+                return;
+            }
+            long age = System.currentTimeMillis() - snapshot.builtAt();
+            if (age > maxAge.toMillis()) {
+                log.info("Ignoring alias snapshot built {} s ago", age / 1000);
+                return;
+            }
+            current = snapshot;
+            log.info("Loaded alias snapshot with {} aliases built {} s ago", snapshot.entries(), age / 1000);
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Could not load alias snapshot {}", file, ex);
+        }
+    }
+
+    /**
+     * Looks up an alias in the overlay, then in the snapshot. The result may have expired.
+     *
+     * @param alias the custom alias
+     * @return a plain mapping with the alias, original URL, expiry and redirect policy, or null if the index
+     *         can't answer and the database must be asked
+     */
+    public UrlMapping get(String alias) {
+        Change change = overlay.get(alias);
+        if (change != null) {
+            return change.mapping();
+        }
+        AliasSnapshot snapshot = current;
+        return snapshot == null ? null : snapshot.get(alias);
+    }
+
+    /**
+     * Records a newly created mapping.
+     *
+     * @param mapping the saved mapping
+     */
+    public void onCreated(UrlMapping mapping) {
+        if (enabled) {
+            UrlMapping target = new UrlMapping();
+            target.setAlias(mapping.getAlias());
+            target.setOriginalUrl(mapping.getOriginalUrl());
+            target.setExpiresAt(mapping.getExpiresAt());
+            target.setRedirectStatus(mapping.getRedirectStatus());
+            target.setImmutable(mapping.isImmutable());
+            overlay.put(mapping.getAlias(), new Change(target, seq.incrementAndGet()));
+        }
+    }
+
+    /**
+     * Stops the snapshot answering for an alias until the next rebuild, so its lookups go to
+     * the database. Used for deleted aliases, and for aliases changed by another node.
+     *
+     * @param alias the custom alias
+     */
+    public void invalidate(String alias) {
+        if (enabled) {
+            overlay.put(alias, new Change(null, seq.incrementAndGet()));
+        }
+    }
+
+    /**
+     * Writes a new snapshot from the database and swaps it in. On failure the current snapshot
+     * and the overlay stay in use.
+     */
+    @Scheduled(fixedDelayString = "${minilinkr.snapshot.rebuild-interval:5m}", initialDelay = 0)
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        // Changes recorded up to here were committed before the scan starts, so the new file has them
+        long covered = seq.get();
+        try {
+            Files.createDirectories(file.getParent());
+            Path next = Files.createTempFile(file.getParent(), FILE_NAME, ".tmp");
+            try {
+                // Read the primary: overlay entries dropped after the swap must be in the file
+                ReplicaRoutingDataSource.runOnPrimary(() -> {
+                    try {
+                        AliasSnapshot.write(next, source, repository::forEachMapping);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+                Files.move(next, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(next);
+            }
+            current = AliasSnapshot.open(file);
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Alias snapshot rebuild failed, keeping the current one", ex);
+            return;
+        }
+
+        overlay.entrySet().removeIf(entry -> entry.getValue().seq() <= covered);
+        rebuilds.incrementAndGet();
+        log.info("Alias snapshot built with {} aliases ({} bytes) in {} ms",
+                current.entries(), current.sizeInBytes(), System.currentTimeMillis() - start);
+    }
+
+    // Hashed, since the URLs may carry credentials and the file sits in a shared directory
+    private static String sourceOf(String urls) {
+        try {
+            return HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-256").digest(urls.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    public long entries() {
+        AliasSnapshot snapshot = current;
+        return snapshot == null ? 0 : snapshot.entries();
+    }
+
+    public long sizeInBytes() {
+        AliasSnapshot snapshot = current;
+        return snapshot == null ? 0 : snapshot.sizeInBytes();
+    }
+
+    /**
+     * @return when the current snapshot was built, in epoch milliseconds, or 0 if there is none
+     */
+    public long builtAt() {
+        AliasSnapshot snapshot = current;
+        return snapshot == null ? 0 : snapshot.builtAt();
+    }
+
+    public int overlaySize() {
+        return overlay.size();
+    }
+
+    public long rebuilds() {
+        return rebuilds.get();
+    }
+}
@@ -0,0 +1,361 @@
+package com.minilinkr.api.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * Immutable radix tree over a set of aliases, laid out in flat arrays rather than node objects.
+ *
+ * Nodes are numbered in breadth-first order, so the children of a node are consecutive and
+ * sorted by the first byte of their edge label; a node stores where its label starts in a
+ * shared byte pool, the label length, its first child and child count, and a terminal bit.
+ * That is 10 bytes and a bit per node, plus the label bytes, with at most two nodes per alias.
+ *
+ * Only aliases of up to {@value #MAX_LENGTH} characters from the custom alias alphabet
+ * ({@code A-Z a-z 0-9 _ -}) are kept, which is every alias that can be requested.
+ */
+final class AliasTrie {
+
+    static final int MAX_LENGTH = 30;
+
+    private static final int INSERTION_SORT_THRESHOLD = 12;
+
+    private final byte[] labels;
+    private final int[] labelStart;
+    private final byte[] labelLength;
+    private final int[] firstChild;
+    private final byte[] childCount;
+    private final long[] terminal;
+    private final int size;
+
+    private AliasTrie(byte[] labels, int[] labelStart, byte[] labelLength, int[] firstChild,
+                      byte[] childCount, long[] terminal, int size) {
+        this.labels = labels;
+        this.labelStart = labelStart;
+        this.labelLength = labelLength;
+        this.firstChild = firstChild;
+        this.childCount = childCount;
+        this.terminal = terminal;
+        this.size = size;
+    }
+
+    /**
+     * Builds a trie from aliases in any order. They are packed into a byte array and sorted
+     * there first, so the build doesn't hold a String per alias.
+     *
+     * @param source feeds every alias to the given consumer; duplicates are allowed
+     */
+    static AliasTrie build(Consumer<Consumer<String>> source) {
+        KeyPool pool = new KeyPool();
+        source.accept(pool::add);
+        int[] keys = pool.sortedUniqueKeys();
+        return new Builder(pool, keys).build();
+    }
+
+    /**
+     * @param alias the alias
+     * @return true if the alias is in the trie
+     */
+    boolean contains(String alias) {
+        int node = 0;
+        int pos = 0;
+        while (pos < alias.length()) {
+            int child = findChild(node, alias.charAt(pos));
+            if (child < 0) {
+                return false;
+            }
+            int length = labelLength[child];
+            if (pos + length > alias.length() || !labelMatches(child, alias, pos, length)) {
+                return false;
+            }
+            pos += length;
+            node = child;
+        }
+        return isTerminal(node);
+    }
+
+    /**
+     * Lists aliases starting with a prefix, in byte order.
+     *
+     * @param prefix the prefix, empty for all aliases
+     * @param limit  the maximum number of aliases to return
+     * @return up to {@code limit} aliases
+     */
+    List<String> withPrefix(String prefix, int limit) {
+        List<String> found = new ArrayList<>(Math.min(limit, 64));
+        int node = 0;
+        int pos = 0;
+        StringBuilder path = new StringBuilder(MAX_LENGTH);
+        while (pos < prefix.length()) {
+            int child = findChild(node, prefix.charAt(pos));
+            if (child < 0) {
+                return found;
+            }
+            int length = labelLength[child];
+            int compared = Math.min(length, prefix.length() - pos);
+            if (!labelMatches(child, prefix, pos, compared)) {
+                return found;
+            }
+            appendLabel(path, child);
+            pos += length;
+            node = child;
+        }
+        collect(node, path, found, limit);
+        return found;
+    }
+
+    // Depth-first, so aliases come out in byte order
+    private void collect(int node, StringBuilder path, List<String> found, int limit) {
+        if (isTerminal(node)) {
+            found.add(path.toString());
+        }
+        int first = firstChild[node];
+        int count = childCount[node];
+        for (int child = first; child < first + count && found.size() < limit; child++) {
+            int length = path.length();
+            appendLabel(path, child);
+            collect(child, path, found, limit);
+            path.setLength(length);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    long sizeInBytes() {
+        return labels.length + 4L * labelStart.length + labelLength.length + 4L * firstChild.length
+                + childCount.length + 8L * terminal.length;
+    }
+
+    private int findChild(int node, char c) {
+        int low = firstChild[node];
+        int high = low + childCount[node] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int first = labels[labelStart[mid]];
+            if (first < c) {
+                low = mid + 1;
+            } else if (first > c) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private boolean labelMatches(int node, String text, int from, int length) {
+        int start = labelStart[node];
+        for (int i = 0; i < length; i++) {
+            if (labels[start + i] != text.charAt(from + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void appendLabel(StringBuilder path, int node) {
+        int start = labelStart[node];
+        for (int i = 0; i < labelLength[node]; i++) {
+            path.append((char) labels[start + i]);
+        }
+    }
+
+    private boolean isTerminal(int node) {
+        return (terminal[node >>> 6] & (1L << node)) != 0;
+    }
+
+    static boolean isIndexable(String alias) {
+        if (alias.isEmpty() || alias.length() > MAX_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < alias.length(); i++) {
+            char c = alias.charAt(i);
+            if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '-' || c == '_')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Aliases packed as a length byte followed by ASCII bytes, addressed by offset
+    private static final class KeyPool {
+        private byte[] bytes = new byte[1 << 16];
+        private int used;
+        private int[] offsets = new int[1024];
+        private int count;
+
+        void add(String alias) {
+            if (!isIndexable(alias)) {
+                return;
+            }
+            if (used + alias.length() + 1 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, used + alias.length() + 1));
+            }
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+            offsets[count++] = used;
+            bytes[used++] = (byte) alias.length();
+            for (int i = 0; i < alias.length(); i++) {
+                bytes[used++] = (byte) alias.charAt(i);
+            }
+        }
+
+        int length(int key) {
+            return bytes[key];
+        }
+
+        // The byte at a depth of a key, or -1 past its end
+        int byteAt(int key, int depth) {
+            return depth < bytes[key] ? bytes[key + 1 + depth] : -1;
+        }
+
+        int[] sortedUniqueKeys() {
+            int[] keys = Arrays.copyOf(offsets, count);
+            offsets = null;
+            sort(keys, 0, keys.length - 1, 0);
+            int unique = 0;
+            for (int i = 0; i < keys.length; i++) {
+                if (unique == 0 || compare(keys[unique - 1], keys[i], 0) != 0) {
+                    keys[unique++] = keys[i];
+                }
+            }
+            return Arrays.copyOf(keys, unique);
+        }
+
+        // Multikey quicksort: three-way partition on the byte at the current depth
+        private void sort(int[] keys, int low, int high, int depth) {
+            while (high - low >= INSERTION_SORT_THRESHOLD) {
+                swap(keys, low, ThreadLocalRandom.current().nextInt(low, high + 1));
+                int pivot = byteAt(keys[low], depth);
+                int lt = low;
+                int gt = high;
+                int i = low + 1;
+                while (i <= gt) {
+                    int b = byteAt(keys[i], depth);
+                    if (b < pivot) {
+                        swap(keys, lt++, i++);
+                    } else if (b > pivot) {
+                        swap(keys, i, gt--);
+                    } else {
+                        i++;
+                    }
+                }
+                sort(keys, low, lt - 1, depth);
+                sort(keys, gt + 1, high, depth);
+                if (pivot < 0) {
+                    return;
+                }
+                low = lt;
+                high = gt;
+                depth++;
+            }
+            for (int i = low + 1; i <= high; i++) {
+                for (int j = i; j > low && compare(keys[j - 1], keys[j], depth) > 0; j--) {
+                    swap(keys, j - 1, j);
+                }
+            }
+        }
+
+        private int compare(int a, int b, int depth) {
+            while (true) {
+                int x = byteAt(a, depth);
+                int y = byteAt(b, depth);
+                if (x != y || x < 0) {
+                    return x - y;
+                }
+                depth++;
+            }
+        }
+
+        private static void swap(int[] keys, int i, int j) {
+            int key = keys[i];
+            keys[i] = keys[j];
+            keys[j] = key;
+        }
+    }
+
+    // Lays the nodes out breadth-first from the sorted keys; each node covers a range of keys
+    private static final class Builder {
+        private final KeyPool pool;
+        private final int[] keys;
+
+        Builder(KeyPool pool, int[] keys) {
+            this.pool = pool;
+            this.keys = keys;
+        }
+
+        AliasTrie build() {
+            int capacity = 2 * keys.length + 1;
+            byte[] labels = new byte[pool.used];
+            int[] labelStart = new int[capacity];
+            byte[] labelLength = new byte[capacity];
+            int[] firstChild = new int[capacity];
+            byte[] childCount = new byte[capacity];
+            long[] terminal = new long[(capacity + 63) >>> 6];
+            // Only needed while building: the key range and depth each pending node starts at
+            int[] rangeLow = new int[capacity];
+            int[] rangeHigh = new int[capacity];
+            byte[] depths = new byte[capacity];
+
+            rangeHigh[0] = keys.length;
+            int nodes = 1;
+            int labelsUsed = 0;
+            for (int node = 0; node < nodes; node++) {
+                int low = rangeLow[node];
+                int high = rangeHigh[node];
+                int depth = depths[node];
+
+                // The label runs to where the first and last keys of the range part ways
+                int end = node == 0 ? 0 : commonPrefix(keys[low], keys[high - 1], depth);
+                labelStart[node] = labelsUsed;
+                labelLength[node] = (byte) (end - depth);
+                for (int i = depth; i < end; i++) {
+                    labels[labelsUsed++] = (byte) pool.byteAt(keys[low], i);
+                }
+
+                int i = low;
+                if (i < high && pool.length(keys[i]) == end) {
+                    terminal[node >>> 6] |= 1L << node;
+                    i++;
+                }
+                firstChild[node] = nodes;
+                int children = 0;
+                while (i < high) {
+                    int b = pool.byteAt(keys[i], end);
+                    int j = i + 1;
+                    while (j < high && pool.byteAt(keys[j], end) == b) {
+                        j++;
+                    }
+                    rangeLow[nodes] = i;
+                    rangeHigh[nodes] = j;
+                    depths[nodes] = (byte) end;
+                    nodes++;
+                    children++;
+                    i = j;
+                }
+                childCount[node] = (byte) children;
+            }
+
+            return new AliasTrie(Arrays.copyOf(labels, labelsUsed),
+                    Arrays.copyOf(labelStart, nodes),
+                    Arrays.copyOf(labelLength, nodes),
+                    Arrays.copyOf(firstChild, nodes),
+                    Arrays.copyOf(childCount, nodes),
+                    Arrays.copyOf(terminal, (nodes + 63) >>> 6),
+                    keys.length);
+        }
+
+        private int commonPrefix(int a, int b, int depth) {
+            while (pool.byteAt(a, depth) == pool.byteAt(b, depth) && pool.byteAt(a, depth) >= 0) {
+                depth++;
+            }
+            return depth;
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package com.minilinkr.api.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.minilinkr.api.model.BatchItemResult;
+import com.minilinkr.api.model.ImportCheckpoint;
+import com.minilinkr.api.model.ImportResult;
+import com.minilinkr.api.model.UrlMapping;
+import com.minilinkr.api.repository.ImportCheckpointRepository;
+import com.minilinkr.api.repository.ShardedImportRowRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Bulk import and export of URL mappings, streamed so neither side is held in memory.
+ *
+ * Imports are read one row at a time from CSV or NDJSON and created in batches through
+ * {@link UrlShorteningService#createBatch}, so they follow the same rules as the batch
+ * endpoint. After each batch the position in the upload is saved to
+ * {@code import_checkpoints}; uploading the same file again under the same ID resumes
+ * after the last saved batch.
+ *
+ * The checkpoint is on shard 0 and the mappings on every shard, so they can't be saved in
+ * one transaction. Instead each created row is recorded in {@code import_rows}, in the
+ * transaction of its mapping, and a resumed import skips the rows past its checkpoint that
+ * were created before it stopped, rather than creating them again under another alias.
+ *
+ * Imports and exports share a small budget of connections
+ * ({@code minilinkr.bulk.max-connections}), so the rest of the pool stays free for
+ * redirects. Import batches wait for a permit before they are written, which stops the
+ * upload from being read any further until one is free.
+ */
+@Service
+public class BulkTransferService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkTransferService.class);
+
+    public enum Format { CSV, NDJSON }
+
+    // One row of an upload: a mapping to create, or why the row couldn't be read as one
+    private record Row(UrlMapping mapping, String error) {
+    }
+
+    @FunctionalInterface
+    private interface RowSource {
+        Row next() throws IOException;
+    }
+
+    // What one import request has done so far, on top of the checkpoint it resumed from
+    private static final class Progress {
+        private final ImportCheckpoint checkpoint;
+        private final long baseCreated;
+        private final long baseConflicts;
+        private final long baseInvalid;
+        private final List<BatchItemResult> errors = new ArrayList<>();
+        private long created;
+        private long conflicts;
+        private long invalid;
+
+        Progress(ImportCheckpoint checkpoint) {
+            this.checkpoint = checkpoint;
+            this.baseCreated = checkpoint.getCreated();
+            this.baseConflicts = checkpoint.getConflicts();
+            this.baseInvalid = checkpoint.getInvalid();
+        }
+
+        // Moves the checkpoint to the end of the last written batch
+        void advance(long rows) {
+            checkpoint.setRows(rows);
+            checkpoint.setCreated(baseCreated + created);
+            checkpoint.setConflicts(baseConflicts + conflicts);
+            checkpoint.setInvalid(baseInvalid + invalid);
+            checkpoint.setUpdatedAt(Instant.now());
+        }
+    }
+
+    private final UrlShorteningService service;
+    private final ImportCheckpointRepository checkpoints;
+    private final ShardedImportRowRepository importRows;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectReader mappingReader;
+    private final int batchSize;
+    private final int maxErrors;
+    private final Duration acquireTimeout;
+    private final Semaphore permits;
+
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+    private final Counter createdRows;
+    private final Counter conflictRows;
+    private final Counter invalidRows;
+
+    public BulkTransferService(UrlShorteningService service,
+                               ImportCheckpointRepository checkpoints,
+                               ShardedImportRowRepository importRows,
+                               TransactionTemplate transactionTemplate,
+                               ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry,
+                               @Value("${minilinkr.bulk.batch-size:1000}") int batchSize,
+                               @Value("${minilinkr.bulk.max-errors:100}") int maxErrors,
+                               @Value("${minilinkr.bulk.max-connections:2}") int maxConnections,
+                               @Value("${minilinkr.bulk.acquire-timeout:30s}") Duration acquireTimeout) {
+        this.service = service;
+        this.checkpoints = checkpoints;
+        this.importRows = importRows;
+        this.transactionTemplate = transactionTemplate;
+        this.mappingReader = objectMapper.readerFor(UrlMapping.class);
+        this.batchSize = batchSize;
+        this.maxErrors = maxErrors;
+        this.acquireTimeout = acquireTimeout;
+        this.permits = new Semaphore(maxConnections, true);
+        this.createdRows = importCounter(meterRegistry, "created");
+        this.conflictRows = importCounter(meterRegistry, "conflict");
+        this.invalidRows = importCounter(meterRegistry, "invalid");
+    }
+
+    private static Counter importCounter(MeterRegistry registry, String result) {
+        return Counter.builder("minilinkr.import.rows")
+                .description("Imported rows by outcome")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    /**
+     * Imports mappings from an upload, resuming after the last saved batch of an earlier
+     * import with the same ID.
+     *
+     * @param id     the import ID, or null to start a new import with a generated one
+     * @param format the format of the upload
+     * @param body   the upload
+     * @return the counts of this request, its throughput and the first rows that weren't created
+     * @throws IOException if the upload can't be read
+     * @throws IllegalArgumentException if the upload is malformed as a whole, such as a CSV without a header
+     * @throws IllegalStateException if the import is already running or has completed
+     * @throws RejectedExecutionException if no bulk connection became free in time; the import can be resumed
+     */
+    public ImportResult importMappings(String id, Format format, Reader body) throws IOException {
+        String importId = id == null || id.isBlank() ? UUID.randomUUID().toString() : id;
+        if (!running.add(importId)) {
+            throw new IllegalStateException("Import " + importId + " is already running");
+        }
+        try {
+            return runImport(importId, format, new BufferedReader(body));
+        } finally {
+            running.remove(importId);
+        }
+    }
+
+    private ImportResult runImport(String importId, Format format, BufferedReader body) throws IOException {
+        // Read in a read-write transaction, so it comes from the primary rather than a lagging replica
+        ImportCheckpoint checkpoint = transactionTemplate.execute(status -> checkpoints.findById(importId))
+                .orElseGet(() -> new ImportCheckpoint(importId, Instant.now()));
+        if (checkpoint.isCompleted()) {
+            throw new IllegalStateException("Import " + importId + " has already completed");
+        }
+        long skipped = checkpoint.getRows();
+        // Created by an earlier attempt after its last checkpoint
+        Map<Long, String> alreadyCreated = importRows.findFrom(importId, skipped);
+        RowSource source = format == Format.CSV ? csvRows(body) : ndjsonRows(body);
+
+        long start = System.nanoTime();
+        Progress progress = new Progress(checkpoint);
+        List<UrlMapping> batch = new ArrayList<>(batchSize);
+        List<Long> batchRows = new ArrayList<>(batchSize);
+        long row = 0;
+        try {
+            for (Row next = source.next(); next != null; next = source.next(), row++) {
+                if (row < skipped) {
+                    continue;
+                }
+                if (alreadyCreated.containsKey(row)) {
+                    // Counted in this request's result, but not again in the metrics
+                    progress.created++;
+                } else if (next.error() != null) {
+                    record(progress, new BatchItemResult(row, null, BatchItemResult.Status.INVALID, next.error()));
+                } else {
+                    batch.add(next.mapping());
+                    batchRows.add(row);
+                }
+                if (batch.size() == batchSize) {
+                    writeBatch(progress, batch, batchRows, row + 1);
+                }
+            }
+            if (row < skipped) {
+                throw new IllegalArgumentException("Import " + importId + " already processed " + skipped
+                        + " rows, but the upload only has " + row);
+            }
+            checkpoint.setCompleted(true);
+            writeBatch(progress, batch, batchRows, row);
+            importRows.delete(importId);
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Import {} stopped after row {}; upload the same file with the same ID to resume",
+                    importId, checkpoint.getRows());
+            throw ex;
+        }
+
+        // Rows that couldn't be parsed are recorded ahead of the batch they were read with
+        progress.errors.sort(Comparator.comparingLong(BatchItemResult::getIndex));
+        long processed = row - skipped;
+        long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        double rowsPerSecond = processed * 1000.0 / Math.max(durationMillis, 1);
+        log.info("Import {} processed {} rows in {} ms ({} rows/s): {} created, {} conflicts, {} invalid",
+                importId, processed, durationMillis, Math.round(rowsPerSecond),
+                progress.created, progress.conflicts, progress.invalid);
+        return new ImportResult(importId, processed, skipped, progress.created, progress.conflicts, progress.invalid,
+                durationMillis, rowsPerSecond, progress.errors);
+    }
+
+    // Creates a batch and saves the checkpoint after it, within one bulk connection permit
+    private void writeBatch(Progress progress, List<UrlMapping> batch, List<Long> batchRows, long rowsDone) {
+        acquire();
+        try {
+            if (!batch.isEmpty()) {
+                // Generated aliases are only known once createBatch has assigned them
+                Map<String, Long> rows = new HashMap<>();
+                List<BatchItemResult> results = service.createBatch(batch, aliases -> {
+                    if (rows.isEmpty()) {
+                        for (int i = 0; i < batch.size(); i++) {
+                            rows.putIfAbsent(batch.get(i).getAlias(), batchRows.get(i));
+                        }
+                    }
+                    importRows.record(progress.checkpoint.getId(), aliases, rows);
+                });
+                for (int i = 0; i < results.size(); i++) {
+                    BatchItemResult result = results.get(i);
+                    result.setIndex(batchRows.get(i));
+                    record(progress, result);
+                }
+            }
+            progress.advance(rowsDone);
+            transactionTemplate.executeWithoutResult(status -> checkpoints.save(progress.checkpoint));
+        } finally {
+            permits.release();
+        }
+        batch.clear();
+        batchRows.clear();
+    }
+
+    private void record(Progress progress, BatchItemResult result) {
+        switch (result.getStatus()) {
+            case CREATED -> {
+                progress.created++;
+                createdRows.increment();
+                return;
+            }
+            case CONFLICT -> {
+                progress.conflicts++;
+                conflictRows.increment();
+            }
+            case INVALID -> {
+                progress.invalid++;
+                invalidRows.increment();
+            }
+        }
+        if (progress.errors.size() < maxErrors) {
+            progress.errors.add(result);
+        }
+    }
+
+    /**
+     * Streams every URL mapping, holding one bulk connection permit for the whole export.
+     *
+     * @param action the callback invoked for each mapping
+     * @throws RejectedExecutionException if no bulk connection became free in time
+     */
+    public void exportMappings(Consumer<UrlMapping> action) {
+        acquire();
+        try {
+            service.forEachUrlMapping(action);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * @param id the import ID
+     * @return the saved progress of the import, if it has started
+     */
+    public Optional<ImportCheckpoint> getCheckpoint(String id) {
+        return checkpoints.findById(id);
+    }
+
+    private void acquire() {
+        try {
+            if (!permits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new RejectedExecutionException("No bulk transfer connection became free within " + acquireTimeout);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for a bulk transfer connection");
+        }
+    }
+
+    private RowSource csvRows(BufferedReader body) throws IOException {
+        MappingCsv.MappingReader reader = new MappingCsv.MappingReader(body);
+        return () -> {
+            List<String> record = reader.nextRecord();
+            if (record == null) {
+                return null;
+            }
+            try {
+                return new Row(reader.toMapping(record), null);
+            } catch (IllegalArgumentException ex) {
+                return new Row(null, ex.getMessage());
+            }
+        };
+    }
+
+    private RowSource ndjsonRows(BufferedReader body) {
+        return () -> {
+            String line;
+            do {
+                line = body.readLine();
+            } while (line != null && line.isBlank());
+            if (line == null) {
+                return null;
+            }
+            try {
+                return new Row(mappingReader.readValue(line), null);
+            } catch (JsonProcessingException ex) {
+                return new Row(null, "Malformed JSON: " + ex.getOriginalMessage());
+            }
+        };
+    }
+}
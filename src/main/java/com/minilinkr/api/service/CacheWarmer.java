@@ -0,0 +1,170 @@
+package com.minilinkr.api.service;
+
+import com.minilinkr.api.model.UrlMapping;
+import com.minilinkr.api.repository.ClickStatsRepository;
+import com.minilinkr.api.repository.ShardedUrlMappingRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fills the alias cache before the instance takes traffic, so a fresh deploy doesn't send
+ * its first minutes of redirects to the database.
+ *
+ * The most clicked aliases and the most recently created ones are loaded as redirect
+ * targets, in batches spread over a few threads, within a time budget. Runs as an
+ * {@link ApplicationRunner}, so the readiness state stays {@code REFUSING_TRAFFIC} until
+ * it completes or runs out of time. The readiness probe also shows how many aliases were
+ * loaded and how long it took.
+ */
+@Component
+public class CacheWarmer implements ApplicationRunner, HealthIndicator {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheWarmer.class);
+
+    private final ClickStatsRepository clickStatsRepository;
+    private final ShardedUrlMappingRepository repository;
+    private final AliasCache cache;
+    private final boolean enabled;
+    private final int topCount;
+    private final int recentCount;
+    private final int batchSize;
+    private final int parallelism;
+    private final Duration timeout;
+
+    private final AtomicInteger loaded = new AtomicInteger();
+    private volatile boolean complete;
+    private volatile boolean timedOut;
+    private volatile long durationMillis;
+
+    public CacheWarmer(ClickStatsRepository clickStatsRepository,
+                       ShardedUrlMappingRepository repository,
+                       AliasCache cache,
+                       @Value("${minilinkr.warm-up.enabled:true}") boolean enabled,
+                       @Value("${minilinkr.warm-up.top:10000}") int topCount,
+                       @Value("${minilinkr.warm-up.recent:10000}") int recentCount,
+                       @Value("${minilinkr.warm-up.batch-size:500}") int batchSize,
+                       @Value("${minilinkr.warm-up.parallelism:4}") int parallelism,
+                       @Value("${minilinkr.warm-up.timeout:30s}") Duration timeout) {
+        this.clickStatsRepository = clickStatsRepository;
+        this.repository = repository;
+        this.cache = cache;
+        this.enabled = enabled;
+        this.topCount = topCount;
+        this.recentCount = recentCount;
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            complete = true;
+            return;
+        }
+        long start = System.currentTimeMillis();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            Future<List<Callable<Void>>> plan = executor.submit(this::plan);
+            List<Callable<Void>> batches = plan.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            for (Future<Void> batch : executor.invokeAll(batches, deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                batch.get();
+            }
+        } catch (TimeoutException | CancellationException ex) {
+            timedOut = true;
+        } catch (ExecutionException ex) {
+            // A partly warm cache is still better than none, so the instance goes ready anyway
+            log.warn("Cache warm-up failed after loading {} aliases", loaded.get(), ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+            durationMillis = System.currentTimeMillis() - start;
+            complete = true;
+        }
+        if (timedOut) {
+            log.warn("Cache warm-up ran out of its {} budget after loading {} aliases", timeout, loaded.get());
+        } else {
+            log.info("Cache warm-up loaded {} aliases in {} ms", loaded.get(), durationMillis);
+        }
+    }
+
+    // Picks the aliases to load, and splits them into batches that each read one shard
+    private List<Callable<Void>> plan() {
+        Set<String> aliases = new LinkedHashSet<>();
+        if (topCount > 0) {
+            aliases.addAll(clickStatsRepository.findMostClicked(Limit.of(topCount)));
+        }
+        if (recentCount > 0) {
+            aliases.addAll(repository.findRecentAliases(recentCount));
+        }
+
+        Map<Integer, List<String>> byShard = new TreeMap<>();
+        for (String alias : aliases) {
+            byShard.computeIfAbsent(repository.shardFor(alias), shard -> new ArrayList<>()).add(alias);
+        }
+        List<Callable<Void>> batches = new ArrayList<>();
+        byShard.forEach((shard, shardAliases) -> {
+            for (int from = 0; from < shardAliases.size(); from += batchSize) {
+                List<String> batch = shardAliases.subList(from, Math.min(from + batchSize, shardAliases.size()));
+                batches.add(() -> {
+                    List<UrlMapping> targets = repository.findRedirectTargets(batch);
+                    cache.putAll(targets);
+                    loaded.addAndGet(targets.size());
+                    return null;
+                });
+            }
+        });
+        return batches;
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder health = complete ? Health.up() : Health.outOfService();
+        return health.withDetail("loaded", loaded.get())
+                .withDetail("duration_ms", durationMillis)
+                .withDetail("timed_out", timedOut)
+                .build();
+    }
+
+    public boolean complete() {
+        return complete;
+    }
+
+    public boolean timedOut() {
+        return timedOut;
+    }
+
+    public int loaded() {
+        return loaded.get();
+    }
+
+    public long durationMillis() {
+        return durationMillis;
+    }
+}
@@ -0,0 +1,164 @@
+package com.minilinkr.api.service;
+
+import com.minilinkr.api.model.ClickStats;
+import com.minilinkr.api.repository.ClickStatsRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-alias click counters with batched write-back.
+ *
+ * Redirects only bump a striped {@link LongAdder}, so the hot path never takes a lock or
+ * touches the database. A scheduled flusher drains the counters into {@code click_stats}
+ * with one batched UPDATE followed by one batched INSERT for the rows that didn't exist yet,
+ * both in a single transaction. A final flush runs when the context closes.
+ */
+@Component
+public class ClickCounter {
+
+    private static final Logger log = LoggerFactory.getLogger(ClickCounter.class);
+
+    private static final String UPDATE_SQL =
+            "UPDATE click_stats SET clicks = clicks + ?, updated_at = ? WHERE alias = ?";
+    private static final String INSERT_SQL =
+            "INSERT INTO click_stats (alias, clicks, updated_at) VALUES (?, ?, ?)";
+
+    private final ConcurrentHashMap<String, LongAdder> pending = new ConcurrentHashMap<>();
+
+    private final ClickStatsRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public ClickCounter(ClickStatsRepository repository,
+                        JdbcTemplate jdbcTemplate,
+                        TransactionTemplate transactionTemplate) {
+        this.repository = repository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Counts one click for an alias. Never blocks.
+     *
+     * @param alias the custom alias
+     */
+    public void record(String alias) {
+        LongAdder counter = pending.get(alias);
+        if (counter == null) {
+            counter = pending.computeIfAbsent(alias, k -> new LongAdder());
+        }
+        counter.increment();
+    }
+
+    /**
+     * Gets the total clicks for an alias, including those not flushed yet.
+     *
+     * @param alias the custom alias
+     * @return the click statistics for the alias
+     */
+    public ClickStats getClicks(String alias) {
+        ClickStats stats = repository.findById(alias).orElse(new ClickStats(alias, 0, null));
+        LongAdder counter = pending.get(alias);
+        if (counter != null) {
+            stats.setClicks(stats.getClicks() + counter.sum());
+        }
+        return stats;
+    }
+
+    /**
+     * Drops the clicks of an alias that haven't been flushed yet, e.g. after another node deleted it.
+     *
+     * @param alias the custom alias
+     */
+    public void discardPending(String alias) {
+        pending.remove(alias);
+    }
+
+    /**
+     * Drops all clicks recorded for the given aliases, with a single delete.
+     *
+     * @param aliases the custom aliases
+     */
+    public void reset(Collection<String> aliases) {
+        aliases.forEach(pending::remove);
+        repository.deleteAllByIdInBatch(aliases);
+    }
+
+    /**
+     * Drains the in-memory counters into {@code click_stats}. Counts that fail to
+     * persist, e.g. because another node inserted the same row concurrently, are
+     * put back and retried on the next flush.
+     */
+    @Scheduled(fixedDelayString = "${minilinkr.clicks.flush-interval:10s}")
+    public synchronized void flush() {
+        Map<String, Long> deltas = drain();
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        try {
+            upsert(deltas);
+        } catch (RuntimeException ex) {
+            deltas.forEach((alias, clicks) -> pending.computeIfAbsent(alias, k -> new LongAdder()).add(clicks));
+            log.warn("Failed to flush clicks for {} aliases, will retry", deltas.size(), ex);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private Map<String, Long> drain() {
+        Map<String, Long> deltas = new HashMap<>();
+        pending.forEach((alias, counter) -> {
+            // Idle counters stay in the map: a redirect may already hold one it is about to bump,
+            // and a counter removed under it would lose that click. Deleting the alias removes it.
+            long clicks = counter.sumThenReset();
+            if (clicks > 0) {
+                deltas.put(alias, clicks);
+            }
+        });
+        return deltas;
+    }
+
+    private void upsert(Map<String, Long> deltas) {
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> updates = new ArrayList<>(deltas.size());
+        List<String> aliases = new ArrayList<>(deltas.size());
+        deltas.forEach((alias, clicks) -> {
+            updates.add(new Object[] { clicks, now, alias });
+            aliases.add(alias);
+        });
+
+        transactionTemplate.executeWithoutResult(status -> {
+            int[] updated = jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+
+            List<Object[]> inserts = new ArrayList<>();
+            for (int i = 0; i < updated.length; i++) {
+                if (updated[i] == 0) {
+                    String alias = aliases.get(i);
+                    inserts.add(new Object[] { alias, deltas.get(alias), now });
+                }
+            }
+            if (!inserts.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_SQL, inserts);
+            }
+        });
+    }
+}
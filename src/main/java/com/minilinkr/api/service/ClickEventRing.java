@@ -0,0 +1,111 @@
+package com.minilinkr.api.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded, lock-free queue of click events with many producers and a single consumer.
+ *
+ * Events are spread over parallel arrays, so offering one allocates nothing. Each slot has a
+ * sequence number telling whether it is free for the producer claiming that position or holds
+ * an event for the consumer. Producers claim positions with a CAS on the tail and never wait:
+ * when the ring is full the event is refused.
+ */
+final class ClickEventRing {
+
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final String[] aliases;
+    private final long[] timestamps;
+    private final int[] referrers;
+
+    private final AtomicLong tail = new AtomicLong();
+    // Only read and written by the consumer
+    private long head;
+
+    /**
+     * @param capacity the number of events held, rounded up to a power of two
+     */
+    ClickEventRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.aliases = new String[size];
+        this.timestamps = new long[size];
+        this.referrers = new int[size];
+    }
+
+    /**
+     * Adds an event unless the ring is full.
+     *
+     * @param alias     the custom alias
+     * @param timestamp the time of the click, in epoch milliseconds
+     * @param referrer  the hash of the referrer, 0 if there was none
+     * @return false if the ring was full and the event was dropped
+     */
+    boolean offer(String alias, long timestamp, int referrer) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long sequence = sequences.get(index);
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    aliases[index] = alias;
+                    timestamps[index] = timestamp;
+                    referrers[index] = referrer;
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (sequence < position) {
+                // The consumer hasn't freed the slot yet, a whole lap ago
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Hands the events waiting in the ring to a sink, oldest first. Only called from the
+     * consumer thread.
+     *
+     * @param sink receives each event
+     * @param max  the maximum number of events to take
+     * @return the number of events taken
+     */
+    int drain(Sink sink, int max) {
+        int taken = 0;
+        while (taken < max) {
+            int index = (int) head & mask;
+            if (sequences.get(index) != head + 1) {
+                break;
+            }
+            String alias = aliases[index];
+            aliases[index] = null;
+            sink.accept(alias, timestamps[index], referrers[index]);
+            sequences.lazySet(index, head + mask + 1);
+            head++;
+            taken++;
+        }
+        return taken;
+    }
+
+    /**
+     * @return the number of events offered and not drained yet, approximately
+     */
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    interface Sink {
+        void accept(String alias, long timestamp, int referrer);
+    }
+}
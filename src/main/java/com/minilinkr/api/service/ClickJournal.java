@@ -0,0 +1,315 @@
+package com.minilinkr.api.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Append-only journal of individual clicks on local disk, read by {@link ClickRollups}.
+ *
+ * Redirects offer a fixed-size event to a {@link ClickEventRing} and return; when the ring
+ * is full the event is dropped and counted, so a slow disk never holds up a redirect. A
+ * single writer thread drains the ring into memory-mapped {@link ClickSegment}s, starting a
+ * new segment when the current one is full or older than the roll interval. Segments other
+ * than the one being written are closed and ready to be rolled up, including those left by a
+ * previous run. Each instance needs a directory of its own, which it locks while running.
+ * Without {@code minilinkr.analytics.journal.dir}, an instance takes the first numbered
+ * subdirectory of {@code minilinkr/clicks} in the temp directory that nothing else holds, so
+ * instances on one host, or application contexts in one JVM, don't share one; a restarted
+ * instance rolls up whatever was left in the subdirectory it takes.
+ */
+@Component
+public class ClickJournal implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(ClickJournal.class);
+
+    private static final int DRAIN_BATCH = 4096;
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private static final long RETRY_MILLIS = 1000;
+
+    // Directories locked by journals in this JVM, which a file lock doesn't tell apart
+    private static final Set<Path> locked = ConcurrentHashMap.newKeySet();
+
+    private final boolean enabled;
+    private final String configuredDir;
+    private final long segmentSize;
+    private final long rollIntervalMillis;
+    private final ClickEventRing ring;
+    private final ClickEventRing.Sink writer = this::write;
+
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder lost = new LongAdder();
+    // Only written by the writer thread
+    private volatile long written;
+
+    // Taken when the journal starts
+    private volatile Path dir;
+    private FileChannel lockChannel;
+    private Thread writerThread;
+    private volatile boolean running;
+    // Only touched by the writer thread once it has started
+    private ClickSegment segment;
+    private long nextSegment;
+    private long retryAt;
+    // Segments below this number are closed
+    private volatile long activeSegment;
+
+    public ClickJournal(@Value("${minilinkr.analytics.enabled:true}") boolean enabled,
+                        @Value("${minilinkr.analytics.journal.dir:}") String dir,
+                        @Value("${minilinkr.analytics.journal.ring-size:65536}") int ringSize,
+                        @Value("${minilinkr.analytics.journal.segment-size:16MB}") DataSize segmentSize,
+                        @Value("${minilinkr.analytics.journal.roll-interval:1m}") Duration rollInterval) {
+        this.enabled = enabled;
+        this.configuredDir = dir;
+        this.segmentSize = segmentSize.toBytes();
+        this.rollIntervalMillis = rollInterval.toMillis();
+        this.ring = new ClickEventRing(enabled ? ringSize : 2);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        if (!configuredDir.isBlank()) {
+            if (!lock(Path.of(configuredDir))) {
+                throw new IllegalStateException("Click journal directory " + configuredDir + " is in use by another instance");
+            }
+        } else {
+            Path base = Path.of(System.getProperty("java.io.tmpdir"), "minilinkr", "clicks");
+            for (int slot = 0; !lock(base.resolve(Integer.toString(slot))); slot++) {
+                // Held by another instance
+            }
+            log.info("Journaling clicks to {}", dir);
+        }
+        List<Long> existing = ClickSegment.list(dir);
+        nextSegment = existing.isEmpty() ? 1 : existing.get(existing.size() - 1) + 1;
+        if (!existing.isEmpty()) {
+            log.info("Found {} click journal segments to roll up", existing.size());
+        }
+        roll();
+        running = true;
+        writerThread = new Thread(this::run, "click-journal");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Writes out what is left in the ring and closes the current segment.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        if (writerThread != null) {
+            running = false;
+            writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        if (lockChannel != null) {
+            lockChannel.close();
+            locked.remove(dir);
+        }
+    }
+
+    // Takes a directory for this instance if no other instance, in this JVM or another, holds it
+    private boolean lock(Path candidate) throws IOException {
+        Path key = candidate.toAbsolutePath().normalize();
+        if (!locked.add(key)) {
+            return false;
+        }
+        try {
+            Files.createDirectories(key);
+            FileChannel channel = FileChannel.open(key.resolve("lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            if (channel.tryLock() == null) {
+                channel.close();
+                locked.remove(key);
+                return false;
+            }
+            dir = key;
+            lockChannel = channel;
+            return true;
+        } catch (IOException | RuntimeException ex) {
+            locked.remove(key);
+            throw ex;
+        }
+    }
+
+    /**
+     * Journals one click. Never blocks.
+     *
+     * @param alias    the custom alias
+     * @param referrer the {@code Referer} header of the request, or null
+     */
+    public void record(String alias, String referrer) {
+        if (enabled && !ring.offer(alias, System.currentTimeMillis(), referrer == null ? 0 : referrer.hashCode())) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * @return the numbers of the segments that are complete and can be rolled up, oldest first
+     */
+    List<Long> closedSegments() {
+        if (!enabled) {
+            return List.of();
+        }
+        long active = activeSegment;
+        try {
+            return ClickSegment.list(dir).stream().filter(number -> number < active).toList();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Reads the events of a closed segment.
+     *
+     * @return the number of events read
+     */
+    long read(long segment, ClickEventRing.Sink sink) throws IOException {
+        return ClickSegment.read(dir, segment, sink);
+    }
+
+    /**
+     * Deletes a closed segment once its events are rolled up.
+     */
+    void delete(long segment) throws IOException {
+        ClickSegment.delete(dir, segment);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("minilinkr.clicks.journal.dropped", dropped, LongAdder::sum)
+                .description("Click events dropped because the journal ring was full")
+                .register(registry);
+        Gauge.builder("minilinkr.clicks.journal.pending", ring, ClickEventRing::size)
+                .description("Click events waiting in the journal ring")
+                .register(registry);
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    public int capacity() {
+        return ring.capacity();
+    }
+
+    public int pending() {
+        return ring.size();
+    }
+
+    public long written() {
+        return written;
+    }
+
+    /**
+     * @return the events dropped because the ring was full, or lost to a write error
+     */
+    public long dropped() {
+        return dropped.sum() + lost.sum();
+    }
+
+    public long activeSegment() {
+        return activeSegment;
+    }
+
+    private void run() {
+        while (true) {
+            boolean stopping = !running;
+            int drained = ring.drain(writer, DRAIN_BATCH);
+            if (segment == null) {
+                if (System.currentTimeMillis() >= retryAt) {
+                    roll();
+                }
+            } else {
+                try {
+                    segment.flushAliases();
+                } catch (IOException ex) {
+                    log.warn("Could not write click journal aliases", ex);
+                }
+                if (!segment.isEmpty() && System.currentTimeMillis() - segment.createdAt() >= rollIntervalMillis) {
+                    roll();
+                }
+            }
+            if (drained == 0) {
+                if (stopping) {
+                    break;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        closeSegment();
+    }
+
+    private void write(String alias, long timestamp, int referrer) {
+        try {
+            boolean appended = segment != null && segment.append(alias, timestamp, referrer);
+            if (!appended && segment != null) {
+                // Full
+                roll();
+                appended = segment != null && segment.append(alias, timestamp, referrer);
+            }
+            if (appended) {
+                written++;
+            } else {
+                lost.increment();
+            }
+        } catch (IOException ex) {
+            lost.increment();
+            log.warn("Could not journal a click", ex);
+        }
+    }
+
+    // Closes the current segment, which makes it available to the rollups, and starts the next
+    private void roll() {
+        closeSegment();
+        long number = nextSegment++;
+        try {
+            segment = ClickSegment.create(dir, number, segmentSize);
+        } catch (IOException ex) {
+            // Clicks are lost until a segment can be created; what was created of this one is skipped
+            log.warn("Could not create click journal segment {}", number, ex);
+            retryAt = System.currentTimeMillis() + RETRY_MILLIS;
+            number++;
+        }
+        activeSegment = number;
+    }
+
+    private void closeSegment() {
+        if (segment == null) {
+            return;
+        }
+        try {
+            segment.close();
+            if (segment.isEmpty()) {
+                ClickSegment.delete(dir, segment.number());
+            }
+        } catch (IOException ex) {
+            log.warn("Could not close click journal segment {}", segment.number(), ex);
+        }
+        segment = null;
+    }
+}
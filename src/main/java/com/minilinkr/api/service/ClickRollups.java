@@ -0,0 +1,217 @@
+package com.minilinkr.api.service;
+
+import com.minilinkr.api.model.AliasClicks;
+import com.minilinkr.api.model.ClickSeries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-minute click counts in {@code click_rollups}, rolled up from the {@link ClickJournal}.
+ *
+ * Each run reads the journal's closed segments oldest first, counts their clicks by alias and
+ * minute, and adds the counts to the table with one batched UPDATE followed by one batched
+ * INSERT for the new rows, in a single transaction per segment; the segment is deleted once
+ * committed. A segment that fails stays in the journal and is retried on the next run. If the
+ * process dies between the commit and the delete, the segment is counted again.
+ *
+ * Hourly and other longer buckets are summed from the minutes when queried. Counts lag the
+ * redirects by up to the journal's roll interval plus the rollup interval.
+ *
+ * The table isn't sharded: it lives on shard 0 with the click stats, which is where
+ * unbound connections go.
+ */
+@Component
+public class ClickRollups {
+
+    private static final Logger log = LoggerFactory.getLogger(ClickRollups.class);
+
+    private static final long MILLIS_PER_MINUTE = TimeUnit.MINUTES.toMillis(1);
+
+    private static final String UPDATE_SQL =
+            "UPDATE click_rollups SET clicks = clicks + ? WHERE alias = ? AND bucket_minute = ?";
+    private static final String INSERT_SQL =
+            "INSERT INTO click_rollups (alias, bucket_minute, clicks) VALUES (?, ?, ?)";
+    private static final String TOP_SQL =
+            "SELECT alias, SUM(clicks) AS total FROM click_rollups WHERE bucket_minute >= ?"
+                    + " GROUP BY alias ORDER BY total DESC, alias LIMIT ?";
+
+    private record Bucket(String alias, long minute) {
+    }
+
+    private final ClickJournal journal;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long retentionMinutes;
+
+    // Segments rolled up but not deleted, which mustn't be counted again
+    private final Set<Long> applied = new HashSet<>();
+
+    private volatile long rolledUp;
+    private volatile long segments;
+
+    public ClickRollups(ClickJournal journal,
+                        JdbcTemplate jdbcTemplate,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${minilinkr.analytics.retention:30d}") Duration retention) {
+        this.journal = journal;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.retentionMinutes = retention.toMinutes();
+    }
+
+    /**
+     * Rolls up the closed journal segments, then drops the minutes older than the retention.
+     */
+    @Scheduled(fixedDelayString = "${minilinkr.analytics.rollup-interval:10s}")
+    public synchronized void rollUp() {
+        List<Long> closed = journal.closedSegments();
+        for (long segment : closed) {
+            if (applied.contains(segment)) {
+                delete(segment);
+                continue;
+            }
+            Map<Bucket, long[]> counts = new HashMap<>();
+            long events;
+            try {
+                events = journal.read(segment, (alias, timestamp, referrer) ->
+                        counts.computeIfAbsent(new Bucket(alias, timestamp / MILLIS_PER_MINUTE), k -> new long[1])[0]++);
+            } catch (IllegalArgumentException ex) {
+                log.warn("Skipping unreadable click journal segment {}", segment, ex);
+                delete(segment);
+                continue;
+            } catch (IOException | RuntimeException ex) {
+                log.warn("Failed to read click journal segment {}, will retry", segment, ex);
+                return;
+            }
+            try {
+                upsert(counts);
+            } catch (RuntimeException ex) {
+                log.warn("Failed to roll up click journal segment {}, will retry", segment, ex);
+                return;
+            }
+            applied.add(segment);
+            delete(segment);
+            rolledUp += events;
+            segments++;
+        }
+        if (!closed.isEmpty()) {
+            long cutoff = System.currentTimeMillis() / MILLIS_PER_MINUTE - retentionMinutes;
+            try {
+                jdbcTemplate.update("DELETE FROM click_rollups WHERE bucket_minute < ?", cutoff);
+            } catch (RuntimeException ex) {
+                log.warn("Failed to drop click rollups past the retention, will retry", ex);
+            }
+        }
+    }
+
+    /**
+     * Gets the clicks on an alias over a time range.
+     *
+     * @param alias         the custom alias
+     * @param from          the start of the range, rounded down to a bucket
+     * @param to            the end of the range, exclusive
+     * @param bucketMinutes the size of the buckets in minutes; 60 for hours
+     * @param resolution    the name of the bucket size, returned with the series
+     * @return the buckets with clicks, oldest first
+     */
+    public ClickSeries series(String alias, Instant from, Instant to, int bucketMinutes, String resolution) {
+        long fromMinute = Math.floorDiv(from.toEpochMilli(), MILLIS_PER_MINUTE * bucketMinutes) * bucketMinutes;
+        long toMinute = Math.ceilDiv(to.toEpochMilli(), MILLIS_PER_MINUTE);
+        String bucket = "bucket_minute / " + bucketMinutes;
+        List<ClickSeries.Bucket> buckets = readOnlyTransaction.execute(status -> jdbcTemplate.query(
+                "SELECT " + bucket + " AS bucket, SUM(clicks) AS total FROM click_rollups"
+                        + " WHERE alias = ? AND bucket_minute >= ? AND bucket_minute < ?"
+                        + " GROUP BY " + bucket + " ORDER BY bucket",
+                (rs, rowNum) -> new ClickSeries.Bucket(
+                        Instant.ofEpochMilli(rs.getLong("bucket") * bucketMinutes * MILLIS_PER_MINUTE), rs.getLong("total")),
+                alias, fromMinute, toMinute));
+        return new ClickSeries(alias, resolution, Instant.ofEpochMilli(fromMinute * MILLIS_PER_MINUTE), to, buckets);
+    }
+
+    /**
+     * Finds the aliases with the most clicks within a window ending now.
+     *
+     * @param window how far back to count
+     * @param limit  the maximum number of aliases to return
+     * @return the aliases and their clicks, most clicked first
+     */
+    public List<AliasClicks> top(Duration window, int limit) {
+        long fromMinute = (System.currentTimeMillis() - window.toMillis()) / MILLIS_PER_MINUTE;
+        return readOnlyTransaction.execute(status -> jdbcTemplate.query(TOP_SQL,
+                (rs, rowNum) -> new AliasClicks(rs.getString("alias"), rs.getLong("total")), fromMinute, limit));
+    }
+
+    /**
+     * Drops the rolled-up clicks of the given aliases.
+     *
+     * @param aliases the custom aliases
+     */
+    public void reset(Collection<String> aliases) {
+        List<Object[]> args = aliases.stream().map(alias -> new Object[] { alias }).toList();
+        jdbcTemplate.batchUpdate("DELETE FROM click_rollups WHERE alias = ?", args);
+    }
+
+    public long rolledUp() {
+        return rolledUp;
+    }
+
+    public long segments() {
+        return segments;
+    }
+
+    private void upsert(Map<Bucket, long[]> counts) {
+        if (counts.isEmpty()) {
+            return;
+        }
+        List<Bucket> buckets = new ArrayList<>(counts.keySet());
+        List<Object[]> updates = new ArrayList<>(buckets.size());
+        for (Bucket bucket : buckets) {
+            updates.add(new Object[] { counts.get(bucket)[0], bucket.alias(), bucket.minute() });
+        }
+
+        transaction.executeWithoutResult(status -> {
+            int[] updated = jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+
+            List<Object[]> inserts = new ArrayList<>();
+            for (int i = 0; i < updated.length; i++) {
+                if (updated[i] == 0) {
+                    Bucket bucket = buckets.get(i);
+                    inserts.add(new Object[] { bucket.alias(), bucket.minute(), counts.get(bucket)[0] });
+                }
+            }
+            if (!inserts.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_SQL, inserts);
+            }
+        });
+    }
+
+    private void delete(long segment) {
+        try {
+            journal.delete(segment);
+            applied.remove(segment);
+        } catch (IOException ex) {
+            log.warn("Could not delete click journal segment {}", segment, ex);
+        }
+    }
+}
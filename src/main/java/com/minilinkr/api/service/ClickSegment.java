@@ -0,0 +1,228 @@
+package com.minilinkr.api.service;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One segment of the click journal: a fixed-size, memory-mapped file of click events and a
+ * sidecar file listing the aliases they refer to.
+ *
+ * Layout, all integers big-endian:
+ * <pre>
+ *   NNNNNNNNNN.clicks   header   magic "MLCE" | version | createdAt (epoch ms)
+ *                       events   per event: timestamp (epoch ms, 0 = end) | alias ID (int) | referrer hash (int)
+ *   NNNNNNNNNN.aliases  per alias, in ID order: length (u16) | alias (UTF-8)
+ * </pre>
+ * Alias IDs are local to the segment and assigned as aliases first appear in it. The events
+ * file is preallocated and zero-filled, so the events end at the first zero timestamp. Both
+ * files reach the page cache as they are written and survive the process dying; a segment
+ * cut short by a crash is read up to its last complete event and alias.
+ */
+final class ClickSegment {
+
+    static final String EVENTS_SUFFIX = ".clicks";
+    static final String ALIASES_SUFFIX = ".aliases";
+
+    private static final int MAGIC = 0x4D4C4345;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 4 + 8;
+    private static final int EVENT_SIZE = 8 + 4 + 4;
+
+    private final long number;
+    private final long createdAt;
+    private final MappedByteBuffer events;
+    private final DataOutputStream aliasesOut;
+    private final Map<String, Integer> aliasIds = new HashMap<>();
+    private boolean aliasesDirty;
+
+    private ClickSegment(long number, long createdAt, MappedByteBuffer events, DataOutputStream aliasesOut) {
+        this.number = number;
+        this.createdAt = createdAt;
+        this.events = events;
+        this.aliasesOut = aliasesOut;
+    }
+
+    /**
+     * Creates a segment for writing.
+     *
+     * @param dir    the journal directory
+     * @param number the segment number, higher than any in the directory
+     * @param size   the size of the events file in bytes
+     */
+    static ClickSegment create(Path dir, long number, long size) throws IOException {
+        long createdAt = System.currentTimeMillis();
+        MappedByteBuffer events;
+        try (FileChannel channel = FileChannel.open(eventsFile(dir, number),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            events = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, HEADER_SIZE + EVENT_SIZE));
+        }
+        events.putInt(MAGIC).putInt(VERSION).putLong(createdAt);
+        DataOutputStream aliasesOut = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(aliasesFile(dir, number), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)));
+        return new ClickSegment(number, createdAt, events, aliasesOut);
+    }
+
+    /**
+     * Appends an event, adding its alias to the sidecar file the first time it appears.
+     *
+     * @return false if the segment is full and nothing was written
+     */
+    boolean append(String alias, long timestamp, int referrer) throws IOException {
+        if (events.remaining() < EVENT_SIZE) {
+            return false;
+        }
+        Integer id = aliasIds.get(alias);
+        if (id == null) {
+            byte[] bytes = alias.getBytes(StandardCharsets.UTF_8);
+            aliasesOut.writeShort(bytes.length);
+            aliasesOut.write(bytes);
+            aliasesDirty = true;
+            id = aliasIds.size();
+            aliasIds.put(alias, id);
+        }
+        // The timestamp goes last, so an event is only visible once complete
+        int offset = events.position();
+        events.putInt(offset + 8, id).putInt(offset + 12, referrer).putLong(offset, timestamp);
+        events.position(offset + EVENT_SIZE);
+        return true;
+    }
+
+    /**
+     * Hands aliases added since the last call to the page cache, so every event written so
+     * far can be resolved if the process dies.
+     */
+    void flushAliases() throws IOException {
+        if (aliasesDirty) {
+            aliasesOut.flush();
+            aliasesDirty = false;
+        }
+    }
+
+    /**
+     * Writes both files to disk and closes the segment for writing.
+     */
+    void close() throws IOException {
+        aliasesOut.close();
+        events.force();
+    }
+
+    boolean isEmpty() {
+        return events.position() == HEADER_SIZE;
+    }
+
+    long number() {
+        return number;
+    }
+
+    long createdAt() {
+        return createdAt;
+    }
+
+    /**
+     * Reads the events of a closed segment.
+     *
+     * @param dir    the journal directory
+     * @param number the segment number
+     * @param sink   receives each event whose alias is known, in the order written
+     * @return the number of events read
+     * @throws IllegalArgumentException if the file isn't a segment this version can read
+     */
+    static long read(Path dir, long number, ClickEventRing.Sink sink) throws IOException {
+        List<String> aliases = readAliases(aliasesFile(dir, number));
+        MappedByteBuffer events;
+        try (FileChannel channel = FileChannel.open(eventsFile(dir, number), StandardOpenOption.READ)) {
+            events = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (events.limit() < HEADER_SIZE || events.getInt(0) == 0) {
+            // Left before its header was written
+            return 0;
+        }
+        if (events.getInt(0) != MAGIC || events.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Not a click journal segment, or an unsupported version: " + eventsFile(dir, number));
+        }
+        long read = 0;
+        for (int offset = HEADER_SIZE; offset + EVENT_SIZE <= events.limit(); offset += EVENT_SIZE) {
+            long timestamp = events.getLong(offset);
+            if (timestamp == 0) {
+                break;
+            }
+            int id = events.getInt(offset + 8);
+            if (id >= 0 && id < aliases.size()) {
+                sink.accept(aliases.get(id), timestamp, events.getInt(offset + 12));
+                read++;
+            }
+        }
+        return read;
+    }
+
+    /**
+     * Deletes both files of a segment.
+     */
+    static void delete(Path dir, long number) throws IOException {
+        Files.deleteIfExists(aliasesFile(dir, number));
+        Files.deleteIfExists(eventsFile(dir, number));
+    }
+
+    /**
+     * @return the numbers of the segments in the directory, in ascending order
+     */
+    static List<Long> list(Path dir) throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        try (var files = Files.list(dir)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(EVENTS_SUFFIX))
+                    .forEach(name -> {
+                        try {
+                            numbers.add(Long.parseLong(name.substring(0, name.length() - EVENTS_SUFFIX.length())));
+                        } catch (NumberFormatException ex) {
+                            // Not a segment
+                        }
+                    });
+        }
+        numbers.sort(null);
+        return numbers;
+    }
+
+    // Stops at the first entry cut short
+    private static List<String> readAliases(Path file) throws IOException {
+        List<String> aliases = new ArrayList<>();
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file);
+        } catch (NoSuchFileException ex) {
+            // Created without its sidecar file; none of the events can be resolved
+            return aliases;
+        }
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        while (in.remaining() >= 2) {
+            int length = Short.toUnsignedInt(in.getShort());
+            if (in.remaining() < length) {
+                break;
+            }
+            aliases.add(new String(bytes, in.position(), length, StandardCharsets.UTF_8));
+            in.position(in.position() + length);
+        }
+        return aliases;
+    }
+
+    private static Path eventsFile(Path dir, long number) {
+        return dir.resolve(String.format("%010d", number) + EVENTS_SUFFIX);
+    }
+
+    private static Path aliasesFile(Path dir, long number) {
+        return dir.resolve(String.format("%010d", number) + ALIASES_SUFFIX);
+    }
+}
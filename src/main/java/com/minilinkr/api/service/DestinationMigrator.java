@@ -0,0 +1,83 @@
+package com.minilinkr.api.service;
+
+import com.minilinkr.api.config.ReplicaRoutingDataSource;
+import com.minilinkr.api.repository.ShardedUrlMappingRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * Moves the original URLs that mappings created before the destinations table keep inline
+ * into it, in the background and in small batches, while the service keeps serving.
+ *
+ * Each run scans the next batch of every shard in ID order and, in one transaction per batch,
+ * stores the URLs as destinations and points the mappings at them. Lookups read the inline URL
+ * when there is one and the destination otherwise, so a mapping resolves at every step. At
+ * startup the inline column is made nullable, and shards with no inline URLs left are skipped.
+ */
+@Component
+public class DestinationMigrator {
+
+    private static final Logger log = LoggerFactory.getLogger(DestinationMigrator.class);
+
+    private final ShardedUrlMappingRepository repository;
+    private final int batchSize;
+
+    // The last ID scanned on each shard, or -1 once the shard is done
+    private final long[] positions;
+    private volatile boolean complete;
+
+    public DestinationMigrator(ShardedUrlMappingRepository repository,
+                               @Value("${minilinkr.destinations.migration-batch-size:500}") int batchSize) {
+        this.repository = repository;
+        this.batchSize = batchSize;
+        this.positions = new long[repository.shardCount()];
+    }
+
+    @PostConstruct
+    public void prepare() {
+        for (int shard = 0; shard < positions.length; shard++) {
+            positions[shard] = repository.prepareDestinations(shard) ? 0 : -1;
+        }
+        complete = Arrays.stream(positions).allMatch(position -> position < 0);
+        if (!complete) {
+            log.info("Moving inline original URLs to destinations");
+        }
+    }
+
+    /**
+     * Moves the next batch of every shard.
+     */
+    @Scheduled(fixedDelayString = "${minilinkr.destinations.migration-interval:1s}")
+    public synchronized void migrate() {
+        if (complete) {
+            return;
+        }
+        try {
+            ReplicaRoutingDataSource.runOnPrimary(() -> {
+                for (int shard = 0; shard < positions.length; shard++) {
+                    if (positions[shard] >= 0) {
+                        long after = positions[shard];
+                        positions[shard] = repository.migrateDestinations(shard, after, batchSize);
+                    }
+                }
+            });
+        } catch (RuntimeException ex) {
+            log.warn("Destination migration batch failed, will retry", ex);
+            return;
+        }
+        if (Arrays.stream(positions).allMatch(position -> position < 0)) {
+            complete = true;
+            log.info("Inline original URLs moved to destinations");
+        }
+    }
+
+    public boolean complete() {
+        return complete;
+    }
+}
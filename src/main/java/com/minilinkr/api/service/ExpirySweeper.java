@@ -0,0 +1,68 @@
+package com.minilinkr.api.service;
+
+import com.minilinkr.api.repository.ShardedUrlMappingRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Deletes expired URL mappings in the background.
+ *
+ * Expired links are already treated as gone on every lookup, so the sweeper only reclaims
+ * space. Each pass walks the {@code expires_at} index from the oldest expiry and deletes in
+ * bounded batches, one short transaction per batch, so it never holds locks for long.
+ */
+@Component
+public class ExpirySweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(ExpirySweeper.class);
+
+    private final ShardedUrlMappingRepository repository;
+    private final UrlShorteningService service;
+    private final AliasChangeFeed changeFeed;
+    private final int batchSize;
+
+    public ExpirySweeper(ShardedUrlMappingRepository repository,
+                         UrlShorteningService service,
+                         AliasChangeFeed changeFeed,
+                         @Value("${minilinkr.expiry.batch-size:500}") int batchSize) {
+        this.repository = repository;
+        this.service = service;
+        this.changeFeed = changeFeed;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Deletes every mapping that has expired by now, shard by shard.
+     */
+    @Scheduled(fixedDelayString = "${minilinkr.expiry.sweep-interval:1m}",
+            initialDelayString = "${minilinkr.expiry.sweep-interval:1m}")
+    public void sweep() {
+        Instant now = Instant.now();
+        long deleted = 0;
+        try {
+            for (int shard = 0; shard < repository.shardCount(); shard++) {
+                List<String> aliases;
+                do {
+                    aliases = repository.deleteExpired(shard, now, batchSize, changeFeed::recordDeleted);
+                    // After the shard's transaction, since click stats aren't sharded
+                    if (!aliases.isEmpty()) {
+                        service.afterDelete(aliases);
+                        deleted += aliases.size();
+                    }
+                } while (aliases.size() == batchSize);
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Expiry sweep stopped after {} mappings, will resume on the next run", deleted, ex);
+            return;
+        }
+        if (deleted > 0) {
+            log.info("Deleted {} expired mappings", deleted);
+        }
+    }
+}
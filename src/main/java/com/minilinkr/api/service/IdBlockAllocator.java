@@ -0,0 +1,72 @@
+package com.minilinkr.api.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out unique IDs from blocks reserved in bulk from the {@code alias_code_seq} sequence.
+ *
+ * The sequence increments by the block size, so every {@code nextval} reserves a whole
+ * block for this node and only one database call is needed per block. The increment is
+ * shared by every node, so it is set when the sequence is created and read back from then
+ * on; a node configured with another block size uses the sequence's instead.
+ */
+@Component
+public class IdBlockAllocator {
+
+    private static final Logger log = LoggerFactory.getLogger(IdBlockAllocator.class);
+
+    private static final String SEQUENCE = "alias_code_seq";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int configuredBlockSize;
+    private long blockSize;
+
+    // Not a monitor: a virtual thread refilling the block over JDBC would pin its carrier
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private long next;
+    private long limit;
+
+    public IdBlockAllocator(JdbcTemplate jdbcTemplate,
+                            @Value("${minilinkr.alias-codes.block-size:4096}") int blockSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.configuredBlockSize = blockSize;
+    }
+
+    @PostConstruct
+    public void createSequence() {
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + SEQUENCE + " START WITH 1 INCREMENT BY " + configuredBlockSize);
+        // Changing the increment would make the blocks of nodes still on the old size overlap the new ones
+        blockSize = jdbcTemplate.queryForObject(
+                "SELECT increment FROM information_schema.sequences"
+                        + " WHERE sequence_schema = current_schema() AND sequence_name = ?", Long.class, SEQUENCE);
+        if (blockSize != configuredBlockSize) {
+            log.warn("Using the block size of {} that {} was created with, not the configured {}",
+                    blockSize, SEQUENCE, configuredBlockSize);
+        }
+    }
+
+    /**
+     * @return the next unused ID
+     */
+    public long nextId() {
+        lock.lock();
+        try {
+            if (next >= limit) {
+                Long start = jdbcTemplate.queryForObject("SELECT nextval('" + SEQUENCE + "')", Long.class);
+                next = start;
+                limit = start + blockSize;
+            }
+            return next++;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.minilinkr.api.service;
+
+import com.minilinkr.api.model.UrlMapping;
+
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and writes URL mappings as CSV (RFC 4180), one record at a time.
+ *
+ * Imports are matched to fields by the header row, so columns may come in any order and
+ * unknown ones, such as the {@code id} and {@code createdAt} of an export, are ignored.
+ * Empty fields are null.
+ */
+public final class MappingCsv {
+
+    public static final String HEADER = "id,alias,originalUrl,createdAt,expiresAt,redirectStatus,immutable";
+
+    private MappingCsv() {
+    }
+
+    /**
+     * Writes one mapping as a CSV record, in {@link #HEADER} order.
+     *
+     * @param out     the writer
+     * @param mapping the mapping
+     * @throws IOException if an I/O error occurs
+     */
+    public static void write(Writer out, UrlMapping mapping) throws IOException {
+        out.write(String.valueOf(mapping.getId()));
+        out.write(',');
+        writeField(out, mapping.getAlias());
+        out.write(',');
+        writeField(out, mapping.getOriginalUrl());
+        out.write(',');
+        writeField(out, mapping.getCreatedAt());
+        out.write(',');
+        writeField(out, mapping.getExpiresAt());
+        out.write(',');
+        writeField(out, mapping.getRedirectStatus());
+        out.write(',');
+        out.write(Boolean.toString(mapping.isImmutable()));
+        out.write("\r\n");
+    }
+
+    private static void writeField(Writer out, Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            out.write(text);
+            return;
+        }
+        out.write('"');
+        out.write(text.replace("\"", "\"\""));
+        out.write('"');
+    }
+
+    /**
+     * Reads mappings from CSV with a header row.
+     */
+    static final class MappingReader {
+
+        private final PushbackReader in;
+        private final Map<String, Integer> columns = new HashMap<>();
+
+        /**
+         * @param in the CSV text, starting with the header row
+         * @throws IOException if an I/O error occurs
+         * @throws IllegalArgumentException if there is no header row or it lacks an originalUrl column
+         */
+        MappingReader(Reader in) throws IOException {
+            this.in = new PushbackReader(in);
+            List<String> header = nextRecord();
+            if (header == null) {
+                throw new IllegalArgumentException("CSV upload has no header row");
+            }
+            for (int i = 0; i < header.size(); i++) {
+                columns.putIfAbsent(header.get(i).strip(), i);
+            }
+            if (!columns.containsKey("originalUrl")) {
+                throw new IllegalArgumentException("CSV header has no originalUrl column");
+            }
+        }
+
+        /**
+         * Reads the next record, skipping blank lines.
+         *
+         * @return the fields of the record, or null at the end of the input
+         * @throws IOException if an I/O error occurs
+         * @throws IllegalArgumentException if a quoted field isn't closed
+         */
+        List<String> nextRecord() throws IOException {
+            List<String> record;
+            do {
+                record = readRecord();
+            } while (record != null && record.size() == 1 && record.get(0).isEmpty());
+            return record;
+        }
+
+        /**
+         * Turns a record into a mapping.
+         *
+         * @param record a record returned by {@link #nextRecord()}
+         * @return the mapping, for the same validation as a create request
+         * @throws IllegalArgumentException if a field can't be converted to its type
+         */
+        UrlMapping toMapping(List<String> record) {
+            UrlMapping mapping = new UrlMapping();
+            mapping.setAlias(field(record, "alias"));
+            mapping.setOriginalUrl(field(record, "originalUrl"));
+            String expiresAt = field(record, "expiresAt");
+            String ttl = field(record, "ttl");
+            String redirectStatus = field(record, "redirectStatus");
+            String immutable = field(record, "immutable");
+            try {
+                mapping.setExpiresAt(expiresAt == null ? null : Instant.parse(expiresAt));
+            } catch (DateTimeParseException ex) {
+                throw new IllegalArgumentException("expiresAt must be an ISO-8601 instant");
+            }
+            try {
+                mapping.setTtl(ttl == null ? null : Long.valueOf(ttl));
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("ttl must be a number");
+            }
+            try {
+                mapping.setRedirectStatus(redirectStatus == null ? null : Integer.valueOf(redirectStatus));
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("redirectStatus must be a number");
+            }
+            if (immutable != null && !immutable.equalsIgnoreCase("true") && !immutable.equalsIgnoreCase("false")) {
+                throw new IllegalArgumentException("immutable must be true or false");
+            }
+            mapping.setImmutable(Boolean.parseBoolean(immutable));
+            return mapping;
+        }
+
+        private String field(List<String> record, String column) {
+            Integer index = columns.get(column);
+            if (index == null || index >= record.size() || record.get(index).isEmpty()) {
+                return null;
+            }
+            return record.get(index);
+        }
+
+        private List<String> readRecord() throws IOException {
+            int c = in.read();
+            if (c == -1) {
+                return null;
+            }
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c == -1) {
+                        throw new IllegalArgumentException("CSV upload ends inside a quoted field");
+                    }
+                    if (c == '"') {
+                        c = in.read();
+                        if (c != '"') {
+                            quoted = false;
+                            continue;
+                        }
+                    }
+                    field.append((char) c);
+                } else if (c == '"' && field.isEmpty()) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n' || c == -1) {
+                    break;
+                } else if (c == '\r') {
+                    int next = in.read();
+                    if (next != '\n' && next != -1) {
+                        in.unread(next);
+                    }
+                    break;
+                } else {
+                    field.append((char) c);
+                }
+                c = in.read();
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+}
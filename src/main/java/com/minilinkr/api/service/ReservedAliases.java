@@ -0,0 +1,22 @@
+package com.minilinkr.api.service;
+
+import java.util.List;
+
+/**
+ * Words that can't be used or deleted as aliases, since they name paths of the service.
+ */
+public final class ReservedAliases {
+
+    public static final List<String> WORDS = List.of("docs", "api", "v1", "v2", "v3", "admin", "login", "register", "actuator");
+
+    private ReservedAliases() {
+    }
+
+    /**
+     * @param alias the custom alias
+     * @return true if the alias is a reserved word
+     */
+    public static boolean contains(String alias) {
+        return WORDS.contains(alias);
+    }
+}
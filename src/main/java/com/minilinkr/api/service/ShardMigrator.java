@@ -0,0 +1,125 @@
+package com.minilinkr.api.service;
+
+import com.minilinkr.api.config.ReplicaRoutingDataSource;
+import com.minilinkr.api.model.UrlMapping;
+import com.minilinkr.api.repository.ShardedUrlMappingRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves mappings onto the shards added by resharding, in the background and in small
+ * batches, while every shard keeps serving.
+ *
+ * Each run scans the next batch of every previous shard in ID order. The mappings that now
+ * hash to another shard are copied there in one transaction, then deleted from the previous
+ * shard in another. Lookups ask the previous shard first, so a mapping is found at every
+ * step. A copy whose original was deleted in between is dropped again. Expired mappings are
+ * left for the {@link ExpirySweeper}. Once a full pass moves nothing, resharding is complete
+ * and {@code minilinkr.shards.previous-count} can be removed.
+ */
+@Component
+public class ShardMigrator {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardMigrator.class);
+
+    private final ShardedUrlMappingRepository repository;
+    private final AliasChangeFeed changeFeed;
+    private final int batchSize;
+
+    // The last ID scanned on each previous shard in the current pass, or -1 once the pass reached its end
+    private final long[] positions;
+    private long movedInPass;
+    private volatile boolean complete;
+
+    private final AtomicLong moved = new AtomicLong();
+
+    public ShardMigrator(ShardedUrlMappingRepository repository,
+                         AliasChangeFeed changeFeed,
+                         @Value("${minilinkr.shards.migration-batch-size:500}") int batchSize) {
+        this.repository = repository;
+        this.changeFeed = changeFeed;
+        this.batchSize = batchSize;
+        this.positions = new long[repository.previousShardCount()];
+    }
+
+    /**
+     * Moves the next batch of every previous shard.
+     */
+    @Scheduled(fixedDelayString = "${minilinkr.shards.migration-interval:1s}")
+    public synchronized void migrate() {
+        if (!repository.resharding() || complete) {
+            return;
+        }
+        try {
+            // Read the primaries: a mapping a replica hasn't seen yet would be left behind
+            ReplicaRoutingDataSource.runOnPrimary(() -> {
+                for (int shard = 0; shard < positions.length; shard++) {
+                    if (positions[shard] >= 0) {
+                        migrateBatch(shard);
+                    }
+                }
+            });
+        } catch (RuntimeException ex) {
+            log.warn("Shard migration batch failed, will retry", ex);
+            return;
+        }
+
+        for (long position : positions) {
+            if (position >= 0) {
+                return;
+            }
+        }
+        if (movedInPass == 0) {
+            complete = true;
+            log.info("Resharding complete, {} mappings moved; minilinkr.shards.previous-count can be removed", moved.get());
+        } else {
+            // Mappings may have been created on a previous shard by nodes not yet resharding, so check again
+            movedInPass = 0;
+            Arrays.fill(positions, 0);
+        }
+    }
+
+    private void migrateBatch(int shard) {
+        List<UrlMapping> batch = repository.findByIdGreaterThan(shard, positions[shard], batchSize);
+
+        Instant now = Instant.now();
+        Map<Integer, List<UrlMapping>> byTarget = new TreeMap<>();
+        for (UrlMapping mapping : batch) {
+            int target = repository.shardFor(mapping.getAlias());
+            if (target != shard && !mapping.isExpiredAt(now)) {
+                byTarget.computeIfAbsent(target, k -> new ArrayList<>()).add(mapping);
+            }
+        }
+        byTarget.forEach((target, mappings) -> move(shard, target, mappings));
+
+        positions[shard] = batch.size() < batchSize ? -1 : batch.get(batch.size() - 1).getId();
+    }
+
+    private void move(int from, int to, List<UrlMapping> mappings) {
+        // A copy whose original was deleted meanwhile is dropped again; the feed evicts it from caches too
+        long count = repository.move(from, to, mappings, changeFeed::recordDeleted);
+        movedInPass += count;
+        moved.addAndGet(count);
+    }
+
+    public boolean complete() {
+        return complete;
+    }
+
+    public long moved() {
+        return moved.get();
+    }
+}
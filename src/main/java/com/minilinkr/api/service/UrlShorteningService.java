@@ -1,11 +1,20 @@
 package com.minilinkr.api.service;
 
+import com.minilinkr.api.model.BatchItemResult;
+import com.minilinkr.api.model.ClickStats;
 import com.minilinkr.api.model.UrlMapping;
-import com.minilinkr.api.repository.UrlMappingRepository;
+import com.minilinkr.api.model.UrlMappingPage;
+import com.minilinkr.api.repository.ShardedUrlMappingRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-import java.util.Optional;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * Service class for URL shortening functionality.
@@ -16,64 +25,407 @@ import java.util.Optional;
 @Service
 public class UrlShorteningService {
 
-    private final UrlMappingRepository repository;
+    private static final int MAX_GENERATE_ATTEMPTS = 3;
 
-    public UrlShorteningService(UrlMappingRepository repository) {
+    private final ShardedUrlMappingRepository repository;
+
+    private final AliasCache cache;
+
+    private final AliasFilter aliasFilter;
+
+    private final AliasSnapshotIndex snapshotIndex;
+
+    private final AliasIndex aliasIndex;
+
+    private final AliasChangeFeed changeFeed;
+
+    private final ClickCounter clickCounter;
+
+    private final ClickRollups clickRollups;
+
+    private final AliasCodec aliasCodec;
+
+    private final IdBlockAllocator idBlockAllocator;
+
+    private final Validator validator;
+
+    public UrlShorteningService(ShardedUrlMappingRepository repository,
+                                AliasCache cache,
+                                AliasFilter aliasFilter,
+                                AliasSnapshotIndex snapshotIndex,
+                                AliasIndex aliasIndex,
+                                AliasChangeFeed changeFeed,
+                                ClickCounter clickCounter,
+                                ClickRollups clickRollups,
+                                AliasCodec aliasCodec,
+                                IdBlockAllocator idBlockAllocator,
+                                Validator validator) {
         this.repository = repository;
+        this.cache = cache;
+        this.aliasFilter = aliasFilter;
+        this.snapshotIndex = snapshotIndex;
+        this.aliasIndex = aliasIndex;
+        this.changeFeed = changeFeed;
+        this.clickCounter = clickCounter;
+        this.clickRollups = clickRollups;
+        this.aliasCodec = aliasCodec;
+        this.idBlockAllocator = idBlockAllocator;
+        this.validator = validator;
+    }
+
+    @PostConstruct
+    public void alignIdSequence() {
+        repository.alignIdSequence(UrlMapping.ID_ALLOCATION_SIZE);
     }
 
     /**
      * Creates a new URL mapping with a custom alias.
      *
      * @param urlMapping the UrlMapping object containing the original URL and custom alias
-     * @throws IllegalArgumentException if the alias is empty or already exists
+     * @return the saved UrlMapping
+     * @throws IllegalArgumentException if the alias is empty, reserved for generated codes or already exists
      */
-    public void createCustomAlias(UrlMapping urlMapping) {
+    public UrlMapping createCustomAlias(UrlMapping urlMapping) {
         // Check if alias is provided
         if (urlMapping.getAlias() == null || urlMapping.getAlias().isEmpty()) {
             throw new IllegalArgumentException("Alias can't be empty");
         }
 
-        // Check if the alias already exists in the database
-        if (repository.findByAlias(urlMapping.getAlias()).isPresent()) {
+        // Check if the alias collides with the generated namespace
+        if (isGeneratedAlias(urlMapping.getAlias())) {
+            throw new IllegalArgumentException("Alias is reserved for generated codes");
+        }
+
+        urlMapping.resolveExpiry(Instant.now());
+
+        // A single insert; the unique constraint on alias rejects duplicates, including concurrent ones
+        UrlMapping saved;
+        try {
+            saved = repository.insert(urlMapping, changeFeed::recordCreated);
+        } catch (DataIntegrityViolationException ex) {
             throw new IllegalArgumentException("Alias already exists");
         }
 
-        repository.save(urlMapping);
+        afterCreate(saved);
+        return saved;
+    }
+
+    /**
+     * Creates a new URL mapping with a generated alias.
+     *
+     * @param urlMapping the UrlMapping object containing the original URL; its alias is overwritten
+     * @return the saved UrlMapping, carrying the generated alias
+     */
+    public UrlMapping createGeneratedAlias(UrlMapping urlMapping) {
+        urlMapping.resolveExpiry(Instant.now());
+        for (int attempt = 0; attempt < MAX_GENERATE_ATTEMPTS; attempt++) {
+            urlMapping.setAlias(aliasCodec.encode(idBlockAllocator.nextId()));
+            try {
+                UrlMapping saved = repository.insert(urlMapping, changeFeed::recordCreated);
+                afterCreate(saved);
+                return saved;
+            } catch (DataIntegrityViolationException ex) {
+                // Only possible for a custom alias created before the generated namespace was reserved
+                urlMapping.setId(null);
+            }
+        }
+        throw new IllegalStateException("Could not generate a unique alias");
+    }
+
+    /**
+     * Finds an existing link that a new one with a generated alias would duplicate: one to the
+     * same destination, through the destination hash index, that doesn't expire and redirects
+     * the same way. Links that expire are never reused, nor do they reuse others.
+     *
+     * @param urlMapping the UrlMapping object containing the original URL and redirect policy
+     * @return the oldest such link, or an empty Optional if there is none
+     */
+    public Optional<UrlMapping> findReusable(UrlMapping urlMapping) {
+        if (urlMapping.getExpiresAt() != null || urlMapping.getTtl() != null) {
+            return Optional.empty();
+        }
+        return repository.findReusable(urlMapping.getOriginalUrl(), urlMapping.redirectStatus(), urlMapping.isImmutable());
     }
 
+    /**
+     * Creates many URL mappings at once. The whole payload is validated up front, alias
+     * conflicts are found with set-based queries, and the remaining mappings are inserted
+     * in JDBC batches within one transaction per shard. Items without an alias get a generated one.
+     *
+     * @param mappings the UrlMapping objects to create
+     * @return one result per item, in payload order
+     */
+    public List<BatchItemResult> createBatch(List<UrlMapping> mappings) {
+        return createBatch(mappings, aliases -> {});
+    }
 
     /**
-     * Gets the original URL for a given short URL.
+     * Creates many URL mappings at once, like {@link #createBatch(List)}, with a callback for
+     * work that must commit or roll back together with the mappings.
+     *
+     * @param mappings      the UrlMapping objects to create
+     * @param inTransaction called with the aliases created on each shard, in that shard's transaction
+     * @return one result per item, in payload order
+     */
+    public List<BatchItemResult> createBatch(List<UrlMapping> mappings, Consumer<List<String>> inTransaction) {
+        BatchItemResult[] results = new BatchItemResult[mappings.size()];
+        Map<String, Integer> requested = new LinkedHashMap<>();
+        List<Integer> toGenerate = new ArrayList<>();
+        Instant now = Instant.now();
+
+        for (int i = 0; i < mappings.size(); i++) {
+            UrlMapping mapping = mappings.get(i);
+            if (mapping == null) {
+                results[i] = new BatchItemResult(i, null, BatchItemResult.Status.INVALID, "Item must not be null");
+                continue;
+            }
+            String alias = mapping.getAlias();
+
+            Set<ConstraintViolation<UrlMapping>> violations = validator.validate(mapping);
+            if (!violations.isEmpty()) {
+                results[i] = new BatchItemResult(i, alias, BatchItemResult.Status.INVALID,
+                        violations.iterator().next().getMessage());
+            } else if (alias == null) {
+                mapping.resolveExpiry(now);
+                toGenerate.add(i);
+            } else if (isGeneratedAlias(alias)) {
+                results[i] = new BatchItemResult(i, alias, BatchItemResult.Status.INVALID,
+                        "Alias is reserved for generated codes");
+            } else if (requested.putIfAbsent(alias, i) != null) {
+                results[i] = new BatchItemResult(i, alias, BatchItemResult.Status.CONFLICT,
+                        "Alias appears more than once in the batch");
+            } else {
+                mapping.resolveExpiry(now);
+            }
+        }
+
+        // Generated aliases are assigned up front, since the alias decides the shard
+        for (int index : toGenerate) {
+            UrlMapping mapping = mappings.get(index);
+            mapping.setAlias(aliasCodec.encode(idBlockAllocator.nextId()));
+            requested.put(mapping.getAlias(), index);
+        }
+        Map<Integer, Map<String, Integer>> byShard = new TreeMap<>();
+        requested.forEach((alias, index) ->
+                byShard.computeIfAbsent(repository.shardFor(alias), k -> new LinkedHashMap<>()).put(alias, index));
+
+        List<UrlMapping> created = new ArrayList<>();
+        try {
+            byShard.forEach((shard, shardRequested) -> {
+                try {
+                    created.addAll(insertBatch(mappings, shardRequested, results, inTransaction));
+                } catch (DataIntegrityViolationException ex) {
+                    // A concurrent create took one of the aliases after the conflict check; check again and retry once
+                    shardRequested.values().forEach(index -> mappings.get(index).setId(null));
+                    try {
+                        created.addAll(insertBatch(mappings, shardRequested, results, inTransaction));
+                    } catch (DataIntegrityViolationException retryEx) {
+                        // Still racing; nothing on this shard committed, so report its items rather than fail the batch
+                        shardRequested.forEach((alias, index) -> {
+                            if (results[index].getStatus() == BatchItemResult.Status.CREATED) {
+                                results[index] = new BatchItemResult(index, alias, BatchItemResult.Status.CONFLICT,
+                                        "Alias was taken by a concurrent request");
+                            }
+                        });
+                    }
+                }
+            });
+        } finally {
+            // Each shard commits on its own, so what committed must be visible even if a later shard failed
+            created.forEach(this::afterCreate);
+        }
+        return Arrays.asList(results);
+    }
+
+    // Inserts the requested aliases of one shard that aren't taken, in a single transaction
+    private List<UrlMapping> insertBatch(List<UrlMapping> mappings,
+                                         Map<String, Integer> requested,
+                                         BatchItemResult[] results,
+                                         Consumer<List<String>> inTransaction) {
+        Set<String> existing = repository.findExistingAliases(requested.keySet());
+
+        List<UrlMapping> toInsert = new ArrayList<>();
+        requested.forEach((alias, index) -> {
+            if (existing.contains(alias)) {
+                results[index] = new BatchItemResult(index, alias, BatchItemResult.Status.CONFLICT, "Alias already exists");
+            } else {
+                toInsert.add(mappings.get(index));
+                results[index] = new BatchItemResult(index, alias, BatchItemResult.Status.CREATED, null);
+            }
+        });
+
+        repository.insertAll(toInsert, aliases -> {
+            changeFeed.recordCreated(aliases);
+            inTransaction.accept(aliases);
+        });
+        return toInsert;
+    }
+
+    // Brings the in-memory lookup structures up to date with a committed insert
+    private void afterCreate(UrlMapping mapping) {
+        cache.invalidate(mapping.getAlias());
+        aliasFilter.add(mapping.getAlias());
+        snapshotIndex.onCreated(mapping);
+        aliasIndex.onCreated(mapping.getAlias());
+    }
+
+    // Drops deleted aliases from the in-memory lookup structures
+    void afterDelete(List<String> aliases) {
+        for (String alias : aliases) {
+            cache.invalidate(alias);
+            aliasFilter.recordRemoval();
+            snapshotIndex.invalidate(alias);
+            aliasIndex.onDeleted(alias);
+        }
+        clickCounter.reset(aliases);
+        clickRollups.reset(aliases);
+    }
+
+    /**
+     * Checks whether an alias falls in the namespace reserved for generated codes.
+     *
+     * @param alias the custom alias
+     * @return true if the alias can't be used as a custom alias
+     */
+    public boolean isGeneratedAlias(String alias) {
+        return aliasCodec.isGenerated(alias);
+    }
+
+    /**
+     * Gets the original URL for a given short URL, as the full mapping read from the database.
      *
      * @param alias the custom alias.
-     * @return an Optional containing the UrlMapping object if found, or an empty Optional if not found
+     * @return an Optional containing the UrlMapping object if found, or an empty Optional if not found or expired
      */
     public Optional<UrlMapping> getOriginalUrl(String alias) {
-        return repository.findByAlias(alias);
+        if (!aliasFilter.mightContain(alias)) {
+            return Optional.empty();
+        }
+        return repository.findByAlias(alias)
+                .filter(mapping -> !mapping.isExpiredAt(Instant.now()));
+    }
+
+    /**
+     * Gets the redirect target of a short URL through the alias cache.
+     *
+     * @param alias the custom alias
+     * @return an Optional containing a plain mapping with the alias, original URL, expiry and redirect policy,
+     *         or an empty Optional if not found or expired
+     */
+    public Optional<UrlMapping> getRedirectTarget(String alias) {
+        // Definite misses never reach the cache or the database
+        if (!aliasFilter.mightContain(alias)) {
+            return Optional.empty();
+        }
+
+        Optional<UrlMapping> mapping = cache.get(alias);
+        if (mapping.isEmpty()) {
+            aliasFilter.recordFalsePositive();
+        }
+        return mapping;
+    }
+
+    /**
+     * Resolves the redirect target of a short URL. The snapshot index is consulted first,
+     * so known aliases redirect without the cache or the database.
+     *
+     * @param alias the custom alias
+     * @return an Optional containing a plain mapping with the alias, original URL, expiry and redirect policy,
+     *         or an empty Optional if not found or expired
+     */
+    public Optional<UrlMapping> resolveRedirect(String alias) {
+        UrlMapping target = snapshotIndex.get(alias);
+        if (target != null) {
+            return target.isExpiredAt(Instant.now()) ? Optional.empty() : Optional.of(target);
+        }
+        return getRedirectTarget(alias);
     }
 
     /**
      * Deletes a URL mapping by its custom alias.
      *
      * @param alias the custom alias for the shortened URL
+     * @throws IllegalArgumentException if the alias doesn't exist
+     * @throws IllegalStateException if the link is immutable, since clients may cache its redirect for good
      */
     public void deleteUrlMapping(String alias) {
-        Optional<UrlMapping> mappingOpt = repository.findByAlias(alias);
-        if (mappingOpt.isPresent()) {
-            repository.delete(mappingOpt.get());
-        } else {
+        boolean deleted = repository.deleteByAlias(alias, mapping -> {
+            if (mapping.isImmutable()) {
+                throw new IllegalStateException("Immutable links can't be deleted");
+            }
+            changeFeed.recordDeleted(List.of(alias));
+        });
+        if (!deleted) {
             throw new IllegalArgumentException("Alias not found");
         }
+        afterDelete(List.of(alias));
+    }
+
+    /**
+     * Gets the click statistics for a given alias.
+     *
+     * @param alias the custom alias
+     * @return an Optional containing the click statistics if the alias exists, or an empty Optional if not found
+     */
+    public Optional<ClickStats> getClickStats(String alias) {
+        return getRedirectTarget(alias).map(mapping -> clickCounter.getClicks(alias));
+    }
+
+    /**
+     * Retrieves one page of URL mappings, in ID order. With several shards, each shard is
+     * read from where the cursor left it and the results are merged by ID and then shard;
+     * IDs are only unique per shard, so that order interleaves the shards and isn't creation order.
+     *
+     * @param cursor the cursor returned with the previous page, or null for the first page
+     * @param limit  the maximum number of mappings in the page
+     * @return the page of UrlMapping objects and the cursor of the next page
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public UrlMappingPage getAllUrlMappings(String cursor, int limit) {
+        ShardedUrlMappingRepository.Page page = repository.findPage(decodeCursor(cursor, repository.shardCount()), limit);
+        return new UrlMappingPage(page.items(), page.hasMore() ? encodeCursor(page.after()) : null);
     }
 
     /**
-     * Retrieves all URL mappings.
+     * Streams every URL mapping, shard by shard and in ID order within each shard,
+     * without holding them in memory.
      *
-     * @return a list of all UrlMapping objects
+     * @param action the callback invoked for each mapping
      */
-    public List<UrlMapping> getAllUrlMappings() {
-        return repository.findAll();
+    public void forEachUrlMapping(Consumer<UrlMapping> action) {
+        repository.forEachMapping(action);
+    }
+
+    // The last ID seen on each shard, comma-separated; a single shard gives a plain ID
+    private static String encodeCursor(long[] after) {
+        int length = after.length;
+        while (length > 1 && after[length - 1] == 0) {
+            length--;
+        }
+        StringJoiner text = new StringJoiner(",");
+        for (int i = 0; i < length; i++) {
+            text.add(Long.toString(after[i]));
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text.toString().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static long[] decodeCursor(String cursor, int shardCount) {
+        long[] after = new long[shardCount];
+        if (cursor == null || cursor.isEmpty()) {
+            return after;
+        }
+        try {
+            String[] ids = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII).split(",");
+            if (ids.length > shardCount) {
+                throw new IllegalArgumentException("Cursor has more shards than configured");
+            }
+            for (int i = 0; i < ids.length; i++) {
+                after[i] = Long.parseLong(ids[i]);
+            }
+            return after;
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
     }
 
 }
@@ -0,0 +1,83 @@
+package com.minilinkr.api.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.minilinkr.api.controller.v1.ApiErrorController;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Which buckets {@link RateLimitFilter} charges a request to when an API key header is
+ * configured: the key's own for a known key, the address's for anything else.
+ */
+class RateLimitFilterTest {
+
+    private static final String HEADER = "X-Api-Key";
+
+    // Writes refused after the burst, for as long as a test runs
+    private static final int WRITE_BURST = 5;
+
+    private static final FilterChain NO_OP = (request, response) -> {};
+
+    private final RateLimiter limiter = new RateLimiter(
+            new double[] { 0, 1e-3, 0 }, new int[] { 1, WRITE_BURST, 1 }, 1000);
+
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        filter = new RateLimitFilter(limiter, new ApiErrorController(new ObjectMapper()),
+                HEADER, Set.of("known-key"), Set.of("error", "actuator"));
+    }
+
+    @Test
+    void rotatingUnknownKeysShareTheAddressBudget() throws Exception {
+        for (int i = 0; i < WRITE_BURST; i++) {
+            assertThat(write("10.0.0.1", "made-up-" + i)).isEqualTo(201);
+        }
+
+        assertThat(write("10.0.0.1", "made-up-" + WRITE_BURST)).isEqualTo(429);
+        assertThat(write("10.0.0.1", null)).isEqualTo(429);
+        // Only the address was tracked, not a client per made-up key
+        assertThat(limiter.clients()).isEqualTo(1);
+    }
+
+    @Test
+    void knownKeyHasItsOwnBudget() throws Exception {
+        for (int i = 0; i < WRITE_BURST; i++) {
+            assertThat(write("10.0.0.1", null)).isEqualTo(201);
+        }
+
+        assertThat(write("10.0.0.1", "known-key")).isEqualTo(201);
+        assertThat(write("10.0.0.1", null)).isEqualTo(429);
+    }
+
+    @Test
+    void knownKeyIsLimitedAcrossAddresses() throws Exception {
+        for (int i = 0; i < WRITE_BURST; i++) {
+            assertThat(write("10.0.1." + i, "known-key")).isEqualTo(201);
+        }
+
+        assertThat(write("10.0.1.99", "known-key")).isEqualTo(429);
+        assertThat(write("10.0.1.99", null)).isEqualTo(201);
+    }
+
+    // The status a create gets, 201 standing in for whatever the chain would have answered
+    private int write(String address, String key) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/urls");
+        request.setRemoteAddr(address);
+        if (key != null) {
+            request.addHeader(HEADER, key);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        response.setStatus(201);
+        filter.doFilter(request, response, NO_OP);
+        return response.getStatus();
+    }
+}
@@ -0,0 +1,117 @@
+package com.minilinkr.api.controller.v1;
+
+import com.minilinkr.api.MiniLinkrApiApplication;
+import com.minilinkr.api.model.UrlMapping;
+import com.minilinkr.api.service.UrlShorteningService;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Bytes allocated per request by the {@link RedirectFilter} fast path, for an alias that
+ * exists and one that doesn't. Requests and responses are reused, so only the filter's own
+ * allocation is counted.
+ */
+class RedirectFilterAllocationTest {
+
+    // Bytes allocated per request, with headroom over what was measured when these were set
+    private static final long REDIRECT_BUDGET = 1024;
+    private static final long NOT_FOUND_BUDGET = 512;
+
+    private static final int REQUESTS = 100_000;
+
+    private static final FilterChain NOT_REACHED = (request, response) -> {
+        throw new IllegalStateException("The fast path passed the request on");
+    };
+
+    @TempDir
+    static Path dir;
+
+    private static ConfigurableApplicationContext context;
+    private static RedirectFilter filter;
+
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @BeforeAll
+    static void start() {
+        context = new SpringApplicationBuilder(MiniLinkrApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run("--spring.datasource.url=jdbc:h2:mem:redirect-filter"
+                                + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--logging.level.root=WARN",
+                        "--minilinkr.alias-codes.key=" + ThreadLocalRandom.current().nextLong(),
+                        "--minilinkr.snapshot.dir=" + dir.resolve("snapshot"),
+                        "--minilinkr.analytics.journal.dir=" + dir.resolve("clicks"));
+        UrlShorteningService service = context.getBean(UrlShorteningService.class);
+        filter = new RedirectFilter(service,
+                context.getBean(RedirectController.class),
+                context.getBean(ApiErrorController.class),
+                Set.of("error", "actuator"));
+
+        UrlMapping mapping = new UrlMapping();
+        mapping.setAlias("alloc-redirect");
+        mapping.setOriginalUrl("https://example.com/landing/redirect");
+        service.createBatch(List.of(mapping));
+    }
+
+    @AfterAll
+    static void close() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    void redirectStaysWithinBudget() throws Exception {
+        assertThat(allocatedPerRequest(new MockHttpServletRequest("GET", "/alloc-redirect")))
+                .as("bytes allocated per redirect")
+                .isLessThanOrEqualTo(REDIRECT_BUDGET);
+        assertThat(response.getStatus()).isEqualTo(302);
+    }
+
+    @Test
+    void notFoundStaysWithinBudget() throws Exception {
+        assertThat(allocatedPerRequest(new MockHttpServletRequest("GET", "/alloc-missing")))
+                .as("bytes allocated per not found")
+                .isLessThanOrEqualTo(NOT_FOUND_BUDGET);
+        assertThat(response.getStatus()).isEqualTo(404);
+    }
+
+    private long allocatedPerRequest(MockHttpServletRequest request) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        // Warm up first, so the JIT has compiled the path and removed what escape analysis can
+        for (int i = 0; i < REQUESTS; i++) {
+            serve(request);
+        }
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < REQUESTS; i++) {
+            serve(request);
+        }
+        return (threads.getCurrentThreadAllocatedBytes() - before) / REQUESTS;
+    }
+
+    private void serve(MockHttpServletRequest request) throws Exception {
+        // The 404 is flushed, which commits the response
+        response.setCommitted(false);
+        response.reset();
+        filter.doFilter(request, response, NOT_REACHED);
+    }
+}
@@ -0,0 +1,244 @@
+package com.minilinkr.api.repository;
+
+import com.minilinkr.api.model.UrlMapping;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link BitcaskStore} across restarts: what compaction keeps, loading from hint files, and
+ * a record torn by a crash.
+ */
+class BitcaskStoreTest {
+
+    // Small enough that a few dozen records span several segments
+    private static final long SEGMENT_SIZE = 1024;
+
+    @TempDir
+    Path dir;
+
+    private BitcaskStore store;
+
+    @AfterEach
+    void close() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Test
+    void compactionDropsOverwrittenAndDeletedRecords() {
+        store = BitcaskStore.open(dir, SEGMENT_SIZE, false);
+        List<UrlMapping> mappings = put(100);
+        for (UrlMapping mapping : mappings.subList(0, 50)) {
+            mapping.setOriginalUrl(mapping.getOriginalUrl() + "/moved");
+        }
+        store.put(mappings.subList(0, 50));
+        store.delete(aliases(mappings.subList(50, 80)));
+        long diskBytes = store.diskBytes();
+
+        assertThat(store.compact(0.5)).isTrue();
+
+        assertThat(store.compactions()).isEqualTo(1);
+        assertThat(store.diskBytes()).isLessThan(diskBytes);
+        assertContains(mappings.subList(0, 50));
+        assertContains(mappings.subList(80, 100));
+        assertAbsent(mappings.subList(50, 80));
+        assertThat(store.size()).isEqualTo(70);
+    }
+
+    @Test
+    void compactionSkipsSegmentsWithLittleGarbage() {
+        store = BitcaskStore.open(dir, SEGMENT_SIZE, false);
+        List<UrlMapping> mappings = put(100);
+        store.delete(aliases(mappings.subList(0, 5)));
+
+        assertThat(store.compact(0.5)).isFalse();
+        assertThat(store.compactions()).isZero();
+    }
+
+    @Test
+    void restartLoadsCompactedSegmentsFromHints() throws IOException {
+        store = BitcaskStore.open(dir, SEGMENT_SIZE, false);
+        List<UrlMapping> mappings = put(100);
+        store.delete(aliases(mappings.subList(0, 60)));
+        store.compact(0);
+        // A hint left by a compaction that didn't finish is discarded
+        Files.writeString(dir.resolve("9999999999.hint.tmp"), "partial");
+        store.close();
+
+        assertThat(files(".hint")).isNotEmpty();
+        store = BitcaskStore.open(dir, SEGMENT_SIZE, false);
+
+        assertThat(files(".tmp")).isEmpty();
+        assertThat(store.size()).isEqualTo(40);
+        assertContains(mappings.subList(60, 100));
+        assertAbsent(mappings.subList(0, 60));
+        assertThat(store.idsAfter(0, 100)).containsExactlyElementsOf(ids(mappings.subList(60, 100)));
+    }
+
+    @Test
+    void restartTruncatesATornRecord() throws IOException {
+        store = BitcaskStore.open(dir, 1 << 20, false);
+        List<UrlMapping> mappings = put(3);
+        store.close();
+
+        Path segment = files(".data").get(0);
+        long size = Files.size(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            // Cut the last record short, as a crash in the middle of its write would
+            channel.truncate(size - 10);
+        }
+        store = BitcaskStore.open(dir, 1 << 20, false);
+
+        assertContains(mappings.subList(0, 2));
+        assertAbsent(mappings.subList(2, 3));
+        assertThat(Files.size(segment)).isLessThan(size - 10);
+
+        // Writes go on, and survive another restart
+        UrlMapping next = mapping("after-crash");
+        store.put(List.of(next));
+        store.close();
+        store = BitcaskStore.open(dir, 1 << 20, false);
+
+        assertContains(mappings.subList(0, 2));
+        assertContains(List.of(next));
+        assertThat(store.size()).isEqualTo(3);
+    }
+
+    @Test
+    void restartTruncatesACorruptRecord() throws IOException {
+        store = BitcaskStore.open(dir, 1 << 20, false);
+        List<UrlMapping> mappings = put(3);
+        store.close();
+
+        Path segment = files(".data").get(0);
+        long size = Files.size(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] { 0x7f }), size - 1);
+        }
+        store = BitcaskStore.open(dir, 1 << 20, false);
+
+        assertContains(mappings.subList(0, 2));
+        assertAbsent(mappings.subList(2, 3));
+    }
+
+    @Test
+    void deletionsStayDeletedAcrossCompactionAndRestart() {
+        store = BitcaskStore.open(dir, SEGMENT_SIZE, false);
+        List<UrlMapping> mappings = put(40);
+        // Some deletions land in the segment still active during compaction, some in compacted ones
+        store.delete(aliases(mappings.subList(0, 20)));
+        put(20, "filler");
+        store.delete(aliases(mappings.subList(20, 25)));
+        store.compact(0);
+        store.close();
+
+        store = BitcaskStore.open(dir, SEGMENT_SIZE, false);
+
+        assertAbsent(mappings.subList(0, 25));
+        assertContains(mappings.subList(25, 40));
+        assertThat(store.size()).isEqualTo(35);
+
+        // And across a second compaction of the segments written since
+        put(20, "more");
+        store.compact(0);
+        store.close();
+        store = BitcaskStore.open(dir, SEGMENT_SIZE, false);
+
+        assertAbsent(mappings.subList(0, 25));
+        assertContains(mappings.subList(25, 40));
+        assertThat(store.size()).isEqualTo(55);
+    }
+
+    @Test
+    void aliasRecreatedAfterDeletionSurvivesCompactionAndRestart() {
+        store = BitcaskStore.open(dir, SEGMENT_SIZE, false);
+        UrlMapping first = mapping("recreated");
+        store.put(List.of(first));
+        store.delete(List.of("recreated"));
+        put(20, "filler");
+        UrlMapping second = mapping("recreated");
+        second.setOriginalUrl("https://example.com/second");
+        store.put(List.of(second));
+        store.compact(0);
+        store.close();
+
+        store = BitcaskStore.open(dir, SEGMENT_SIZE, false);
+
+        assertThat(store.get("recreated").getOriginalUrl()).isEqualTo("https://example.com/second");
+        assertThat(store.get("recreated").getId()).isEqualTo(second.getId());
+    }
+
+    private List<UrlMapping> put(int count) {
+        return put(count, "alias");
+    }
+
+    // One put per mapping, so they spread over segments like separate requests would
+    private List<UrlMapping> put(int count, String prefix) {
+        List<UrlMapping> mappings = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            UrlMapping mapping = mapping(prefix + i);
+            if (i % 3 == 0) {
+                mapping.setExpiresAt(Instant.now().plus(1, ChronoUnit.DAYS).truncatedTo(ChronoUnit.MICROS));
+            }
+            store.put(List.of(mapping));
+            mappings.add(mapping);
+        }
+        return mappings;
+    }
+
+    private static UrlMapping mapping(String alias) {
+        UrlMapping mapping = new UrlMapping();
+        mapping.setAlias(alias);
+        mapping.setOriginalUrl("https://example.com/" + alias);
+        return mapping;
+    }
+
+    private void assertContains(List<UrlMapping> mappings) {
+        for (UrlMapping mapping : mappings) {
+            UrlMapping stored = store.get(mapping.getAlias());
+            assertThat(stored).as(mapping.getAlias()).isNotNull();
+            assertThat(stored.getId()).isEqualTo(mapping.getId());
+            assertThat(stored.getOriginalUrl()).isEqualTo(mapping.getOriginalUrl());
+            assertThat(stored.getExpiresAt()).isEqualTo(mapping.getExpiresAt());
+            assertThat(store.aliasOf(mapping.getId())).isEqualTo(mapping.getAlias());
+        }
+    }
+
+    private void assertAbsent(List<UrlMapping> mappings) {
+        for (UrlMapping mapping : mappings) {
+            assertThat(store.get(mapping.getAlias())).as(mapping.getAlias()).isNull();
+            assertThat(store.contains(mapping.getAlias())).isFalse();
+            assertThat(store.aliasOf(mapping.getId())).isNull();
+        }
+    }
+
+    private static List<String> aliases(List<UrlMapping> mappings) {
+        return mappings.stream().map(UrlMapping::getAlias).toList();
+    }
+
+    private static List<Long> ids(List<UrlMapping> mappings) {
+        return mappings.stream().map(UrlMapping::getId).toList();
+    }
+
+    private List<Path> files(String suffix) throws IOException {
+        try (Stream<Path> list = Files.list(dir)) {
+            return list.filter(path -> path.getFileName().toString().endsWith(suffix)).sorted().toList();
+        }
+    }
+}
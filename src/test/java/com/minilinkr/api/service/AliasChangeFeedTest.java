@@ -0,0 +1,90 @@
+package com.minilinkr.api.service;
+
+import com.minilinkr.api.MiniLinkrApiApplication;
+import com.minilinkr.api.model.UrlMapping;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two nodes sharing one database: a delete made through one must reach the other's cache
+ * through the change feed within the poll interval.
+ */
+class AliasChangeFeedTest {
+
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(200);
+
+    // One poll interval, plus room for a poll that is already running and a busy scheduler
+    private static final Duration STALENESS_BOUND = POLL_INTERVAL.multipliedBy(5);
+
+    // Both nodes share the database, so they share its key
+    private static final long ALIAS_CODES_KEY = ThreadLocalRandom.current().nextLong();
+
+    @TempDir
+    Path dir;
+
+    private ConfigurableApplicationContext first;
+    private ConfigurableApplicationContext second;
+
+    @AfterEach
+    void close() {
+        if (second != null) {
+            second.close();
+        }
+        if (first != null) {
+            first.close();
+        }
+    }
+
+    @Test
+    void deleteOnOneNodeInvalidatesTheOtherNodesCache() throws InterruptedException {
+        first = start("first");
+        second = start("second");
+
+        UrlMapping mapping = new UrlMapping();
+        mapping.setOriginalUrl("https://example.com/feed");
+        mapping.setAlias("feedtest");
+        first.getBean(UrlShorteningService.class).createCustomAlias(mapping);
+
+        // The second node loads the alias into its cache
+        AliasCache secondCache = second.getBean(AliasCache.class);
+        assertThat(secondCache.get("feedtest")).isPresent();
+
+        first.getBean(UrlShorteningService.class).deleteUrlMapping("feedtest");
+        long deletedAt = System.nanoTime();
+
+        Optional<UrlMapping> cached = secondCache.get("feedtest");
+        while (cached.isPresent() && System.nanoTime() - deletedAt < STALENESS_BOUND.toNanos()) {
+            Thread.sleep(20);
+            cached = secondCache.get("feedtest");
+        }
+        assertThat(cached).as("alias cached by the second node after %s", STALENESS_BOUND).isEmpty();
+        assertThat(second.getBean(UrlShorteningService.class).getRedirectTarget("feedtest")).isEmpty();
+    }
+
+    private ConfigurableApplicationContext start(String node) {
+        return new SpringApplicationBuilder(MiniLinkrApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run("--spring.datasource.url=jdbc:h2:mem:change-feed"
+                                + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--logging.level.root=WARN",
+                        "--minilinkr.node-id=" + node,
+                        "--minilinkr.alias-codes.key=" + ALIAS_CODES_KEY,
+                        "--minilinkr.changes.poll-interval=" + POLL_INTERVAL.toMillis() + "ms",
+                        // No journal dir: each node takes a journal directory of its own
+                        "--minilinkr.snapshot.dir=" + dir.resolve(node));
+    }
+}
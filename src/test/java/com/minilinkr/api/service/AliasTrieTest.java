@@ -0,0 +1,112 @@
+package com.minilinkr.api.service;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link AliasTrie} checked against a {@link TreeSet} of the same random aliases. Aliases
+ * share prefixes from a small pool, so edges are split at every depth.
+ */
+class AliasTrieTest {
+
+    private static final String ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789_-";
+
+    private static final int ALIASES = 675_000;
+
+    private static final int PROBES = 100_000;
+
+    private static final TreeSet<String> expected = new TreeSet<>();
+    private static final List<String> inserted = new ArrayList<>();
+    private static AliasTrie trie;
+
+    @BeforeAll
+    static void build() {
+        Random random = new Random(42);
+        List<String> prefixes = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            prefixes.add(randomAlias(random, 1, 8));
+        }
+        for (int i = 0; i < ALIASES; i++) {
+            String alias = random.nextBoolean()
+                    ? randomAlias(random, 1, AliasTrie.MAX_LENGTH)
+                    : prefixes.get(random.nextInt(prefixes.size())) + randomAlias(random, 0, 6);
+            expected.add(alias);
+            inserted.add(alias);
+        }
+        // Duplicates are allowed in the source
+        trie = AliasTrie.build(add -> {
+            inserted.forEach(add);
+            inserted.subList(0, 1000).forEach(add);
+        });
+    }
+
+    @Test
+    void sizeCountsDistinctAliases() {
+        assertThat(trie.size()).isEqualTo(expected.size());
+    }
+
+    @Test
+    void containsMatchesTreeSet() {
+        for (String alias : expected) {
+            assertThat(trie.contains(alias)).as(alias).isTrue();
+        }
+        Random random = new Random(7);
+        for (int i = 0; i < PROBES; i++) {
+            String alias = inserted.get(random.nextInt(inserted.size()));
+            // Cut short, extended and altered forms of a present alias
+            String[] probes = {
+                    alias.substring(0, random.nextInt(alias.length() + 1)),
+                    alias + ALPHABET.charAt(random.nextInt(ALPHABET.length())),
+                    randomAlias(random, 1, AliasTrie.MAX_LENGTH),
+            };
+            for (String probe : probes) {
+                assertThat(trie.contains(probe)).as(probe).isEqualTo(expected.contains(probe));
+            }
+        }
+    }
+
+    @Test
+    void withPrefixMatchesTreeSet() {
+        Random random = new Random(11);
+        for (int i = 0; i < PROBES / 10; i++) {
+            String alias = inserted.get(random.nextInt(inserted.size()));
+            String prefix = random.nextInt(4) == 0
+                    ? randomAlias(random, 0, 3)
+                    : alias.substring(0, random.nextInt(alias.length() + 1));
+            int limit = 1 + random.nextInt(50);
+            assertThat(trie.withPrefix(prefix, limit)).as(prefix).isEqualTo(withPrefix(prefix, limit));
+        }
+    }
+
+    @Test
+    void emptyTrieHasNoAliases() {
+        AliasTrie empty = AliasTrie.build(add -> {});
+
+        assertThat(empty.size()).isZero();
+        assertThat(empty.contains("abc")).isFalse();
+        assertThat(empty.withPrefix("", 10)).isEmpty();
+    }
+
+    private static List<String> withPrefix(String prefix, int limit) {
+        return expected.tailSet(prefix).stream()
+                .takeWhile(alias -> alias.startsWith(prefix))
+                .limit(limit)
+                .toList();
+    }
+
+    private static String randomAlias(Random random, int minLength, int maxLength) {
+        int length = minLength + random.nextInt(maxLength - minLength + 1);
+        StringBuilder alias = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            alias.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return alias.toString();
+    }
+}